@@ -1,58 +1,135 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.Locale;
 
 public class Accommodation implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    //same serialized fields as before the columnar store, so older save files still load
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("accID", int.class),
+            new ObjectStreamField("type", String.class),
+            new ObjectStreamField("price", double.class),
+            new ObjectStreamField("available", boolean.class)
+    };
     private static int nextID = 101;
-    private final int accID = nextID++;
-    private String type;
-    private double price;
-    private boolean available = true;
+    //state lives in the store's columns once the unit is in one
+    private transient AccommodationStore store;
+    private transient int row;
+    //state of a unit that isn't in a store yet, null once it is
+    private transient Detached detached;
 
     public Accommodation() {
-
+        this(null, 0);
     }
 
+    //a detached unit, until a store adopts it
     public Accommodation(String type, int price) {
-        this.type = type;
-        this.price = price;
+        this.detached = new Detached(allocateID(), type, price, true);
+    }
+
+    Accommodation(AccommodationStore store, int id, String type, double price, boolean available) {
+        this.store = store;
+        this.row = store.addRow(id, type, price, available, this);
+    }
+
+    static int allocateID() {
+        return nextID++;
+    }
+
+    //keeps new IDs clear of one that was loaded from a file
+    static void reserveID(int id) {
+        if (id >= nextID) nextID = id + 1;
+    }
+
+    AccommodationStore getStore() {
+        return store;
+    }
 
+    void attach(AccommodationStore store, int row) {
+        this.store = store;
+        this.row = row;
+        this.detached = null;
     }
 
     public int getID() {
-        return accID;
+        return store == null ? detached.id : store.id(row);
     }
 
     public String getType() {
-        return type;
+        return store == null ? detached.type : store.type(row);
     }
 
     public void setType(String type) {
-        this.type = type;
+        if (store == null) detached.type = Detached.typeName(type);
+        else store.setType(row, type);
     }
 
     public double getPrice() {
-        return price;
+        return store == null ? detached.priceCents / 100.0 : store.price(row);
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        if (store == null) detached.priceCents = AccommodationStore.toCents(price);
+        else store.setPrice(row, price);
     }
 
     public boolean isAvailable() {
-        return available;
+        return store == null ? detached.available : store.isAvailable(row);
     }
 
     public void setAvailable(boolean available) {
-        this.available = available;
+        if (store == null) detached.available = available;
+        else store.setAvailable(row, available);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("accID", getID());
+        fields.put("type", getType());
+        fields.put("price", getPrice());
+        fields.put("available", isAvailable());
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        //loaded units start detached, MtBullerResort relinks or adopts them
+        detached = new Detached(fields.get("accID", 0), (String) fields.get("type", null),
+                fields.get("price", 0.0), fields.get("available", true));
     }
 
     @Override
     public String toString() {
         return String.format(
                 "{ id: %d, type: \"%s\", price: $%.2f, available: %b }",
-                accID, type, price, available
+                getID(), getType(), getPrice(), isAvailable()
         );
     }
-}
\ No newline at end of file
+
+    private static final class Detached {
+        final int id;
+        String type;
+        long priceCents;
+        boolean available;
+
+        Detached(int id, String type, double price, boolean available) {
+            this.id = id;
+            this.type = typeName(type);
+            this.priceCents = AccommodationStore.toCents(price);
+            this.available = available;
+        }
+
+        //as a store would return it
+        static String typeName(String type) {
+            return type == null ? null : type.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+//conditions on units, all of which must hold; the store's planner decides how to find them
+//available units come cheapest first from the price index, other queries in the order units were added
+public class AccommodationQuery {
+    private String type;
+    private double minPrice = 0;
+    private double maxPrice = Double.MAX_VALUE;
+    private Boolean available;
+
+    //null for any type
+    public AccommodationQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public AccommodationQuery priceBetween(double minPrice, double maxPrice) {
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price is above the maximum.");
+        }
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public AccommodationQuery maxPrice(double maxPrice) {
+        return priceBetween(Math.min(minPrice, maxPrice), maxPrice);
+    }
+
+    public AccommodationQuery available(boolean available) {
+        this.available = available;
+        return this;
+    }
+
+    public QueryResult<Accommodation> run(AccommodationStore store) {
+        return store.query(type, minPrice, maxPrice, available);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(type == null ? "any type" : type);
+        if (minPrice > 0) sb.append(String.format(", from $%.2f", minPrice));
+        if (maxPrice < Double.MAX_VALUE) sb.append(String.format(", up to $%.2f", maxPrice));
+        if (available != null) sb.append(available ? ", available" : ", booked");
+        return sb.toString();
+    }
+}
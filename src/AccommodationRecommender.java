@@ -0,0 +1,89 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+//suggests the cheapest available units that fit a customer's budget
+public class AccommodationRecommender {
+    private final AccommodationStore store;
+    private final PriceQuoter quoter;
+
+    public AccommodationRecommender(AccommodationStore store, PriceQuoter quoter) {
+        this.store = store;
+        this.quoter = quoter;
+    }
+
+    //returns at most k units of the preferred types (empty for any) whose quoted stay fits the budget, cheapest first
+    //the quote scales every unit of a type by the same factor, so each type's price order still holds
+    public List<Accommodation> suggest(double budget, Collection<String> types, LocalDate date, int days, int k) {
+        ArrayList<Accommodation> result = new ArrayList<>();
+        if (k <= 0 || days <= 0 || budget <= 0) {
+            return result;
+        }
+        long maxNightlyCents = (long) Math.floor(budget * 100 / days);
+
+        //one cursor per type, merged by price: the queue never holds more entries than there are types
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>((a, b) -> a.quotedCents() != b.quotedCents()
+                ? Long.compare(a.quotedCents(), b.quotedCents())
+                : Integer.compare(store.id(a.row), store.id(b.row)));
+
+        if (types == null || types.isEmpty()) {
+            for (int code = 0; code < store.typeCount(); code++) {
+                addCursor(cursors, code, date, days);
+            }
+        } else {
+            for (String type : types) {
+                int code = store.typeCode(type.trim());
+                if (code >= 0) addCursor(cursors, code, date, days);
+            }
+        }
+
+        while (result.size() < k && !cursors.isEmpty()) {
+            Cursor cheapest = cursors.poll();
+            if (cheapest.quotedCents() > maxNightlyCents) {
+                break; //everything left costs more
+            }
+            result.add(store.view(cheapest.row));
+            if (cheapest.advance()) {
+                cursors.add(cheapest);
+            }
+        }
+        return result;
+    }
+
+    private void addCursor(PriorityQueue<Cursor> cursors, int typeCode, LocalDate date, int days) {
+        //skip duplicate types in the preference list
+        for (Cursor c : cursors) {
+            if (c.typeCode == typeCode) return;
+        }
+        Cursor cursor = new Cursor(typeCode, store.availableRowsByPrice(typeCode), quoter.factor(typeCode, date, days));
+        if (cursor.advance()) {
+            cursors.add(cursor);
+        }
+    }
+
+    private class Cursor {
+        private final int typeCode;
+        private final Iterator<Integer> rows;
+        private final double factor;
+        private int row;
+
+        Cursor(int typeCode, Iterator<Integer> rows, double factor) {
+            this.typeCode = typeCode;
+            this.rows = rows;
+            this.factor = factor;
+        }
+
+        long quotedCents() {
+            return Math.round(store.priceCents(row) * factor);
+        }
+
+        boolean advance() {
+            if (!rows.hasNext()) return false;
+            row = rows.next();
+            return true;
+        }
+    }
+}
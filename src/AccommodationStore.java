@@ -0,0 +1,388 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+//column-oriented accommodation inventory, each Accommodation is a view over one row
+public class AccommodationStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final byte NO_TYPE = -1;
+
+    private int[] ids;
+    private byte[] typeCodes;
+    private long[] priceCents;
+    private final BitSet available = new BitSet();
+    private Accommodation[] views;
+    private int size = 0;
+    //bumped whenever the price index changes, so cursors over it know to reposition
+    private int indexVersion = 0;
+    private ChangeLog changes;
+    private final ArrayList<AvailabilityListener> listeners = new ArrayList<>();
+
+    //dictionary encoding for type names
+    private final ArrayList<String> typeNames = new ArrayList<>();
+    private final HashMap<String, Byte> typeCodeByName = new HashMap<>();
+    //per type code, available rows keyed by price then id, see Page.key
+    private final ArrayList<TreeMap<Long, Integer>> availableByPrice = new ArrayList<>();
+    //units of each type code, available or not
+    private final int[] unitsByType = new int[Byte.MAX_VALUE + 1];
+    //every unit ordered by price then id, see Page.key, for the sorted listing
+    private final TreeMap<Long, Accommodation> unitsByPrice = new TreeMap<>();
+
+    public AccommodationStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AccommodationStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        ids = new int[capacity];
+        typeCodes = new byte[capacity];
+        priceCents = new long[capacity];
+        views = new Accommodation[capacity];
+    }
+
+    //marks rows in the change log whenever they are added or modified
+    public void track(ChangeLog changes) {
+        this.changes = changes;
+    }
+
+    public void addListener(AvailabilityListener listener) {
+        listeners.add(listener);
+    }
+
+    //creates a new unit in this store
+    public Accommodation add(String type, double price) {
+        return new Accommodation(this, Accommodation.allocateID(), type, price, true);
+    }
+
+    //moves a unit created elsewhere (e.g. deserialized) into this store
+    public void adopt(Accommodation a) {
+        if (a.getStore() == this) {
+            return;
+        }
+        int row = addRow(a.getID(), a.getType(), a.getPrice(), a.isAvailable(), a);
+        a.attach(this, row);
+    }
+
+    int addRow(int id, String type, double price, boolean isAvailable, Accommodation view) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            views = Arrays.copyOf(views, capacity);
+        }
+        int row = size++;
+        ids[row] = id;
+        typeCodes[row] = encodeType(type);
+        countUnit(row, 1);
+        priceCents[row] = toCents(price);
+        available.set(row, isAvailable);
+        views[row] = view;
+        unitsByPrice.put(Page.key(priceCents[row], id), view);
+        indexRow(row);
+        markChanged(row);
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Accommodation view(int row) {
+        return views[row];
+    }
+
+    public NavigableMap<Long, Accommodation> unitsByPrice() {
+        return Collections.unmodifiableNavigableMap(unitsByPrice);
+    }
+
+    int id(int row) {
+        return ids[row];
+    }
+
+    String type(int row) {
+        byte code = typeCodes[row];
+        return code == NO_TYPE ? null : typeNames.get(code);
+    }
+
+    void setType(int row, String type) {
+        unindexRow(row);
+        countUnit(row, -1);
+        typeCodes[row] = encodeType(type);
+        countUnit(row, 1);
+        indexRow(row);
+        markChanged(row);
+    }
+
+    double price(int row) {
+        return priceCents[row] / 100.0;
+    }
+
+    void setPrice(int row, double price) {
+        unindexRow(row);
+        unitsByPrice.remove(Page.key(priceCents[row], ids[row]));
+        priceCents[row] = toCents(price);
+        unitsByPrice.put(Page.key(priceCents[row], ids[row]), views[row]);
+        indexRow(row);
+        markChanged(row);
+    }
+
+    boolean isAvailable(int row) {
+        return available.get(row);
+    }
+
+    void setAvailable(int row, boolean isAvailable) {
+        boolean released = isAvailable && !available.get(row);
+        unindexRow(row);
+        available.set(row, isAvailable);
+        indexRow(row);
+        markChanged(row);
+        if (released) {
+            for (AvailabilityListener listener : listeners) listener.unitReleased(views[row]);
+        }
+    }
+
+    long priceCents(int row) {
+        return priceCents[row];
+    }
+
+    //available rows of one type, cheapest first
+    Iterator<Integer> availableRowsByPrice(int typeCode) {
+        return availableByPrice.get(typeCode).values().iterator();
+    }
+
+    int typeCount() {
+        return typeNames.size();
+    }
+
+    private void markChanged(int row) {
+        if (changes != null && views[row] != null) changes.mark(views[row]);
+    }
+
+    private void indexRow(int row) {
+        indexVersion++;
+        if (available.get(row) && typeCodes[row] != NO_TYPE) {
+            availableByPrice.get(typeCodes[row]).put(Page.key(priceCents[row], ids[row]), row);
+        }
+    }
+
+    private void unindexRow(int row) {
+        if (available.get(row) && typeCodes[row] != NO_TYPE) {
+            availableByPrice.get(typeCodes[row]).remove(Page.key(priceCents[row], ids[row]));
+        }
+    }
+
+    //returns the dictionary code for a type, or -1 if no unit has that type
+    public int typeCode(String type) {
+        if (type == null) {
+            return NO_TYPE;
+        }
+        Byte code = typeCodeByName.get(type.toLowerCase(Locale.ROOT));
+        return code == null ? NO_TYPE : code;
+    }
+
+    public int unitCount(int typeCode) {
+        return unitsByType[typeCode];
+    }
+
+    private void countUnit(int row, int delta) {
+        if (typeCodes[row] != NO_TYPE) unitsByType[typeCodes[row]] += delta;
+    }
+
+    public List<String> typeNames() {
+        return List.copyOf(typeNames);
+    }
+
+    public int countAvailable() {
+        return available.cardinality();
+    }
+
+    public int countAvailable(String type) {
+        int code = typeCode(type);
+        if (code == NO_TYPE) {
+            return 0;
+        }
+        int count = 0;
+        for (int row = available.nextSetBit(0); row >= 0 && row < size; row = available.nextSetBit(row + 1)) {
+            if (typeCodes[row] == code) count++;
+        }
+        return count;
+    }
+
+    //cheapest available unit of a type (null for any type) at or under maxPrice that isn't in skip, or null
+    public Accommodation cheapestAvailable(String type, double maxPrice, Set<Accommodation> skip) {
+        int code = typeCode(type);
+        if (type != null && code == NO_TYPE) {
+            return null;
+        }
+        long maxCents = maxPrice >= Long.MAX_VALUE / 100.0 ? Long.MAX_VALUE : toCents(maxPrice);
+        int best = -1;
+        for (int c = type == null ? 0 : code; c < (type == null ? typeNames.size() : code + 1); c++) {
+            for (int row : availableByPrice.get(c).values()) {
+                if (priceCents[row] > maxCents) break;
+                if (skip.contains(views[row])) continue;
+                if (best < 0 || priceCents[row] < priceCents[best]
+                        || (priceCents[row] == priceCents[best] && ids[row] < ids[best])) best = row;
+                break;
+            }
+        }
+        return best < 0 ? null : views[best];
+    }
+
+    //query planner: available units are read from the price index, anything else by a scan of the columns
+    QueryResult<Accommodation> query(String type, double minPrice, double maxPrice, Boolean isAvailable) {
+        int code = typeCode(type);
+        if (type != null && code == NO_TYPE) {
+            return new QueryResult<>("no units of type " + type, Collections.emptyIterator(), a -> true);
+        }
+        long minCents = toCents(minPrice);
+        long maxCents = maxPrice >= Long.MAX_VALUE / 100.0 ? Long.MAX_VALUE : toCents(maxPrice);
+        if (Boolean.TRUE.equals(isAvailable)) {
+            int[] codes = new int[type == null ? typeNames.size() : 1];
+            for (int i = 0; i < codes.length; i++) codes[i] = type == null ? i : code;
+            return new QueryResult<>("price index (" + (type == null ? "all types" : typeNames.get(code)) + ")",
+                    new PriceCursor(codes, minCents, maxCents), a -> true);
+        }
+        return new QueryResult<>("column scan", new ColumnScan(code, minCents, maxCents, isAvailable), a -> true);
+    }
+
+    //available units cheapest first across some types, merging each type's price index
+    //it remembers the key of the last unit returned and seeks past it if the index changes between reads
+    private final class PriceCursor implements Iterator<Accommodation> {
+        private final int[] codes;
+        private final long maxKey;
+        private final ArrayList<Iterator<Integer>> rows;
+        private final int[] heads;
+        private int version = -1;
+        private long lastKey;
+        private boolean started = false;
+
+        PriceCursor(int[] codes, long minCents, long maxCents) {
+            this.codes = codes;
+            this.lastKey = Page.key(minCents, 0);
+            this.maxKey = maxCents == Long.MAX_VALUE ? Long.MAX_VALUE : Page.key(maxCents, -1);
+            rows = new ArrayList<>(codes.length);
+            for (int i = 0; i < codes.length; i++) rows.add(Collections.emptyIterator());
+            heads = new int[codes.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (version != indexVersion) reposition();
+            for (int head : heads) {
+                if (head >= 0) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Accommodation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] >= 0 && (best < 0 || before(heads[i], heads[best]))) best = i;
+            }
+            int row = heads[best];
+            lastKey = Page.key(priceCents[row], ids[row]);
+            started = true;
+            heads[best] = advance(rows.get(best));
+            return views[row];
+        }
+
+        private void reposition() {
+            for (int i = 0; i < codes.length; i++) {
+                if (lastKey > maxKey) {
+                    heads[i] = -1;
+                    continue;
+                }
+                rows.set(i, availableByPrice.get(codes[i]).subMap(lastKey, !started, maxKey, true).values().iterator());
+                heads[i] = advance(rows.get(i));
+            }
+            version = indexVersion;
+        }
+
+        //next row in range, or -1
+        private static int advance(Iterator<Integer> it) {
+            return it.hasNext() ? it.next() : -1;
+        }
+
+        private boolean before(int a, int b) {
+            return priceCents[a] != priceCents[b] ? priceCents[a] < priceCents[b] : ids[a] < ids[b];
+        }
+    }
+
+    //rows in insertion order, checked against the primitive columns
+    private final class ColumnScan implements Iterator<Accommodation> {
+        private final int code;
+        private final long minCents;
+        private final long maxCents;
+        private final Boolean isAvailable;
+        private int row = -1;
+        private int nextRow = -2;
+
+        ColumnScan(int code, long minCents, long maxCents, Boolean isAvailable) {
+            this.code = code;
+            this.minCents = minCents;
+            this.maxCents = maxCents;
+            this.isAvailable = isAvailable;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == -2) {
+                int r = row + 1;
+                while (r < size && !matches(r)) r++;
+                nextRow = r < size ? r : -1;
+            }
+            return nextRow >= 0;
+        }
+
+        @Override
+        public Accommodation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            row = nextRow;
+            nextRow = -2;
+            return views[row];
+        }
+
+        private boolean matches(int r) {
+            return (code == NO_TYPE || typeCodes[r] == code) && priceCents[r] >= minCents && priceCents[r] <= maxCents
+                    && (isAvailable == null || available.get(r) == isAvailable);
+        }
+    }
+
+    private byte encodeType(String type) {
+        if (type == null) {
+            return NO_TYPE;
+        }
+        String key = type.toLowerCase(Locale.ROOT);
+        Byte code = typeCodeByName.get(key);
+        if (code == null) {
+            if (typeNames.size() > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many accommodation types.");
+            }
+            code = (byte) typeNames.size();
+            typeNames.add(key);
+            typeCodeByName.put(key, code);
+            availableByPrice.add(new TreeMap<>());
+        }
+        return code;
+    }
+
+    static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.*;
+import java.util.ArrayList;
+
+//append-only file of change sets, each frame is a length prefix followed by one serialized ChangeSet
+public class AutosaveJournal implements ChangeSink {
+    private final File file;
+
+    public AutosaveJournal(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void write(ChangeSet changes) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(file, true)) {
+            writeFrame(fos, changes);
+        }
+    }
+
+    private static void writeFrame(FileOutputStream fos, ChangeSet changes) throws IOException {
+        byte[] frame = serialize(changes);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.flush();
+        fos.getFD().sync();
+    }
+
+    //reads every complete frame, a frame cut short by a crash ends the replay
+    //a length running past the end of the file is a frame cut short; a negative one means the file is corrupt
+    public synchronized ArrayList<ChangeSet> read() throws IOException, ClassNotFoundException {
+        ArrayList<ChangeSet> frames = new ArrayList<>();
+        if (!file.exists()) {
+            return frames;
+        }
+        long remaining = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                remaining -= 4;
+                if (length < 0) {
+                    throw new IOException(file.getName() + " has a corrupt frame of " + length + " bytes.");
+                }
+                if (length > remaining) {
+                    break;
+                }
+                remaining -= length;
+                byte[] frame = new byte[length];
+                try {
+                    in.readFully(frame);
+                } catch (EOFException e) {
+                    break;
+                }
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(frame))) {
+                    frames.add((ChangeSet) ois.readObject());
+                }
+            }
+        }
+        return frames;
+    }
+
+    //replaces the journal with a single frame, used after a replay so the file does not grow forever
+    public synchronized void rewrite(ChangeSet snapshot) throws IOException {
+        SaveFile.writeAtomically(file, fos -> writeFrame(fos, snapshot));
+    }
+
+    private static byte[] serialize(ChangeSet changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(changes);
+        }
+        return bytes.toByteArray();
+    }
+}
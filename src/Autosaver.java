@@ -0,0 +1,130 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//flushes the resort's changed records to a sink on a fixed interval
+//the thread that owns the resort hands over each batch with collect, which serializes the records there, so the
+//autosave thread only ever writes its own copies and never reads a record the owner is changing
+//batches go out in the order they were collected; one that fails stays first in line for the next flush
+public class Autosaver implements AutoCloseable {
+    private final ChangeLog changes;
+    private final ChangeSink sink;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentLinkedQueue<Batch> collected = new ConcurrentLinkedQueue<>();
+    //only written by flush, which holds the lock; volatile so the status reads never wait on a write in progress
+    private volatile long recordsWritten = 0;
+    private volatile long flushes = 0;
+    private volatile String lastError;
+
+    public Autosaver(ChangeLog changes, ChangeSink sink, long intervalSeconds) {
+        this.changes = changes;
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "autosave");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    //takes everything changed since the last call, only on the thread that owns the resort; returns the record count
+    public int collect() throws IOException {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        ChangeSet batch = changes.drain();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(batch);
+        }
+        collected.add(new Batch(bytes.toByteArray(), batch.size()));
+        return batch.size();
+    }
+
+    //writes every collected batch, returns the number of records written
+    public synchronized int flush() throws IOException {
+        int written = 0;
+        Batch batch;
+        while ((batch = collected.peek()) != null) {
+            sink.write(batch.decode());
+            collected.poll();
+            recordsWritten += batch.size;
+            flushes++;
+            written += batch.size;
+        }
+        return written;
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    //the autosave thread has no one to tell, so a failure is kept for describe
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    void failed(IOException e) {
+        lastError = e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+
+    //null until a collect or flush fails
+    public String getLastError() {
+        return lastError;
+    }
+
+    public String describe() {
+        String text = recordsWritten + " records written in " + flushes + " flushes, " + collected.size() + " batches waiting";
+        return lastError == null ? text : text + ", last error: " + lastError;
+    }
+
+    //stops the schedule, then collects and writes any pending changes; called on the thread that owns the resort
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            collect();
+        } catch (IOException e) {
+            failed(e);
+        }
+        flushQuietly();
+    }
+
+    //a change set as serialized on the owner's thread, decoded into fresh objects for each write
+    private static final class Batch {
+        final byte[] bytes;
+        final int size;
+
+        Batch(byte[] bytes, int size) {
+            this.bytes = bytes;
+            this.size = size;
+        }
+
+        ChangeSet decode() throws IOException {
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (ChangeSet) ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+//notified by AccommodationStore when a unit becomes available again
+public interface AvailabilityListener {
+    void unitReleased(Accommodation accommodation);
+}
@@ -0,0 +1,320 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//file-backed B+tree of long keys to long values with an LRU page cache
+//page 0 holds the root and page count, leaves are linked left to right for range scans
+//deletes do not rebalance, so pages may be left under-full
+public class BTreeIndex implements AutoCloseable {
+    static final int PAGE_SIZE = 4096;
+    private static final int MAGIC = 0x4D424258; //"MBBX"
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int HEADER = 1 + 4 + 8; //type, count, next leaf or first child
+    static final int MAX_ENTRIES = (PAGE_SIZE - HEADER) / 16;
+    private static final long NONE = -1;
+
+    public interface EntryVisitor {
+        //return false to stop the scan
+        boolean visit(long key, long value);
+    }
+
+    private final FileChannel channel;
+    private final LinkedHashMap<Long, Node> cache;
+    private long root;
+    private long pageCount;
+    private boolean metaDirty = false;
+
+    public BTreeIndex(File file, int cachePages) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cache = new LinkedHashMap<>(cachePages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+                if (size() <= cachePages) return false;
+                if (eldest.getValue().dirty) {
+                    try {
+                        writeNode(eldest.getValue());
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not write index page", e);
+                    }
+                }
+                return true;
+            }
+        };
+
+        if (channel.size() == 0) {
+            pageCount = 1;
+            Node first = newNode(true);
+            root = first.id;
+            metaDirty = true;
+            flush();
+        } else {
+            ByteBuffer meta = ByteBuffer.allocate(20);
+            channel.read(meta, 0);
+            meta.flip();
+            if (meta.getInt() != MAGIC) {
+                throw new IOException(file.getName() + " is not an index file.");
+            }
+            root = meta.getLong();
+            pageCount = meta.getLong();
+        }
+    }
+
+    public synchronized long get(long key, long missing) throws IOException {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.values[childIndex(node, key)]);
+        }
+        int i = search(node, key);
+        return i >= 0 ? node.values[i] : missing;
+    }
+
+    public synchronized void put(long key, long value) throws IOException {
+        Split split = insert(node(root), key, value);
+        if (split != null) {
+            Node newRoot = newNode(false);
+            newRoot.count = 1;
+            newRoot.keys[0] = split.key;
+            newRoot.values[0] = root;
+            newRoot.values[1] = split.page;
+            root = newRoot.id;
+            metaDirty = true;
+        }
+    }
+
+    public synchronized boolean remove(long key) throws IOException {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.values[childIndex(node, key)]);
+        }
+        int i = search(node, key);
+        if (i < 0) return false;
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        System.arraycopy(node.values, i + 1, node.values, i, node.count - i - 1);
+        node.count--;
+        markDirty(node);
+        return true;
+    }
+
+    //visits keys from..to inclusive in order
+    public synchronized void scan(long from, long to, EntryVisitor visitor) throws IOException {
+        Node node = node(root);
+        while (!node.leaf) {
+            node = node(node.values[childIndex(node, from)]);
+        }
+        int i = search(node, from);
+        if (i < 0) i = -i - 1;
+        while (true) {
+            for (; i < node.count; i++) {
+                if (node.keys[i] > to) return;
+                if (!visitor.visit(node.keys[i], node.values[i])) return;
+            }
+            if (node.next == NONE) return;
+            node = node(node.next);
+            i = 0;
+        }
+    }
+
+    //largest key, or missing when empty
+    public synchronized long lastKey(long missing) throws IOException {
+        Node leaf = lastLeaf(node(root));
+        return leaf == null ? missing : leaf.keys[leaf.count - 1];
+    }
+
+    //follows the rightmost child down, stepping left only past subtrees that deletes have emptied
+    private Node lastLeaf(Node node) throws IOException {
+        if (node.leaf) return node.count == 0 ? null : node;
+        for (int c = node.count; c >= 0; c--) {
+            Node leaf = lastLeaf(node(node.values[c]));
+            if (leaf != null) return leaf;
+        }
+        return null;
+    }
+
+    public synchronized void flush() throws IOException {
+        for (Node node : cache.values()) {
+            if (node.dirty) writeNode(node);
+        }
+        if (metaDirty) {
+            ByteBuffer meta = ByteBuffer.allocate(20);
+            meta.putInt(MAGIC).putLong(root).putLong(pageCount).flip();
+            channel.write(meta, 0);
+            metaDirty = false;
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private Split insert(Node node, long key, long value) throws IOException {
+        if (node.leaf) {
+            int i = search(node, key);
+            if (i >= 0) {
+                node.values[i] = value;
+                markDirty(node);
+                return null;
+            }
+            i = -i - 1;
+            System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+            System.arraycopy(node.values, i, node.values, i + 1, node.count - i);
+            node.keys[i] = key;
+            node.values[i] = value;
+            node.count++;
+            markDirty(node);
+            return node.count > MAX_ENTRIES ? splitLeaf(node) : null;
+        }
+
+        int c = childIndex(node, key);
+        Split split = insert(node(node.values[c]), key, value);
+        if (split == null) return null;
+
+        System.arraycopy(node.keys, c, node.keys, c + 1, node.count - c);
+        System.arraycopy(node.values, c + 1, node.values, c + 2, node.count - c);
+        node.keys[c] = split.key;
+        node.values[c + 1] = split.page;
+        node.count++;
+        markDirty(node);
+        return node.count > MAX_ENTRIES ? splitInternal(node) : null;
+    }
+
+    private Split splitLeaf(Node left) throws IOException {
+        Node right = newNode(true);
+        int mid = left.count / 2;
+        right.count = left.count - mid;
+        System.arraycopy(left.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(left.values, mid, right.values, 0, right.count);
+        left.count = mid;
+        right.next = left.next;
+        left.next = right.id;
+        markDirty(left);
+        return new Split(right.keys[0], right.id);
+    }
+
+    private Split splitInternal(Node left) throws IOException {
+        Node right = newNode(false);
+        int mid = left.count / 2;
+        long promoted = left.keys[mid];
+        right.count = left.count - mid - 1;
+        System.arraycopy(left.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(left.values, mid + 1, right.values, 0, right.count + 1);
+        left.count = mid;
+        markDirty(left);
+        return new Split(promoted, right.id);
+    }
+
+    //index of the child whose range holds key: keys[i] separates child i (smaller) from child i + 1
+    private static int childIndex(Node node, long key) {
+        int lo = 0;
+        int hi = node.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key < node.keys[mid]) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    private static int search(Node node, long key) {
+        int lo = 0;
+        int hi = node.count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (node.keys[mid] < key) lo = mid + 1;
+            else if (node.keys[mid] > key) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    //a page on the current path can be evicted while we still hold it, so put it back when it changes
+    private void markDirty(Node node) {
+        node.dirty = true;
+        cache.put(node.id, node);
+    }
+
+    private Node newNode(boolean leaf) {
+        Node node = new Node(pageCount++, leaf);
+        markDirty(node);
+        metaDirty = true;
+        return node;
+    }
+
+    private Node node(long id) throws IOException {
+        Node node = cache.get(id);
+        if (node != null) return node;
+
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        channel.read(page, id * PAGE_SIZE);
+        page.flip();
+        node = new Node(id, page.get() == LEAF);
+        node.count = page.getInt();
+        if (node.leaf) {
+            node.next = page.getLong();
+            for (int i = 0; i < node.count; i++) {
+                node.keys[i] = page.getLong();
+                node.values[i] = page.getLong();
+            }
+        } else {
+            node.values[0] = page.getLong();
+            for (int i = 0; i < node.count; i++) {
+                node.keys[i] = page.getLong();
+                node.values[i + 1] = page.getLong();
+            }
+        }
+        cache.put(id, node);
+        return node;
+    }
+
+    private void writeNode(Node node) throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+        page.put(node.leaf ? LEAF : INTERNAL).putInt(node.count);
+        if (node.leaf) {
+            page.putLong(node.next);
+            for (int i = 0; i < node.count; i++) {
+                page.putLong(node.keys[i]).putLong(node.values[i]);
+            }
+        } else {
+            page.putLong(node.values[0]);
+            for (int i = 0; i < node.count; i++) {
+                page.putLong(node.keys[i]).putLong(node.values[i + 1]);
+            }
+        }
+        page.position(PAGE_SIZE).flip();
+        channel.write(page, node.id * PAGE_SIZE);
+        node.dirty = false;
+    }
+
+    //leaves hold values, internal nodes hold child page ids in values[0..count]
+    private static class Node {
+        private final long id;
+        private final boolean leaf;
+        private int count = 0;
+        private final long[] keys = new long[MAX_ENTRIES + 1];
+        private final long[] values = new long[MAX_ENTRIES + 2];
+        private long next = NONE;
+        private boolean dirty = false;
+
+        Node(long id, boolean leaf) {
+            this.id = id;
+            this.leaf = leaf;
+        }
+    }
+
+    private static class Split {
+        private final long key;
+        private final long page;
+
+        Split(long key, long page) {
+            this.key = key;
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//embedded on-disk store: records are appended to records.dat and found through B+tree index files
+//primary indexes map id -> record offset, secondary indexes pack (field, id) into one long key
+//only pages in the cache and records asked for are held in memory
+//a save appends a new copy of the record, so on close records.dat is compacted once enough of it is unreachable:
+//the live records and the primary indexes pointing at them are written to .compact files, a marker file commits
+//them, then they are renamed into place; opening finishes a committed compaction or discards an uncommitted one
+public class BTreeRepository implements ResortRepository {
+    private static final int CACHE_PAGES = 256;
+    private static final long MISSING = -1;
+    //unreachable bytes records.dat must hold, and be mostly made of, before it is compacted
+    static final long COMPACT_MIN_BYTES = 1 << 20;
+    private static final String COMPACT_MARKER = "compact.commit";
+    //files a compaction replaces, the records and the indexes that hold offsets into them
+    private static final String[] COMPACTED = {"records.dat", "customers.idx", "accommodations.idx", "packages.idx"};
+
+    private final File dir;
+    private final RecordFile records;
+    private final BTreeIndex customers;
+    private final BTreeIndex accommodations;
+    private final BTreeIndex packages;
+    private final BTreeIndex customerEmail;
+    private final BTreeIndex accommodationType;
+    private final BTreeIndex packageCustomer;
+    private final BTreeIndex packageDeparture;
+
+    public BTreeRepository(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        this.dir = dir;
+        installCompaction(dir);
+        records = new RecordFile(new File(dir, "records.dat"));
+        customers = new BTreeIndex(new File(dir, "customers.idx"), CACHE_PAGES);
+        accommodations = new BTreeIndex(new File(dir, "accommodations.idx"), CACHE_PAGES);
+        packages = new BTreeIndex(new File(dir, "packages.idx"), CACHE_PAGES);
+        customerEmail = new BTreeIndex(new File(dir, "customer-email.idx"), CACHE_PAGES);
+        accommodationType = new BTreeIndex(new File(dir, "accommodation-type.idx"), CACHE_PAGES);
+        packageCustomer = new BTreeIndex(new File(dir, "package-customer.idx"), CACHE_PAGES);
+        packageDeparture = new BTreeIndex(new File(dir, "package-departure.idx"), CACHE_PAGES);
+    }
+
+    @Override
+    public synchronized void saveCustomer(Customer customer) throws IOException {
+        int id = customer.getID();
+        Customer old = findCustomer(id);
+        if (old != null) customerEmail.remove(key(hash(MtBullerResort.normalizeEmail(old.getEmail())), id));
+        customers.put(id, records.append(customer));
+        customerEmail.put(key(hash(MtBullerResort.normalizeEmail(customer.getEmail())), id), id);
+    }
+
+    @Override
+    public synchronized void saveAccommodation(Accommodation accommodation) throws IOException {
+        int id = accommodation.getID();
+        Accommodation old = findAccommodation(id);
+        if (old != null) accommodationType.remove(key(hash(typeKey(old.getType())), id));
+        accommodations.put(id, records.append(accommodation));
+        accommodationType.put(key(hash(typeKey(accommodation.getType())), id), id);
+    }
+
+    @Override
+    public synchronized void savePackage(TravelPackage pkg) throws IOException {
+        int id = pkg.getID();
+        TravelPackage old = findPackage(id);
+        if (old != null) {
+            packageCustomer.remove(key(old.getCustomer().getID(), id));
+            packageDeparture.remove(key(InMemoryRepository.departureDay(old), id));
+        }
+        packages.put(id, records.append(pkg));
+        packageCustomer.put(key(pkg.getCustomer().getID(), id), id);
+        packageDeparture.put(key(InMemoryRepository.departureDay(pkg), id), id);
+    }
+
+    @Override
+    public synchronized void deletePackage(int id) throws IOException {
+        TravelPackage old = findPackage(id);
+        if (old == null) return;
+        //the record stays in records.dat, unreachable, until the file is compacted
+        packageCustomer.remove(key(old.getCustomer().getID(), id));
+        packageDeparture.remove(key(InMemoryRepository.departureDay(old), id));
+        packages.remove(id);
+    }
+
+    //one fsync per batch rather than per record
+    @Override
+    public synchronized void write(ChangeSet changes) throws IOException {
+        ResortRepository.super.write(changes);
+        flush();
+    }
+
+    @Override
+    public synchronized Customer findCustomer(int id) throws IOException {
+        return (Customer) load(customers.get(id, MISSING));
+    }
+
+    @Override
+    public synchronized Customer findCustomerByEmail(String email) throws IOException {
+        String normalized = MtBullerResort.normalizeEmail(email);
+        for (int id : idsInRange(customerEmail, hash(normalized))) {
+            Customer c = findCustomer(id);
+            //different emails can share a hash
+            if (c != null && MtBullerResort.normalizeEmail(c.getEmail()).equals(normalized)) return c;
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized Accommodation findAccommodation(int id) throws IOException {
+        return (Accommodation) load(accommodations.get(id, MISSING));
+    }
+
+    @Override
+    public synchronized TravelPackage findPackage(int id) throws IOException {
+        return (TravelPackage) load(packages.get(id, MISSING));
+    }
+
+    @Override
+    public synchronized List<Customer> allCustomers() throws IOException {
+        ArrayList<Customer> result = new ArrayList<>();
+        for (long offset : values(customers, Long.MIN_VALUE, Long.MAX_VALUE)) result.add((Customer) load(offset));
+        return result;
+    }
+
+    @Override
+    public synchronized List<Accommodation> allAccommodations() throws IOException {
+        ArrayList<Accommodation> result = new ArrayList<>();
+        for (long offset : values(accommodations, Long.MIN_VALUE, Long.MAX_VALUE)) result.add((Accommodation) load(offset));
+        return result;
+    }
+
+    @Override
+    public synchronized List<Accommodation> findAccommodationsByType(String type) throws IOException {
+        ArrayList<Accommodation> result = new ArrayList<>();
+        for (int id : idsInRange(accommodationType, hash(typeKey(type)))) {
+            Accommodation a = findAccommodation(id);
+            if (a != null && typeKey(a.getType()).equals(typeKey(type))) result.add(a);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<TravelPackage> findPackagesByCustomer(int customerID) throws IOException {
+        ArrayList<TravelPackage> result = new ArrayList<>();
+        for (int id : idsInRange(packageCustomer, customerID)) result.add(findPackage(id));
+        return result;
+    }
+
+    @Override
+    public synchronized List<TravelPackage> findPackagesDepartingFrom(LocalDate date) throws IOException {
+        ArrayList<TravelPackage> result = new ArrayList<>();
+        for (long id : values(packageDeparture, key(date.toEpochDay(), 0), Long.MAX_VALUE)) {
+            result.add(findPackage((int) id));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() throws IOException {
+        return customers.lastKey(MISSING) == MISSING && accommodations.lastKey(MISSING) == MISSING
+                && packages.lastKey(MISSING) == MISSING;
+    }
+
+    //highest stored ids, so new records don't reuse them
+    public synchronized void reserveIDs() throws IOException {
+        Customer.reserveID((int) customers.lastKey(0));
+        Accommodation.reserveID((int) accommodations.lastKey(0));
+        TravelPackage.reserveID((int) packages.lastKey(0));
+    }
+
+    public synchronized void flush() throws IOException {
+        records.force();
+        for (BTreeIndex index : indexes()) index.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        long live = liveBytes();
+        boolean compact = records.size() - live >= COMPACT_MIN_BYTES && live < records.size() / 2;
+        if (compact) writeCompacted();
+        records.close();
+        for (BTreeIndex index : indexes()) index.close();
+        if (compact) installCompaction(dir);
+    }
+
+    //bytes of records.dat the primary indexes still reach
+    private long liveBytes() throws IOException {
+        long live = 0;
+        for (BTreeIndex index : new BTreeIndex[]{customers, accommodations, packages}) {
+            for (long offset : values(index, Long.MIN_VALUE, Long.MAX_VALUE)) live += 4 + records.length(offset);
+        }
+        return live;
+    }
+
+    //copies every reachable record into a fresh records file with primary indexes to match, then commits them
+    private void writeCompacted() throws IOException {
+        File compactedRecords = new File(dir, COMPACTED[0] + ".compact");
+        compactedRecords.delete();
+        try (RecordFile compacted = new RecordFile(compactedRecords)) {
+            BTreeIndex[] primary = {customers, accommodations, packages};
+            for (int i = 0; i < primary.length; i++) {
+                ArrayList<long[]> entries = new ArrayList<>();
+                primary[i].scan(Long.MIN_VALUE, Long.MAX_VALUE, (key, offset) -> entries.add(new long[]{key, offset}));
+                File file = new File(dir, COMPACTED[i + 1] + ".compact");
+                file.delete();
+                try (BTreeIndex copy = new BTreeIndex(file, CACHE_PAGES)) {
+                    for (long[] entry : entries) copy.put(entry[0], compacted.appendBytes(records.readBytes(entry[1])));
+                }
+            }
+            compacted.force();
+        }
+        try (FileOutputStream marker = new FileOutputStream(new File(dir, COMPACT_MARKER))) {
+            marker.getFD().sync();
+        }
+    }
+
+    //renames a committed compaction into place, which is safe to repeat after a crash part way through;
+    //without the marker the compaction never finished, so its files are dropped
+    private static void installCompaction(File dir) throws IOException {
+        File marker = new File(dir, COMPACT_MARKER);
+        for (String name : COMPACTED) {
+            File compacted = new File(dir, name + ".compact");
+            if (!compacted.exists()) continue;
+            if (!marker.exists()) {
+                compacted.delete();
+                continue;
+            }
+            File file = new File(dir, name);
+            if (!compacted.renameTo(file)) {
+                file.delete();
+                if (!compacted.renameTo(file)) {
+                    throw new IOException("Could not replace " + file.getName());
+                }
+            }
+        }
+        marker.delete();
+    }
+
+    private BTreeIndex[] indexes() {
+        return new BTreeIndex[]{customers, accommodations, packages, customerEmail, accommodationType, packageCustomer, packageDeparture};
+    }
+
+    private Object load(long offset) throws IOException {
+        if (offset == MISSING) return null;
+        try {
+            return records.read(offset);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable record at " + offset, e);
+        }
+    }
+
+    private static List<Integer> idsInRange(BTreeIndex index, long high) throws IOException {
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (long id : values(index, key(high, 0), key(high, 0xFFFFFFFFL))) ids.add((int) id);
+        return ids;
+    }
+
+    private static List<Long> values(BTreeIndex index, long from, long to) throws IOException {
+        ArrayList<Long> values = new ArrayList<>();
+        index.scan(from, to, (key, value) -> values.add(value));
+        return values;
+    }
+
+    //high 32 bits hold the indexed field, low 32 bits the record id
+    private static long key(long high, long id) {
+        return (high << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static int hash(String s) {
+        return s.hashCode();
+    }
+
+    private static String typeKey(String type) {
+        return type == null ? "" : type.toLowerCase(Locale.ROOT);
+    }
+}
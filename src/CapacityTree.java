@@ -0,0 +1,49 @@
+//max segment tree over slot capacities: point updates and "first slot in a range with room" in O(log n)
+public class CapacityTree {
+    private final int slots;
+    private final int leaves;
+    private final int[] max;
+
+    public CapacityTree(int slots) {
+        this.slots = slots;
+        this.leaves = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.max = new int[2 * leaves];
+    }
+
+    public int size() {
+        return slots;
+    }
+
+    public int get(int slot) {
+        return max[leaves + slot];
+    }
+
+    public void add(int slot, int delta) {
+        int node = leaves + slot;
+        max[node] += delta;
+        for (node >>= 1; node > 0; node >>= 1) {
+            max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+        }
+    }
+
+    //adds delta to every slot, used when an instructor joins or leaves
+    public void addAll(int delta) {
+        for (int slot = 0; slot < slots; slot++) max[leaves + slot] += delta;
+        for (int node = leaves - 1; node > 0; node--) {
+            max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+        }
+    }
+
+    //first slot in from..to (exclusive) with capacity left, or -1
+    public int firstWithRoom(int from, int to) {
+        return find(1, 0, leaves, Math.max(0, from), Math.min(slots, to));
+    }
+
+    private int find(int node, int lo, int hi, int from, int to) {
+        if (hi <= from || lo >= to || max[node] <= 0) return -1;
+        if (hi - lo == 1) return lo;
+        int mid = (lo + hi) >>> 1;
+        int left = find(2 * node, lo, mid, from, to);
+        return left >= 0 ? left : find(2 * node + 1, mid, hi, from, to);
+    }
+}
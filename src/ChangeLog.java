@@ -0,0 +1,46 @@
+import java.util.LinkedHashSet;
+import java.util.TreeSet;
+
+//collects records touched by mutators, repeated changes to one record collapse into one entry
+public class ChangeLog {
+    private LinkedHashSet<Customer> customers = new LinkedHashSet<>();
+    private LinkedHashSet<Accommodation> accommodations = new LinkedHashSet<>();
+    private LinkedHashSet<TravelPackage> packages = new LinkedHashSet<>();
+    private TreeSet<Integer> cancelledPackages = new TreeSet<>();
+
+    public synchronized void mark(Customer customer) {
+        customers.add(customer);
+    }
+
+    public synchronized void mark(Accommodation accommodation) {
+        accommodations.add(accommodation);
+    }
+
+    public synchronized void mark(TravelPackage pkg) {
+        packages.add(pkg);
+    }
+
+    //a cancelled package is deleted rather than saved
+    public synchronized void markCancelled(TravelPackage pkg) {
+        packages.remove(pkg);
+        cancelledPackages.add(pkg.getID());
+    }
+
+    public synchronized void markCancelled(int packageID) {
+        cancelledPackages.add(packageID);
+    }
+
+    public synchronized boolean isEmpty() {
+        return customers.isEmpty() && accommodations.isEmpty() && packages.isEmpty() && cancelledPackages.isEmpty();
+    }
+
+    //returns everything marked so far and starts a new batch
+    public synchronized ChangeSet drain() {
+        ChangeSet changes = new ChangeSet(customers, accommodations, packages, cancelledPackages);
+        customers = new LinkedHashSet<>();
+        accommodations = new LinkedHashSet<>();
+        packages = new LinkedHashSet<>();
+        cancelledPackages = new TreeSet<>();
+        return changes;
+    }
+}
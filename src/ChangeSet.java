@@ -0,0 +1,58 @@
+import java.io.ObjectInputFilter;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//records changed since the last flush, written out as one unit
+public class ChangeSet implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    //the classes a serialized change set is made of, for reading one from a source that isn't trusted
+    static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter("maxdepth=32;"
+            + "ChangeSet;Customer;Accommodation;TravelPackage;LiftPass;Lessons;SkillLevel;LiftPassType;"
+            + "java.time.*;java.util.*;java.lang.Object;java.lang.Number;java.lang.Integer;java.lang.Long;"
+            + "java.lang.String;java.lang.Enum;!*");
+    private final ArrayList<Customer> customers;
+    private final ArrayList<Accommodation> accommodations;
+    private final ArrayList<TravelPackage> packages;
+    //ids of packages to delete, null in journals written before cancellation existed
+    private final ArrayList<Integer> cancelledPackages;
+
+    public ChangeSet(Collection<Customer> customers, Collection<Accommodation> accommodations, Collection<TravelPackage> packages) {
+        this(customers, accommodations, packages, List.of());
+    }
+
+    public ChangeSet(Collection<Customer> customers, Collection<Accommodation> accommodations, Collection<TravelPackage> packages,
+                     Collection<Integer> cancelledPackages) {
+        this.customers = new ArrayList<>(customers);
+        this.accommodations = new ArrayList<>(accommodations);
+        this.packages = new ArrayList<>(packages);
+        this.cancelledPackages = new ArrayList<>(cancelledPackages);
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<Accommodation> getAccommodations() {
+        return accommodations;
+    }
+
+    public List<TravelPackage> getPackages() {
+        return packages;
+    }
+
+    public List<Integer> getCancelledPackages() {
+        return cancelledPackages == null ? List.of() : cancelledPackages;
+    }
+
+    public boolean isEmpty() {
+        return customers.isEmpty() && accommodations.isEmpty() && packages.isEmpty() && getCancelledPackages().isEmpty();
+    }
+
+    public int size() {
+        return customers.size() + accommodations.size() + packages.size() + getCancelledPackages().size();
+    }
+}
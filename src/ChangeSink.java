@@ -0,0 +1,13 @@
+import java.io.IOException;
+
+//destination for flushed change sets
+public interface ChangeSink {
+    void write(ChangeSet changes) throws IOException;
+
+    //writes each change set to every sink in order
+    static ChangeSink of(ChangeSink... sinks) {
+        return changes -> {
+            for (ChangeSink sink : sinks) sink.write(changes);
+        };
+    }
+}
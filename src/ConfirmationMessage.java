@@ -0,0 +1,142 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+//a booking confirmation waiting in the outbox: the package as it was when the event happened,
+//so the worker can render it later without touching the resort
+public class ConfirmationMessage {
+    public enum Kind {
+        BOOKED("Your booking is confirmed"),
+        CHANGED("Your booking has changed"),
+        CANCELLED("Your booking is cancelled");
+
+        private final String subject;
+
+        Kind(String subject) {
+            this.subject = subject;
+        }
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final long queuedAt; //epoch millis
+    private final String resort;
+    private final int packageID;
+    private final String name;
+    private final String email;
+    private final LocalDate date;
+    private final int days;
+    private final String unit;
+    private final String extras;
+    private final double totalCost;
+
+    private ConfirmationMessage(long sequence, Kind kind, long queuedAt, String resort, int packageID, String name,
+                                String email, LocalDate date, int days, String unit, String extras, double totalCost) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.queuedAt = queuedAt;
+        this.resort = resort;
+        this.packageID = packageID;
+        this.name = name;
+        this.email = email;
+        this.date = date;
+        this.days = days;
+        this.unit = unit;
+        this.extras = extras;
+        this.totalCost = totalCost;
+    }
+
+    static ConfirmationMessage of(long sequence, Kind kind, String resort, TravelPackage pkg) {
+        Customer c = pkg.getCustomer();
+        Accommodation a = pkg.getAccommodation();
+        String extras = "";
+        if (pkg.getHasLiftPass()) extras += pkg.getLiftPass() + "\n";
+        if (pkg.getHasLessons()) extras += pkg.getLessons() + "\n";
+        return new ConfirmationMessage(sequence, kind, System.currentTimeMillis(), resort, pkg.getID(), c.getName(),
+                c.getEmail(), pkg.getDate(), pkg.getDays(), a == null ? "none" : a.getType() + " (unit " + a.getID() + ")",
+                extras, pkg.getTotalCost());
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
+    public int getPackageID() {
+        return packageID;
+    }
+
+    public String getRecipient() {
+        return email;
+    }
+
+    //unique per resort, so a receiver can drop a batch that was delivered twice
+    public String getMessageID() {
+        return sequence + "." + packageID + "@" + MtBullerAdmin.slug(resort);
+    }
+
+    public String getSubject() {
+        return kind.subject + " - " + resort + " package " + packageID;
+    }
+
+    public String render() {
+        String text = "Hi " + name + ",\n\n";
+        text += switch (kind) {
+            case BOOKED -> "Thanks for booking with " + resort + ". Your package is below.\n\n";
+            case CHANGED -> "Your " + resort + " package has been updated and now reads as below.\n\n";
+            case CANCELLED -> "Your " + resort + " package below has been cancelled.\n\n";
+        };
+        text += "Package: " + packageID + "\n";
+        text += "Arriving: " + date + " for " + days + (days == 1 ? " night" : " nights") + "\n";
+        text += "Accommodation: " + unit + "\n";
+        text += extras;
+        text += String.format("Total: $%.2f%n", totalCost);
+        return text + "\nSee you on the mountain!\n";
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte(kind.ordinal());
+        out.writeLong(queuedAt);
+        out.writeUTF(resort);
+        out.writeInt(packageID);
+        out.writeUTF(name == null ? "" : name);
+        out.writeUTF(email == null ? "" : email);
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+        out.writeInt(days);
+        out.writeUTF(unit);
+        out.writeUTF(extras);
+        out.writeDouble(totalCost);
+    }
+
+    static ConfirmationMessage readFrom(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        Kind kind = Kind.values()[in.readByte()];
+        long queuedAt = in.readLong();
+        String resort = in.readUTF();
+        int packageID = in.readInt();
+        String name = in.readUTF();
+        String email = in.readUTF();
+        long day = in.readLong();
+        int days = in.readInt();
+        String unit = in.readUTF();
+        String extras = in.readUTF();
+        double totalCost = in.readDouble();
+        return new ConfirmationMessage(sequence, kind, queuedAt, resort, packageID, name, email,
+                day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day), days, unit, extras, totalCost);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + kind.name().toLowerCase(Locale.ROOT) + " package " + packageID + " to " + email;
+    }
+}
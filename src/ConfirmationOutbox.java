@@ -0,0 +1,267 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+//durable queue of booking confirmations, sent in batches by a background worker through a transport
+//enqueue only appends a frame to the outbox file and wakes the worker, so a booking never waits on delivery
+//the worker syncs the file, sends up to BATCH_SIZE messages, then appends a delivered mark; messages without a mark
+//are sent again on the next start, and a failed batch is retried after a backoff that doubles up to a minute
+//frame: [length][kind][message or last delivered sequence]
+//the file always keeps the last delivered sequence, so sequences and message ids carry on after a restart; once
+//everything is delivered and the file has grown past COMPACT_BYTES it is rewritten down to that one mark
+public class ConfirmationOutbox implements AutoCloseable {
+    static final int BATCH_SIZE = 50;
+    static final long COMPACT_BYTES = 64 * 1024;
+    //how long the worker lets a batch fill before sending it
+    static final long LINGER_MILLIS = 100;
+    static final long FIRST_BACKOFF_MILLIS = 500;
+    static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final byte MESSAGE = 1;
+    private static final byte DELIVERED = 2;
+
+    private final File file;
+    private final String resort;
+    private final ConfirmationTransport transport;
+    private final Thread worker;
+    private FileChannel channel;
+    private long end;
+    //guarded by this
+    private final ArrayDeque<ConfirmationMessage> pending = new ArrayDeque<>();
+    private long nextSequence = 1;
+    private long deliveredUpTo = 0;
+    private boolean closed = false;
+
+    //metrics, guarded by this
+    private long queued = 0;
+    private long delivered = 0;
+    private long batches = 0;
+    private long failedAttempts = 0;
+    private long appendFailures = 0;
+    private long sendNanos = 0;
+    private long latencyMillis = 0; //summed from queueing to delivery
+    private long backoffMillis = 0;
+    private String lastError;
+
+    //opens the outbox, keeping anything not yet delivered, and starts the worker
+    public ConfirmationOutbox(File file, String resort, ConfirmationTransport transport) throws IOException {
+        this.file = file;
+        this.resort = resort;
+        this.transport = transport;
+        recover();
+        this.worker = new Thread(this::run, "confirmations");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    //reads every complete frame, then rewrites the file with the delivered mark and only the undelivered messages
+    private void recover() throws IOException {
+        ArrayList<ConfirmationMessage> messages = new ArrayList<>();
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte[] frame;
+                    try {
+                        frame = new byte[in.readInt()];
+                        in.readFully(frame);
+                    } catch (EOFException e) {
+                        break; //a frame cut short by a crash ends the outbox
+                    }
+                    DataInputStream f = new DataInputStream(new ByteArrayInputStream(frame));
+                    byte kind = f.readByte();
+                    if (kind == MESSAGE) {
+                        messages.add(ConfirmationMessage.readFrom(f));
+                    } else if (kind == DELIVERED) {
+                        deliveredUpTo = Math.max(deliveredUpTo, f.readLong());
+                    } else {
+                        throw new IOException(file.getName() + " is not a confirmation outbox.");
+                    }
+                }
+            }
+        }
+        nextSequence = deliveredUpTo + 1;
+        for (ConfirmationMessage m : messages) {
+            nextSequence = Math.max(nextSequence, m.getSequence() + 1);
+            if (m.getSequence() > deliveredUpTo) pending.add(m);
+        }
+        queued = pending.size();
+        rewrite();
+    }
+
+    //replaces the file with the delivered mark and the pending messages, through a temporary file moved into place
+    //atomically, so a crash leaves either the old file or the new one
+    private void rewrite() throws IOException {
+        if (channel != null) channel.close();
+        File temp = new File(file.getPath() + ".tmp");
+        temp.delete();
+        channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = 0;
+        if (deliveredUpTo > 0) append(DELIVERED, null, deliveredUpTo);
+        for (ConfirmationMessage m : pending) append(MESSAGE, m, 0);
+        channel.force(false);
+        channel.close();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = channel.size();
+    }
+
+    private void append(byte kind, ConfirmationMessage message, long sequence) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(kind);
+        if (message != null) message.writeTo(out);
+        else out.writeLong(sequence);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.size());
+        buffer.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        while (buffer.hasRemaining()) {
+            end += channel.write(buffer, end);
+        }
+    }
+
+    //queues a confirmation for the package as it is now; called on the booking path, so it never blocks on delivery
+    //if the outbox file can't be written the message is still sent from memory, but won't survive a restart
+    public synchronized void enqueue(ConfirmationMessage.Kind kind, TravelPackage pkg) {
+        if (closed) {
+            throw new IllegalStateException("The confirmation outbox is closed.");
+        }
+        ConfirmationMessage message = ConfirmationMessage.of(nextSequence++, kind, resort, pkg);
+        try {
+            append(MESSAGE, message, 0);
+        } catch (IOException e) {
+            appendFailures++;
+            lastError = "could not save confirmation " + message.getMessageID() + ": " + e.getMessage();
+        }
+        pending.add(message);
+        queued++;
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            List<ConfirmationMessage> batch;
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !closed) wait();
+                    if (pending.isEmpty()) return;
+                    if (pending.size() < BATCH_SIZE && !closed) wait(LINGER_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(BATCH_SIZE, pending.size()));
+                for (ConfirmationMessage m : pending) {
+                    if (batch.size() == BATCH_SIZE) break;
+                    batch.add(m);
+                }
+            }
+
+            long start = System.nanoTime();
+            try {
+                //everything queued so far becomes durable here, once per batch instead of once per booking
+                channel.force(false);
+                transport.send(batch);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    failedAttempts++;
+                    lastError = e.getMessage() == null ? e.toString() : e.getMessage();
+                    backoffMillis = backoffMillis == 0 ? FIRST_BACKOFF_MILLIS : Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+                    //closing doesn't wait out a backoff, the batch stays in the file for the next start
+                    if (closed) return;
+                    try {
+                        wait(backoffMillis);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            delivered(batch, System.nanoTime() - start);
+        }
+    }
+
+    private synchronized void delivered(List<ConfirmationMessage> batch, long nanos) {
+        long now = System.currentTimeMillis();
+        for (ConfirmationMessage m : batch) {
+            pending.removeFirst();
+            latencyMillis += Math.max(0, now - m.getQueuedAt());
+        }
+        delivered += batch.size();
+        batches++;
+        sendNanos += nanos;
+        backoffMillis = 0;
+        deliveredUpTo = batch.getLast().getSequence();
+        try {
+            if (pending.isEmpty() && end >= COMPACT_BYTES) {
+                //nothing left to resend, so the file shrinks back to the delivered mark instead of growing
+                rewrite();
+            } else {
+                append(DELIVERED, null, deliveredUpTo);
+            }
+        } catch (IOException e) {
+            //without the mark these go out again after a restart
+            lastError = e.getMessage();
+        }
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    public synchronized long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public synchronized String describe() {
+        String text = queued + " queued, " + pending.size() + " waiting, " + delivered + " delivered in " + batches + " batches";
+        if (batches > 0) {
+            text += String.format(", %.1f per batch, %.0f/s while sending, %d ms from booking to delivery on average",
+                    delivered / (double) batches, delivered / Math.max(sendNanos / 1e9, 1e-9), latencyMillis / delivered);
+        }
+        if (failedAttempts > 0) text += ", " + failedAttempts + " failed attempts";
+        if (backoffMillis > 0) text += ", next retry within " + backoffMillis + " ms";
+        if (appendFailures > 0) text += ", " + appendFailures + " not saved to the outbox";
+        if (lastError != null) text += ", last error: " + lastError;
+        return text;
+    }
+
+    //sends what is waiting if the transport is working, for up to timeoutMillis; anything left stays in the file
+    public void close(long timeoutMillis) {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker.interrupt();
+        synchronized (this) {
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                lastError = "could not close " + file.getName() + ": " + e.getMessage();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        close(5000);
+    }
+}
@@ -0,0 +1,35 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+//delivers confirmations for the outbox; a batch either goes or throws, and is then sent again whole,
+//so a receiver may see a message twice and can tell by its message id
+public interface ConfirmationTransport {
+    void send(List<ConfirmationMessage> batch) throws IOException;
+
+    //appends each batch to a local mailbox file in mbox format, standing in for a mail server
+    static ConfirmationTransport toMailbox(File mailbox) {
+        return batch -> {
+            synchronized (ConfirmationTransport.class) {
+                try (FileOutputStream fos = new FileOutputStream(mailbox, true);
+                     Writer out = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
+                    for (ConfirmationMessage m : batch) {
+                        out.write("From confirmations@mtbuller " + Instant.ofEpochMilli(m.getQueuedAt()) + "\n");
+                        out.write("Message-ID: <" + m.getMessageID() + ">\n");
+                        out.write("To: " + m.getRecipient() + "\n");
+                        out.write("Subject: " + m.getSubject() + "\n\n");
+                        //mbox escapes body lines that look like the start of a message
+                        out.write(m.render().replaceAll("(?m)^From ", ">From ") + "\n");
+                    }
+                    out.flush();
+                    fos.getFD().sync();
+                }
+            }
+        };
+    }
+}
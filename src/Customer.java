@@ -1,25 +1,57 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 
 public class Customer implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    //skill level is serialized as the original String so older save files still load
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("custID", int.class),
+            new ObjectStreamField("hasPackage", boolean.class),
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("email", String.class),
+            new ObjectStreamField("skillLevel", String.class)
+    };
     private static int nextID = 1;
-    private final int custID = nextID++;
+    private int custID = nextID++;
     private boolean hasPackage = false;
     private String name;
     private String email;
-    private String skillLevel;
+    private SkillLevel skillLevel;
+    private transient ChangeLog changes;
 
     public Customer() {
     }
 
     public Customer(String name, String email, String skillLevel) {
+        this(name, email, SkillLevel.parse(skillLevel));
+    }
+
+    public Customer(String name, String email, SkillLevel skillLevel) {
         this.name = name;
         this.email = email;
         this.skillLevel = skillLevel;
     }
 
+    //keeps new IDs clear of one that was loaded from a file
+    static void reserveID(int id) {
+        if (id >= nextID) nextID = id + 1;
+    }
+
+    void track(ChangeLog changes) {
+        this.changes = changes;
+        markChanged();
+    }
+
+    private void markChanged() {
+        if (changes != null) changes.mark(this);
+    }
+
     public int getID() {
         return custID;
     }
@@ -30,39 +62,80 @@ public class Customer implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        markChanged();
     }
 
     public String getEmail() {
         return email;
     }
 
-    public void setEmail(String email) {
+    //the resort indexes customers by email, so changes go through MtBullerResort.changeEmail
+    void setEmail(String email) {
         this.email = email;
+        markChanged();
     }
 
     public String getSkillLevel() {
+        return skillLevel == null ? null : skillLevel.label();
+    }
+
+    public SkillLevel getSkill() {
         return skillLevel;
     }
 
     public void setSkillLevel(String skillLevel) {
+        setSkill(SkillLevel.parse(skillLevel));
+    }
+
+    public void setSkill(SkillLevel skillLevel) {
         this.skillLevel = skillLevel;
+        markChanged();
     }
 
     public void setHasPackage() {
         this.hasPackage = true;
+        markChanged();
+    }
+
+    //called when the customer's package is cancelled
+    public void clearPackage() {
+        this.hasPackage = false;
+        markChanged();
     }
 
     public boolean inPackage() {
         return hasPackage;
     }
 
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("custID", custID);
+        fields.put("hasPackage", hasPackage);
+        fields.put("name", name);
+        fields.put("email", email);
+        fields.put("skillLevel", getSkillLevel());
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        custID = fields.get("custID", 0);
+        hasPackage = fields.get("hasPackage", false);
+        name = (String) fields.get("name", null);
+        email = (String) fields.get("email", null);
+        String level = (String) fields.get("skillLevel", null);
+        skillLevel = level == null ? null : SkillLevel.parse(level);
+    }
+
     @Override
     public String toString() {
         return String.format(
                 "{ id: %d, name: \"%s\", email: \"%s\", skillLevel: \"%s\" }",
-                custID, name, email, skillLevel
+                custID, name, email, getSkillLevel()
         );
     }
 
 
-}
\ No newline at end of file
+}
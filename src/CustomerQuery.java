@@ -0,0 +1,41 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+//conditions on a resort's loaded customers; an email goes through the email index, anything else scans by name
+public class CustomerQuery {
+    private String email;
+    private SkillLevel skill;
+    private Boolean inPackage;
+
+    public CustomerQuery email(String email) {
+        this.email = email;
+        return this;
+    }
+
+    public CustomerQuery skill(SkillLevel skill) {
+        this.skill = skill;
+        return this;
+    }
+
+    public CustomerQuery inPackage(boolean inPackage) {
+        this.inPackage = inPackage;
+        return this;
+    }
+
+    public QueryResult<Customer> run(MtBullerResort resort) {
+        List<Predicate<Customer>> checks = new ArrayList<>();
+        if (inPackage != null) checks.add(c -> c.inPackage() == inPackage);
+        if (skill != null) checks.add(c -> c.getSkill() == skill);
+        Predicate<Customer> residual = checks.isEmpty() ? c -> true : checks.stream().reduce(Predicate::and).get();
+
+        if (email != null) {
+            Customer c = resort.searchCustomerByEmail(email);
+            Iterator<Customer> match = c == null ? Collections.emptyIterator() : List.of(c).iterator();
+            return new QueryResult<>("email index", match, residual);
+        }
+        return new QueryResult<>("customer scan", new QueryResult.KeyScan<>(resort.customersByName), residual);
+    }
+}
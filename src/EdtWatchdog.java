@@ -0,0 +1,278 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.AbstractButton;
+import javax.swing.JComboBox;
+
+//times every event the Swing event dispatch thread handles and keeps the ones slower than a threshold
+//a sampler thread takes the EDT's stack while a dispatch runs long, so a slow button is attributed to the method it
+//was in, e.g. "Create Package" -> ResortGUI.createPackage; samples export as collapsed stacks for a flame graph
+//time a handler spends waiting in a modal dialog is the operator's, not the handler's, so it is left out
+//stats and slow dispatches are only touched on the EDT; the sampler only adds to the dispatch that is running
+public class EdtWatchdog extends EventQueue {
+    static final long DEFAULT_THRESHOLD_MILLIS = 100;
+    static final long SAMPLE_MILLIS = 10;
+    static final int MAX_SAMPLES = 200; //per dispatch
+    static final int KEEP_SLOW = 100;
+    //upper bounds of the latency buckets, in milliseconds
+    private static final long[] BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+
+    private final long thresholdNanos;
+    private final ScheduledExecutorService sampler;
+    private volatile Thread edt;
+    private volatile Dispatch current;
+    private final HashMap<String, HandlerStats> handlers = new HashMap<>();
+    private final ArrayDeque<Dispatch> slow = new ArrayDeque<>();
+    private long dispatches = 0;
+    private long slowCount = 0;
+    private long since = System.currentTimeMillis();
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "edt-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleAtFixedRate(this::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    //replaces the system event queue, so every later event goes through the watchdog
+    public static EdtWatchdog install(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("The slow dispatch threshold must be positive.");
+        }
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        return watchdog;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        //a modal dialog opened by a handler dispatches events inside it
+        Dispatch outer = current;
+        Dispatch d = new Dispatch(handlerName(event), System.nanoTime());
+        if (outer != null && outer.modalStart == 0) outer.modalStart = d.start;
+        edt = Thread.currentThread();
+        current = d;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            d.nanos = end - d.start - (d.modalStart == 0 ? 0 : d.modalEnd - d.modalStart);
+            current = outer;
+            if (outer != null) outer.modalEnd = end;
+            record(d);
+        }
+    }
+
+    //a button's listeners run inside the mouse or key release that clicks it, so that dispatch takes the button's
+    //text; posted actions take their source's, anything else its event type
+    private static String handlerName(AWTEvent event) {
+        if ((event.getID() == MouseEvent.MOUSE_RELEASED || event.getID() == KeyEvent.KEY_RELEASED)
+                && event.getSource() instanceof AbstractButton button && !button.getText().isEmpty()) {
+            return "\"" + button.getText() + "\"";
+        }
+        if (event instanceof ActionEvent action) {
+            if (action.getSource() instanceof AbstractButton button && !button.getText().isEmpty()) {
+                return "\"" + button.getText() + "\"";
+            }
+            if (action.getSource() instanceof JComboBox<?>) return "combo selection";
+            return "action " + action.getActionCommand();
+        }
+        return event.getClass().getSimpleName();
+    }
+
+    private void sample() {
+        Dispatch d = current;
+        Thread thread = edt;
+        //a dispatch waiting in a modal dialog isn't doing the work its stack would show
+        if (d == null || thread == null || d.modalStart != 0 || System.nanoTime() - d.start < thresholdNanos / 2) return;
+        StackTraceElement[] stack = thread.getStackTrace();
+        //the dispatch may have finished while the stack was taken
+        if (current == d) d.addSample(stack);
+    }
+
+    private void record(Dispatch d) {
+        dispatches++;
+        boolean isSlow = d.nanos >= thresholdNanos;
+        if (isSlow) {
+            d.finishedAt = System.currentTimeMillis();
+            d.method = appMethod(d.samples());
+            slowCount++;
+            slow.addLast(d);
+            if (slow.size() > KEEP_SLOW) slow.removeFirst();
+        }
+        handlers.computeIfAbsent(d.handler, HandlerStats::new).add(d, isSlow);
+    }
+
+    //the outermost call into this application in the samples, skipping lambdas for the method they call,
+    //which for a button is the handler method behind it
+    static String appMethod(List<StackTraceElement[]> samples) {
+        HashMap<String, Integer> counts = new HashMap<>();
+        for (StackTraceElement[] stack : samples) {
+            String found = null;
+            for (int i = stack.length - 1; i >= 0; i--) {
+                if (!isApp(stack[i]) || stack[i].getClassName().equals(EdtWatchdog.class.getName())) continue;
+                found = stack[i].getClassName() + "." + stack[i].getMethodName();
+                if (!stack[i].getMethodName().startsWith("lambda$")) break;
+            }
+            if (found != null) counts.merge(found, 1, Integer::sum);
+        }
+        return counts.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+    }
+
+    //classes of this application are in the default package
+    private static boolean isApp(StackTraceElement frame) {
+        return frame.getClassName().indexOf('.') < 0;
+    }
+
+    public void clear() {
+        handlers.clear();
+        slow.clear();
+        dispatches = 0;
+        slowCount = 0;
+        since = System.currentTimeMillis();
+    }
+
+    //per handler latency and the most recent slow dispatches with where they spent their time
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d dispatches, %d slower than %d ms, since %s%n%n", dispatches, slowCount,
+                getThresholdMillis(), Instant.ofEpochMilli(since)));
+        out.append(String.format("%-28s %8s %6s %9s %9s %9s  %s%n", "handler", "count", "slow", "avg ms", "p95 ms", "max ms", "method"));
+        ArrayList<HandlerStats> rows = new ArrayList<>(handlers.values());
+        rows.sort((a, b) -> Long.compare(b.maxNanos, a.maxNanos));
+        for (HandlerStats s : rows) {
+            out.append(String.format("%-28s %8d %6d %9.1f %9s %9.1f  %s%n", s.handler, s.count, s.slow,
+                    s.totalNanos / 1e6 / s.count, s.p95(), s.maxNanos / 1e6, s.method == null ? "" : s.method));
+        }
+        out.append("\nRecent slow dispatches, newest first:\n");
+        if (slow.isEmpty()) out.append("none\n");
+        for (var it = slow.descendingIterator(); it.hasNext(); ) {
+            Dispatch d = it.next();
+            out.append(String.format("%s  %-28s %8.1f ms  %s%n", Instant.ofEpochMilli(d.finishedAt), d.handler,
+                    d.nanos / 1e6, d.method == null ? "(finished before it could be sampled)" : d.method));
+            for (Map.Entry<String, Integer> hot : d.hotFrames(3)) {
+                out.append(String.format("      %3d%% in %s%n", 100 * hot.getValue() / d.samples().size(), hot.getKey()));
+            }
+        }
+        return out.toString();
+    }
+
+    //the report, then every slow dispatch's samples as collapsed stacks: frames root first, then the sample count
+    public void export(Writer out) throws IOException {
+        out.write(report());
+        out.write("\nCollapsed stacks, one line per distinct stack in a slow dispatch:\n");
+        for (Dispatch d : slow) {
+            HashMap<String, Integer> stacks = new HashMap<>();
+            for (StackTraceElement[] stack : d.samples()) {
+                StringBuilder line = new StringBuilder(d.handler.replace(' ', '_').replace(';', ','));
+                for (int i = stack.length - 1; i >= 0; i--) {
+                    line.append(';').append(stack[i].getClassName()).append('.').append(stack[i].getMethodName());
+                }
+                stacks.merge(line.toString(), 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> e : stacks.entrySet()) out.write(e.getKey() + " " + e.getValue() + "\n");
+        }
+        out.flush();
+    }
+
+    private static final class Dispatch {
+        final String handler;
+        final long start;
+        long nanos;
+        volatile long modalStart = 0;
+        long modalEnd = 0;
+        long finishedAt;
+        String method;
+        private final List<StackTraceElement[]> samples = Collections.synchronizedList(new ArrayList<>());
+
+        Dispatch(String handler, long start) {
+            this.handler = handler;
+            this.start = start;
+        }
+
+        void addSample(StackTraceElement[] stack) {
+            if (samples.size() < MAX_SAMPLES) samples.add(stack);
+        }
+
+        List<StackTraceElement[]> samples() {
+            synchronized (samples) {
+                return new ArrayList<>(samples);
+            }
+        }
+
+        //the innermost application frames the samples were in, most frequent first
+        List<Map.Entry<String, Integer>> hotFrames(int limit) {
+            HashMap<String, Integer> counts = new HashMap<>();
+            for (StackTraceElement[] stack : samples()) {
+                for (StackTraceElement frame : stack) {
+                    if (isApp(frame) && !frame.getClassName().equals(EdtWatchdog.class.getName())) {
+                        counts.merge(frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber(), 1, Integer::sum);
+                        break;
+                    }
+                }
+            }
+            ArrayList<Map.Entry<String, Integer>> hot = new ArrayList<>(counts.entrySet());
+            hot.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            return hot.subList(0, Math.min(limit, hot.size()));
+        }
+    }
+
+    private static final class HandlerStats {
+        final String handler;
+        long count = 0;
+        long slow = 0;
+        long totalNanos = 0;
+        long maxNanos = 0;
+        String method;
+        final long[] buckets = new long[BUCKETS.length];
+
+        HandlerStats(String handler) {
+            this.handler = handler;
+        }
+
+        void add(Dispatch d, boolean isSlow) {
+            count++;
+            totalNanos += d.nanos;
+            maxNanos = Math.max(maxNanos, d.nanos);
+            if (isSlow) slow++;
+            if (d.method != null) method = d.method;
+            long millis = TimeUnit.NANOSECONDS.toMillis(d.nanos);
+            int b = 0;
+            while (millis >= BUCKETS[b]) b++;
+            buckets[b]++;
+        }
+
+        //upper bound of the bucket holding the 95th percentile
+        String p95() {
+            long rank = (long) Math.ceil(count * 0.95);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) return BUCKETS[b] == Long.MAX_VALUE ? ">5000" : "<" + BUCKETS[b];
+            }
+            return "";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+//measures retained heap per package: builds N packages with their customers and extras and compares
+//used heap after a forced GC, run with e.g. java -Xmx2g FootprintBenchmark 1000000
+//with offheap as a second argument the packages are archived to an OffHeapPackageStore as they are built instead,
+//e.g. java -Xmx256m -XX:MaxDirectMemorySize=1g FootprintBenchmark 5000000 offheap; a third argument maps that file
+public class FootprintBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        if (args.length > 1 && args[1].equalsIgnoreCase("offheap")) {
+            offHeap(count, args.length > 2 ? new File(args[2]) : null);
+            return;
+        }
+        int units = Math.max(1, count / 10);
+        String[] types = {"hotel", "apartment", "lodge", "cabin"};
+        SkillLevel[] levels = SkillLevel.values();
+        LocalDate start = LocalDate.of(2025, 6, 1);
+
+        long baseline = usedHeap();
+
+        AccommodationStore store = new AccommodationStore(units);
+        for (int i = 0; i < units; i++) {
+            store.add(types[i % types.length], 140 + (i % 20) * 10);
+        }
+        long afterUnits = usedHeap();
+
+        long gcBefore = gcMillis();
+        ArrayList<TravelPackage> packages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Customer c = new Customer("Guest" + i, "guest" + i + "@example.com", levels[i % levels.length]);
+            TravelPackage pkg = new TravelPackage(c, start.plusDays(i % 120), 1 + i % 7);
+            pkg.setAccommodation(store.view(i % units));
+            if (i % 2 == 0) pkg.setLiftPass(new LiftPass(i % 4 == 0 ? LiftPassType.SEASON : LiftPassType.DAILY, 1 + i % 7));
+            if (i % 3 == 0) pkg.setLessons(new Lessons(c.getSkill(), 1 + i % 5));
+            packages.add(pkg);
+        }
+        long gcTime = gcMillis() - gcBefore;
+        long afterPackages = usedHeap();
+
+        System.out.printf("units: %d, %.1f bytes/unit%n", units, (afterUnits - baseline) / (double) units);
+        System.out.printf("packages: %d, %.1f bytes/package (customer, pass and lessons included), gc time %d ms%n",
+                count, (afterPackages - afterUnits) / (double) count, gcTime);
+        System.out.println("kept " + packages.size() + " packages in " + store.size() + " units"); //keeps both reachable
+    }
+
+    //retained heap and GC time stay flat however many packages are archived
+    private static void offHeap(int count, File file) {
+        SkillLevel[] levels = SkillLevel.values();
+        LocalDate start = LocalDate.of(2025, 6, 1);
+        AccommodationStore store = new AccommodationStore(64);
+        for (int i = 0; i < 64; i++) store.add("hotel", 140 + i);
+
+        long baseline = usedHeap();
+        long gcBefore = gcMillis();
+        long began = System.nanoTime();
+        try (OffHeapPackageStore history = file == null ? new OffHeapPackageStore() : OffHeapPackageStore.map(file)) {
+            long before = history.size();
+            Customer c = new Customer("Guest", "guest@example.com", SkillLevel.BEGINNER);
+            for (int i = 0; i < count; i++) {
+                TravelPackage pkg = new TravelPackage(c, start.plusDays(i % 120), 1 + i % 7);
+                pkg.setAccommodation(store.view(i % 64));
+                if (i % 2 == 0) pkg.setLiftPass(new LiftPass(i % 4 == 0 ? LiftPassType.SEASON : LiftPassType.DAILY, 1 + i % 7));
+                if (i % 3 == 0) pkg.setLessons(new Lessons(levels[i % levels.length], 1 + i % 5));
+                history.append(pkg);
+            }
+            long built = System.nanoTime();
+            long gcTime = gcMillis() - gcBefore;
+            long afterPackages = usedHeap();
+
+            double[] revenue = new double[1];
+            history.forEach(view -> revenue[0] += view.getTotalCost());
+            long scanned = System.nanoTime();
+
+            System.out.printf("archived %d packages off-heap (%d MB%s) in %d ms, gc time %d ms, heap retained %.1f bytes/package%n",
+                    history.size() - before, history.size() * OffHeapPackageStore.RECORD >> 20,
+                    history.isMapped() ? " mapped" : "", (built - began) / 1_000_000, gcTime, (afterPackages - baseline) / (double) count);
+            System.out.printf("scanned %d in %d ms, revenue $%.2f%n", history.size(), (scanned - built) / 1_000_000, revenue[0]);
+        } catch (IOException e) {
+            System.out.println("Could not archive: " + e.getMessage());
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionTime());
+        return total;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
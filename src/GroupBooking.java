@@ -0,0 +1,95 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//packages for a group travelling on the same dates, each member with their own unit requirement and extras
+//MtBullerResort.bookGroup books every member or none of them
+public class GroupBooking {
+    private final LocalDate date;
+    private final int days;
+    private final ArrayList<Member> members = new ArrayList<>();
+
+    public GroupBooking(LocalDate date, int days) {
+        if (date == null) {
+            throw new IllegalArgumentException("The group needs a travel date.");
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive.");
+        }
+        this.date = date;
+        this.days = days;
+    }
+
+    //takes the cheapest available unit of the type (null for any) at or under maxPrice
+    //passType is null for no lift pass, lessons is 0 for none
+    public void addMember(Customer customer, String type, double maxPrice, LiftPassType passType, int lessons) {
+        members.add(new Member(customer, null, type, maxPrice, passType, lessons));
+    }
+
+    //books a particular unit
+    public void addMember(Customer customer, Accommodation unit, LiftPassType passType, int lessons) {
+        members.add(new Member(customer, unit, null, Double.MAX_VALUE, passType, lessons));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public static class Member {
+        private final Customer customer;
+        private final Accommodation unit;
+        private final String type;
+        private final double maxPrice;
+        private final LiftPassType passType;
+        private final int lessons;
+
+        Member(Customer customer, Accommodation unit, String type, double maxPrice, LiftPassType passType, int lessons) {
+            if (lessons < 0) {
+                throw new IllegalArgumentException("Number of lessons can't be negative.");
+            }
+            this.customer = customer;
+            this.unit = unit;
+            this.type = type;
+            this.maxPrice = maxPrice;
+            this.passType = passType;
+            this.lessons = lessons;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        //null when any unit meeting the type and price will do
+        public Accommodation getUnit() {
+            return unit;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getMaxPrice() {
+            return maxPrice;
+        }
+
+        public LiftPassType getPassType() {
+            return passType;
+        }
+
+        public int getLessons() {
+            return lessons;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+//combo model kept sorted by record id, so one record can be added, replaced or removed
+//with a binary search and a single interval event instead of rebuilding the model
+public class IdComboModel<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final ArrayList<T> items = new ArrayList<>();
+    private final transient ToIntFunction<T> idOf;
+    private transient Object selected;
+
+    public IdComboModel(ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+    }
+
+    //replaces the contents, used when switching resorts or after loading a file
+    public void setAll(Collection<T> records) {
+        int old = items.size();
+        items.clear();
+        if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+        items.addAll(records);
+        items.sort((a, b) -> Integer.compare(idOf.applyAsInt(a), idOf.applyAsInt(b)));
+        if (!items.isEmpty()) fireIntervalAdded(this, 0, items.size() - 1);
+        setSelectedItem(items.isEmpty() ? null : items.getFirst());
+    }
+
+    //makes the record present or absent
+    public void sync(T record, boolean present) {
+        int i = search(idOf.applyAsInt(record));
+        if (i >= 0) {
+            if (!present) {
+                T removed = items.remove(i);
+                if (removed == selected) selected = items.isEmpty() ? null : items.get(Math.min(i, items.size() - 1));
+                fireIntervalRemoved(this, i, i);
+            } else if (items.get(i) != record) {
+                items.set(i, record);
+                fireContentsChanged(this, i, i);
+            }
+        } else if (present) {
+            i = -i - 1;
+            items.add(i, record);
+            fireIntervalAdded(this, i, i);
+            if (selected == null) setSelectedItem(record);
+        }
+    }
+
+    //applies a batch of records with one pair of events rather than one event per record
+    public void syncAll(Collection<T> records, Predicate<T> present) {
+        int old = items.size();
+        boolean changed = false;
+        for (T record : records) {
+            int i = search(idOf.applyAsInt(record));
+            boolean keep = present.test(record);
+            if (i >= 0 && !keep) {
+                if (items.remove(i) == selected) selected = null;
+                changed = true;
+            } else if (i >= 0 && items.get(i) != record) {
+                items.set(i, record);
+                changed = true;
+            } else if (i < 0 && keep) {
+                items.add(-i - 1, record);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+        if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+        if (!items.isEmpty()) fireIntervalAdded(this, 0, items.size() - 1);
+        if (selected == null && !items.isEmpty()) setSelectedItem(items.getFirst());
+    }
+
+    private int search(int id) {
+        int lo = 0;
+        int hi = items.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midID = idOf.applyAsInt(items.get(mid));
+            if (midID < id) lo = mid + 1;
+            else if (midID > id) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        selected = item;
+        fireContentsChanged(this, -1, -1);
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+}
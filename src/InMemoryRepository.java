@@ -0,0 +1,138 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+//keeps the live objects in hash maps, with hash and tree maps as secondary indexes
+public class InMemoryRepository implements ResortRepository {
+    private final LinkedHashMap<Integer, Customer> customers = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Accommodation> accommodations = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, TravelPackage> packages = new LinkedHashMap<>();
+
+    private final HashMap<String, Integer> customerByEmail = new HashMap<>();
+    private final HashMap<String, LinkedHashSet<Integer>> accommodationsByType = new HashMap<>();
+    private final HashMap<Integer, LinkedHashSet<Integer>> packagesByCustomer = new HashMap<>();
+    private final TreeMap<Long, LinkedHashSet<Integer>> packagesByDeparture = new TreeMap<>();
+
+    //index keys each record was filed under, so an update can unfile it
+    private final HashMap<Integer, String> emailOf = new HashMap<>();
+    private final HashMap<Integer, String> typeOf = new HashMap<>();
+    private final HashMap<Integer, long[]> packageKeysOf = new HashMap<>();
+
+    @Override
+    public synchronized void saveCustomer(Customer customer) {
+        customers.put(customer.getID(), customer);
+        String old = emailOf.put(customer.getID(), MtBullerResort.normalizeEmail(customer.getEmail()));
+        if (old != null) customerByEmail.remove(old, customer.getID());
+        customerByEmail.put(emailOf.get(customer.getID()), customer.getID());
+    }
+
+    @Override
+    public synchronized void saveAccommodation(Accommodation accommodation) {
+        int id = accommodation.getID();
+        accommodations.put(id, accommodation);
+        String type = accommodation.getType() == null ? "" : accommodation.getType().toLowerCase(Locale.ROOT);
+        String old = typeOf.put(id, type);
+        if (old != null) accommodationsByType.get(old).remove(id);
+        accommodationsByType.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    public synchronized void savePackage(TravelPackage pkg) {
+        int id = pkg.getID();
+        packages.put(id, pkg);
+        long[] keys = {pkg.getCustomer().getID(), departureDay(pkg)};
+        long[] old = packageKeysOf.put(id, keys);
+        if (old != null) {
+            packagesByCustomer.get((int) old[0]).remove(id);
+            packagesByDeparture.get(old[1]).remove(id);
+        }
+        packagesByCustomer.computeIfAbsent((int) keys[0], k -> new LinkedHashSet<>()).add(id);
+        packagesByDeparture.computeIfAbsent(keys[1], k -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    public synchronized void deletePackage(int id) {
+        packages.remove(id);
+        long[] old = packageKeysOf.remove(id);
+        if (old != null) {
+            packagesByCustomer.get((int) old[0]).remove(id);
+            packagesByDeparture.get(old[1]).remove(id);
+        }
+    }
+
+    @Override
+    public synchronized Customer findCustomer(int id) {
+        return customers.get(id);
+    }
+
+    @Override
+    public synchronized Customer findCustomerByEmail(String email) {
+        Integer id = customerByEmail.get(MtBullerResort.normalizeEmail(email));
+        return id == null ? null : customers.get(id);
+    }
+
+    @Override
+    public synchronized Accommodation findAccommodation(int id) {
+        return accommodations.get(id);
+    }
+
+    @Override
+    public synchronized TravelPackage findPackage(int id) {
+        return packages.get(id);
+    }
+
+    @Override
+    public synchronized List<Customer> allCustomers() {
+        return new ArrayList<>(customers.values());
+    }
+
+    @Override
+    public synchronized List<Accommodation> allAccommodations() {
+        return new ArrayList<>(accommodations.values());
+    }
+
+    @Override
+    public synchronized List<Accommodation> findAccommodationsByType(String type) {
+        ArrayList<Accommodation> result = new ArrayList<>();
+        for (int id : accommodationsByType.getOrDefault(type.toLowerCase(Locale.ROOT), new LinkedHashSet<>())) {
+            result.add(accommodations.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<TravelPackage> findPackagesByCustomer(int customerID) {
+        ArrayList<TravelPackage> result = new ArrayList<>();
+        for (int id : packagesByCustomer.getOrDefault(customerID, new LinkedHashSet<>())) {
+            result.add(packages.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<TravelPackage> findPackagesDepartingFrom(LocalDate date) {
+        ArrayList<TravelPackage> result = new ArrayList<>();
+        for (LinkedHashSet<Integer> ids : packagesByDeparture.tailMap(date.toEpochDay()).values()) {
+            for (int id : ids) result.add(packages.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return customers.isEmpty() && accommodations.isEmpty() && packages.isEmpty();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static long departureDay(TravelPackage pkg) {
+        return pkg.getDate() == null ? 0 : pkg.getStartDay() + pkg.getDays();
+    }
+}
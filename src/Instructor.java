@@ -0,0 +1,32 @@
+//teaches one skill level, one class of up to classSize students per lesson slot
+public class Instructor {
+    private final String name;
+    private final SkillLevel level;
+    private final int classSize;
+
+    public Instructor(String name, SkillLevel level, int classSize) {
+        if (classSize <= 0) {
+            throw new IllegalArgumentException("Class size must be positive.");
+        }
+        this.name = name;
+        this.level = level;
+        this.classSize = classSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SkillLevel getLevel() {
+        return level;
+    }
+
+    public int getClassSize() {
+        return classSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{ name: \"%s\", level: %s, class size: %d }", name, level.label(), classSize);
+    }
+}
@@ -0,0 +1,253 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+
+//places each package's lessons in instructor time slots during its stay
+//free seats per level are kept in a segment tree over (day, slot), so finding a slot is O(log n)
+public class LessonScheduler {
+    public static final String[] SLOT_TIMES = {"09:00", "11:00", "13:30", "15:30"};
+    private static final int SLOTS_PER_DAY = SLOT_TIMES.length;
+    static final int SEASONS_SCHEDULED = 5;
+
+    private final int firstDay;
+    private final int dayCount;
+    private final EnumMap<SkillLevel, CapacityTree> freeSeats = new EnumMap<>(SkillLevel.class);
+    private final EnumMap<SkillLevel, ArrayList<Instructor>> instructors = new EnumMap<>(SkillLevel.class);
+    //seats taken per instructor of the level, by slot
+    private final EnumMap<SkillLevel, HashMap<Integer, int[]>> seatsTaken = new EnumMap<>(SkillLevel.class);
+    private final HashMap<Integer, Booking> bookings = new HashMap<>();
+    //lessons already sold that didn't fit, retried by reoptimize
+    private final HashMap<Integer, Booking> unscheduled = new HashMap<>();
+
+    public LessonScheduler(LocalDate firstDay, int dayCount) {
+        this.firstDay = (int) firstDay.toEpochDay();
+        this.dayCount = dayCount;
+        for (SkillLevel level : SkillLevel.values()) {
+            freeSeats.put(level, new CapacityTree(dayCount * SLOTS_PER_DAY));
+            instructors.put(level, new ArrayList<>());
+            seatsTaken.put(level, new HashMap<>());
+        }
+    }
+
+    //the resort's usual staff, scheduling from the opening of last year's season to the close of the fifth season
+    //stays between seasons fall inside that span too, so they can still book lessons
+    public static LessonScheduler withDefaultRoster(Season season) {
+        LocalDate first = season.opensIn(LocalDate.now().getYear() - 1);
+        LocalDate last = season.closesAfter(season.opensIn(first.getYear() + SEASONS_SCHEDULED - 1));
+        LessonScheduler scheduler = new LessonScheduler(first, (int) (last.toEpochDay() - first.toEpochDay()) + 1);
+        scheduler.addInstructor(new Instructor("Sam", SkillLevel.BEGINNER, 6));
+        scheduler.addInstructor(new Instructor("Priya", SkillLevel.BEGINNER, 6));
+        scheduler.addInstructor(new Instructor("Tom", SkillLevel.INTERMEDIATE, 5));
+        scheduler.addInstructor(new Instructor("Mei", SkillLevel.INTERMEDIATE, 5));
+        scheduler.addInstructor(new Instructor("Lars", SkillLevel.EXPERT, 4));
+        return scheduler;
+    }
+
+    public void addInstructor(Instructor instructor) {
+        instructors.get(instructor.getLevel()).add(instructor);
+        freeSeats.get(instructor.getLevel()).addAll(instructor.getClassSize());
+    }
+
+    public List<Instructor> getInstructors() {
+        ArrayList<Instructor> all = new ArrayList<>();
+        instructors.values().forEach(all::addAll);
+        return all;
+    }
+
+    public boolean isScheduled(int packageID) {
+        return bookings.containsKey(packageID);
+    }
+
+    public List<Integer> getUnscheduled() {
+        return new ArrayList<>(unscheduled.keySet());
+    }
+
+    //books count lessons for the package during its stay, one a day where the stay allows it
+    //all or nothing: throws without booking anything when they don't fit
+    public void book(int packageID, SkillLevel level, int count, LocalDate date, int days) {
+        unscheduled.remove(packageID);
+        if (bookings.containsKey(packageID)) {
+            throw new IllegalArgumentException("Package " + packageID + " already has lessons scheduled.");
+        }
+        if (instructors.get(level).isEmpty()) {
+            throw new IllegalArgumentException("No instructor teaches " + level.label() + " lessons.");
+        }
+        int start = (int) date.toEpochDay() - firstDay;
+        if (start < 0 || start + days > dayCount) {
+            throw new IllegalArgumentException("Travel dates are outside the lesson schedule.");
+        }
+        Booking booking = place(packageID, level, count, start * SLOTS_PER_DAY, (start + days) * SLOTS_PER_DAY);
+        if (booking == null) {
+            throw new IllegalArgumentException("Not enough " + level.label() + " instructor capacity for "
+                    + count + " lessons between " + date + " and " + date.plusDays(days - 1) + ".");
+        }
+        bookings.put(packageID, booking);
+    }
+
+    //books if possible, used for packages loaded with lessons already sold; ones that don't fit wait for reoptimize
+    public boolean tryBook(int packageID, SkillLevel level, int count, LocalDate date, int days) {
+        try {
+            book(packageID, level, count, date, days);
+            return true;
+        } catch (IllegalArgumentException e) {
+            int start = (int) date.toEpochDay() - firstDay;
+            if (start >= 0 && start + days <= dayCount && !bookings.containsKey(packageID)) {
+                unscheduled.put(packageID, new Booking(packageID, level, new int[count],
+                        start * SLOTS_PER_DAY, (start + days) * SLOTS_PER_DAY));
+            }
+            return false;
+        }
+    }
+
+    public void release(int packageID) {
+        unscheduled.remove(packageID);
+        Booking booking = bookings.remove(packageID);
+        if (booking != null) unseat(booking);
+    }
+
+    //batch job: frees every slot and places all requests again, most constrained stays first, so
+    //lessons that were left unscheduled get another chance; the old schedule is kept unless more lessons fit
+    //returns the packages still unscheduled
+    public List<Integer> reoptimize() {
+        ArrayList<Booking> old = new ArrayList<>(bookings.values());
+        ArrayList<Booking> requests = new ArrayList<>(old);
+        requests.addAll(unscheduled.values());
+        requests.sort(Comparator.comparingInt((Booking b) -> (b.to - b.from) - b.slots.length)
+                .thenComparingInt(b -> b.from)
+                .thenComparingInt(b -> b.packageID));
+        int placedBefore = 0;
+        for (Booking booking : old) placedBefore += booking.slots.length;
+
+        for (Booking booking : old) unseat(booking);
+        ArrayList<Booking> fresh = new ArrayList<>();
+        ArrayList<Booking> missed = new ArrayList<>();
+        int placedAfter = 0;
+        for (Booking request : requests) {
+            Booking booking = place(request.packageID, request.level, request.slots.length, request.from, request.to);
+            if (booking == null) {
+                missed.add(request);
+            } else {
+                fresh.add(booking);
+                placedAfter += booking.slots.length;
+            }
+        }
+
+        if (placedAfter < placedBefore) {
+            //greedy did worse this time, put the old schedule back seat for seat
+            for (Booking booking : fresh) unseat(booking);
+            for (Booking booking : old) reseat(booking);
+            return getUnscheduled();
+        }
+        bookings.clear();
+        unscheduled.clear();
+        for (Booking booking : fresh) bookings.put(booking.packageID, booking);
+        for (Booking request : missed) unscheduled.put(request.packageID, request);
+        return getUnscheduled();
+    }
+
+    private void unseat(Booking booking) {
+        for (int i = 0; i < booking.slots.length; i++) {
+            seatsTaken.get(booking.level).get(booking.slots[i])[booking.instructors[i]]--;
+            freeSeats.get(booking.level).add(booking.slots[i], 1);
+        }
+    }
+
+    private void reseat(Booking booking) {
+        for (int i = 0; i < booking.slots.length; i++) {
+            seatsTaken.get(booking.level).get(booking.slots[i])[booking.instructors[i]]++;
+            freeSeats.get(booking.level).add(booking.slots[i], -1);
+        }
+    }
+
+    //"2026-07-03 09:00 with Sam" for each lesson of the package
+    public List<String> describe(int packageID) {
+        ArrayList<String> lines = new ArrayList<>();
+        Booking booking = bookings.get(packageID);
+        if (booking == null) return lines;
+        for (int i = 0; i < booking.slots.length; i++) {
+            int slot = booking.slots[i];
+            lines.add(LocalDate.ofEpochDay(firstDay + slot / SLOTS_PER_DAY) + " " + SLOT_TIMES[slot % SLOTS_PER_DAY]
+                    + " with " + instructors.get(booking.level).get(booking.instructors[i]).getName());
+        }
+        return lines;
+    }
+
+    private Booking place(int packageID, SkillLevel level, int count, int from, int to) {
+        if (count > to - from) return null;
+        CapacityTree tree = freeSeats.get(level);
+        int[] slots = new int[count];
+        int placed = 0;
+
+        //first pass: at most one lesson a day
+        int cursor = from;
+        while (placed < count) {
+            int slot = tree.firstWithRoom(cursor, to);
+            if (slot < 0) break;
+            slots[placed++] = slot;
+            cursor = (slot / SLOTS_PER_DAY + 1) * SLOTS_PER_DAY;
+        }
+        //second pass: any free slot not already taken by this package
+        cursor = from;
+        while (placed < count) {
+            int slot = tree.firstWithRoom(cursor, to);
+            if (slot < 0) return null;
+            cursor = slot + 1;
+            if (!contains(slots, placed, slot)) slots[placed++] = slot;
+        }
+
+        Booking booking = new Booking(packageID, level, slots, from, to);
+        for (int i = 0; i < count; i++) {
+            booking.instructors[i] = takeSeat(level, slots[i]);
+            tree.add(slots[i], -1);
+        }
+        return booking;
+    }
+
+    //fills instructors in roster order
+    private int takeSeat(SkillLevel level, int slot) {
+        ArrayList<Instructor> staff = instructors.get(level);
+        int[] taken = seatsTaken.get(level).computeIfAbsent(slot, k -> new int[staff.size()]);
+        if (taken.length < staff.size()) {
+            taken = Arrays.copyOf(taken, staff.size());
+            seatsTaken.get(level).put(slot, taken);
+        }
+        for (int i = 0; i < staff.size(); i++) {
+            if (taken[i] < staff.get(i).getClassSize()) {
+                taken[i]++;
+                return i;
+            }
+        }
+        throw new IllegalStateException("Slot " + slot + " has no free seat.");
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    //slots are empty until the request is placed
+    private static class Booking {
+        private final int packageID;
+        private final SkillLevel level;
+        private final int[] slots;
+        private final int[] instructors;
+        //slot range of the stay
+        private final int from;
+        private final int to;
+
+        Booking(int packageID, SkillLevel level, int[] slots, int from, int to) {
+            this.packageID = packageID;
+            this.level = level;
+            this.slots = slots;
+            this.instructors = new int[slots.length];
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
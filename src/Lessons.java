@@ -1,35 +1,74 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 
 public class Lessons implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    //count and cost are the original fields, level was added alongside them
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("count", int.class),
+            new ObjectStreamField("cost", double.class),
+            new ObjectStreamField("level", String.class)
+    };
     private int count;
-    private double cost;
+    private SkillLevel level;
 
     public Lessons() {
 
     }
 
     public Lessons(String level, int count) {
+        this(SkillLevel.parse(level), count);
+    }
+
+    public Lessons(SkillLevel level, int count) {
+        this.level = level;
         this.count = count;
-        this.cost = count * lessonPrice(level);
     }
 
     public static double lessonPrice(String level) {
-        return switch (level.toLowerCase()) {
-            case "expert" -> 15.0;
-            case "intermediate" -> 20.0;
-            case "beginner" -> 25.0;
-            default -> throw new IllegalArgumentException("Invalid level");
-        };
+        return SkillLevel.parse(level).lessonPrice();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public SkillLevel getLevel() {
+        return level;
     }
 
     public double getCost() {
-        return cost;
+        return level == null ? 0 : count * level.lessonPrice();
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("count", count);
+        fields.put("cost", getCost());
+        fields.put("level", level == null ? null : level.label());
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        count = fields.get("count", 0);
+        String savedLevel = (String) fields.get("level", null);
+        if (savedLevel != null) {
+            level = SkillLevel.parse(savedLevel);
+        } else if (count > 0) {
+            level = SkillLevel.fromLessonPrice(fields.get("cost", 0.0) / count);
+        }
     }
 
     public String toString() {
-        return "Lessons: " + count + " x $" + (cost / count) + " = $" + cost;
+        return "Lessons: " + count + " x $" + (getCost() / count) + " = $" + getCost();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+//opening morning at the gates: one thread per core validating random passes while the office keeps selling
+//run with e.g. java LiftGateBenchmark 1000000 5
+public class LiftGateBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int gates = Runtime.getRuntime().availableProcessors();
+        LocalDate opening = LocalDate.of(2026, 6, 7);
+        int openingDay = (int) opening.toEpochDay();
+
+        LiftGateValidator validator = new LiftGateValidator(Season.MOUNT_BULLER, passes);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int id = 1; id <= passes; id++) {
+            //a third season passes, the rest daily passes starting in the first fortnight
+            if (id % 3 == 0) validator.grant(id, opening, 122);
+            else validator.grant(id, opening.plusDays(random.nextInt(14)), 1 + random.nextInt(7));
+        }
+        System.out.printf("loaded %d passes in %d ms%n", passes, (System.nanoTime() - start) / 1_000_000);
+
+        AtomicLong checks = new AtomicLong();
+        AtomicLong valid = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(gates);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[gates];
+        for (int g = 0; g < gates; g++) {
+            //each gate scans a fixed queue of passes so the loop itself doesn't allocate
+            int[] queue = new int[1 << 16];
+            Random r = new Random(g);
+            for (int i = 0; i < queue.length; i++) queue[i] = 1 + r.nextInt(passes + passes / 10); //some unknown passes
+            boolean[] results = new boolean[queue.length];
+            threads[g] = new Thread(() -> {
+                ready.countDown();
+                long done = 0;
+                long ok = 0;
+                while (System.nanoTime() < deadline) {
+                    ok += validator.validateAll(queue, openingDay, results);
+                    done += queue.length;
+                }
+                checks.addAndGet(done);
+                valid.addAndGet(ok);
+            });
+            threads[g].start();
+        }
+
+        //sales and cancellations keep coming while the gates run
+        ready.await();
+        long writes = 0;
+        Random office = new Random(7);
+        while (System.nanoTime() < deadline) {
+            int id = 1 + office.nextInt(passes);
+            if (office.nextInt(10) == 0) validator.revoke(id);
+            else if (id % 3 == 0) validator.grant(id, opening, 122);
+            else validator.grant(id, opening.plusDays(office.nextInt(14)), 1 + office.nextInt(7));
+            writes++;
+        }
+        for (Thread t : threads) t.join();
+
+        System.out.printf("%d gates, %d validations in %d s: %.1f million/s (%.1f%% valid), %d concurrent updates%n",
+                gates, checks.get(), seconds, checks.get() / (seconds * 1e6), 100.0 * valid.get() / checks.get(), writes);
+    }
+}
@@ -0,0 +1,221 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+
+//answers "is this pass valid today?" at the lift gates, keyed by package id since a package holds one pass
+//open addressing over primitive arrays: each slot has a key, a first valid day and a 256 day bitmap
+//one writer at a time; gates read without locks or allocation, a per-slot sequence number lets them
+//retry a read that overlapped a write, and a resize publishes a new table through a volatile field
+public class LiftGateValidator {
+    static final int WINDOW_DAYS = 256;
+    private static final int WORDS = WINDOW_DAYS / 64;
+    private static final int EMPTY = 0; //package ids start at 1
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile Table table;
+    private int size = 0;
+    //what a season pass covers
+    private Season season;
+    //valid days summed over every pass, the denominator for pass utilization
+    private volatile long grantedDays = 0;
+
+    public LiftGateValidator() {
+        this(Season.MOUNT_BULLER, 1024);
+    }
+
+    public LiftGateValidator(Season season, int expectedPasses) {
+        table = new Table(Integer.highestOneBit(Math.max(16, expectedPasses * 2 - 1)) << 1);
+        setSeason(season);
+    }
+
+    public synchronized Season getSeason() {
+        return season;
+    }
+
+    //only before any pass is granted, since season passes already granted were for the old season
+    public synchronized void setSeason(Season season) {
+        if (size > 0) {
+            throw new IllegalStateException("The season can't change once passes have been granted.");
+        }
+        if (season.maxDays() > WINDOW_DAYS) {
+            throw new IllegalArgumentException("A season of " + season.maxDays() + " days is longer than the "
+                    + WINDOW_DAYS + " days a pass can be valid for.");
+        }
+        this.season = season;
+    }
+
+    //updates the package's entry from its pass, dates and days
+    public synchronized void sync(TravelPackage pkg) {
+        LiftPass pass = pkg.getLiftPass();
+        LocalDate date = pkg.getDate();
+        if (pass == null || pass.getType() == null || date == null) {
+            revoke(pkg.getID());
+            return;
+        }
+        if (pass.getType() == LiftPassType.SEASON) {
+            LocalDate opens = season.opensBefore(date);
+            if (opens != null) {
+                grant(pkg.getID(), opens, (int) (season.closesAfter(opens).toEpochDay() - opens.toEpochDay()) + 1);
+            } else {
+                //bought for a stay outside the season, so it covers the stay
+                grant(pkg.getID(), date, pkg.getDays());
+            }
+        } else {
+            grant(pkg.getID(), date, pass.getDays());
+        }
+    }
+
+    //valid on days from .. from + days - 1, replacing anything granted before
+    public synchronized void grant(int passID, LocalDate from, int days) {
+        if (passID == EMPTY) {
+            throw new IllegalArgumentException("Pass id must not be 0.");
+        }
+        Table t = table;
+        int slot = t.find(passID);
+        if (slot < 0) {
+            if ((size + 1) * 2 > t.keys.length) {
+                t = resize(t);
+            }
+            slot = t.claim(passID);
+            size++;
+        } else {
+            grantedDays -= t.days(slot);
+        }
+        int window = Math.min(Math.max(0, days), WINDOW_DAYS);
+        t.write(slot, (int) from.toEpochDay(), window);
+        grantedDays += window;
+    }
+
+    //the slot keeps its key with no valid days, it is dropped at the next resize
+    public synchronized void revoke(int passID) {
+        Table t = table;
+        int slot = t.find(passID);
+        if (slot >= 0) {
+            grantedDays -= t.days(slot);
+            t.write(slot, 0, 0);
+        }
+    }
+
+    public long getGrantedDays() {
+        return grantedDays;
+    }
+
+    public boolean isValid(int passID, LocalDate date) {
+        return isValid(passID, (int) date.toEpochDay());
+    }
+
+    public boolean isValid(int passID, int epochDay) {
+        return table.isValid(passID, epochDay);
+    }
+
+    //checks a batch of passes for one day into results, returns how many are valid
+    public int validateAll(int[] passIDs, int epochDay, boolean[] results) {
+        Table t = table;
+        int valid = 0;
+        for (int i = 0; i < passIDs.length; i++) {
+            results[i] = t.isValid(passIDs[i], epochDay);
+            if (results[i]) valid++;
+        }
+        return valid;
+    }
+
+    private Table resize(Table old) {
+        int live = 0;
+        for (int slot = 0; slot < old.keys.length; slot++) {
+            if (old.keys[slot] != EMPTY && old.hasDays(slot)) live++;
+        }
+        Table t = new Table(Integer.highestOneBit(Math.max(16, (live + 1) * 4 - 1)) << 1);
+        for (int slot = 0; slot < old.keys.length; slot++) {
+            if (old.keys[slot] == EMPTY || !old.hasDays(slot)) continue;
+            int copy = t.claim(old.keys[slot]);
+            t.starts[copy] = old.starts[slot];
+            System.arraycopy(old.words, slot * WORDS, t.words, copy * WORDS, WORDS);
+        }
+        size = live;
+        table = t;
+        return t;
+    }
+
+    private static final class Table {
+        private final int[] keys;
+        private final int[] versions;
+        private final int[] starts;
+        private final long[] words;
+        private final int mask;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            versions = new int[capacity];
+            starts = new int[capacity];
+            words = new long[capacity * WORDS];
+            mask = capacity - 1;
+        }
+
+        int find(int key) {
+            for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+                int k = (int) INTS.getAcquire(keys, slot);
+                if (k == key) return slot;
+                if (k == EMPTY) return -1;
+            }
+        }
+
+        //writer only, there is always an empty slot because the table is at most half full
+        int claim(int key) {
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            INTS.setRelease(keys, slot, key);
+            return slot;
+        }
+
+        void write(int slot, int start, int days) {
+            int version = versions[slot];
+            INTS.setOpaque(versions, slot, version + 1);
+            VarHandle.storeStoreFence();
+            INTS.setOpaque(starts, slot, start);
+            for (int w = 0; w < WORDS; w++) {
+                int from = w * 64;
+                long bits = days <= from ? 0 : days >= from + 64 ? -1L : (1L << (days - from)) - 1;
+                LONGS.setOpaque(words, slot * WORDS + w, bits);
+            }
+            INTS.setRelease(versions, slot, version + 2);
+        }
+
+        //writer only
+        int days(int slot) {
+            int days = 0;
+            for (int w = 0; w < WORDS; w++) days += Long.bitCount(words[slot * WORDS + w]);
+            return days;
+        }
+
+        boolean hasDays(int slot) {
+            for (int w = 0; w < WORDS; w++) {
+                if (words[slot * WORDS + w] != 0) return true;
+            }
+            return false;
+        }
+
+        boolean isValid(int key, int day) {
+            int slot = find(key);
+            if (slot < 0) return false;
+            while (true) {
+                int version = (int) INTS.getAcquire(versions, slot);
+                if ((version & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int offset = day - (int) INTS.getOpaque(starts, slot);
+                boolean valid = offset >= 0 && offset < WINDOW_DAYS
+                        && (((long) LONGS.getOpaque(words, slot * WORDS + (offset >>> 6)) >>> (offset & 63)) & 1) != 0;
+                VarHandle.loadLoadFence();
+                if ((int) INTS.getOpaque(versions, slot) == version) return valid;
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,47 +1,87 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 
 public class LiftPass implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
-    private String type;
+    //serialized as the original String type and stored cost so older save files still load
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("type", String.class),
+            new ObjectStreamField("days", int.class),
+            new ObjectStreamField("cost", double.class)
+    };
+    private LiftPassType type;
     private int days;
-    private double cost;
 
     public LiftPass() {
 
     }
 
     public LiftPass(String type, int days) {
+        this(LiftPassType.parse(type), days);
+    }
+
+    public LiftPass(LiftPassType type, int days) {
         this.type = type;
         this.days = days;
-        calculateCost();
+    }
 
+    public LiftPassType getType() {
+        return type;
     }
 
-    public void calculateCost() {
-        if (type.equalsIgnoreCase("Season")) {
-            cost = 200;
-        } else if (type.equalsIgnoreCase("Daily")) {
-            cost = 26 * days;
+    public int getDays() {
+        return days;
+    }
+
+    //cost is derived from the type and days rather than stored
+    public double getCost() {
+        if (type == LiftPassType.SEASON) {
+            return 200;
+        } else if (type == LiftPassType.DAILY) {
+            double cost = 26 * days;
             if (days >= 5) {
                 cost = cost * 0.9; // 10% discount
             }
+            return cost;
         }
+        return 0;
     }
 
-    public double getCost() {
-        return cost;
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("type", type == null ? null : type.label());
+        fields.put("days", days);
+        fields.put("cost", getCost());
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        String savedType = (String) fields.get("type", null);
+        try {
+            type = savedType == null ? null : LiftPassType.parse(savedType);
+        } catch (IllegalArgumentException e) {
+            type = null;
+        }
+        days = fields.get("days", 0);
     }
 
     @Override
     public String toString() {
-        if (type.equalsIgnoreCase("Season")) {
+        if (type == LiftPassType.SEASON) {
             return "Lift Pass: Season ($200)";
-        } else if (type.equalsIgnoreCase("Daily")) {
-            return "Lift Pass: " + days + " days ($" + cost + ")";
+        } else if (type == LiftPassType.DAILY) {
+            return "Lift Pass: " + days + " days ($" + getCost() + ")";
         } else {
             return "Lift Pass: None";
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+import java.util.Locale;
+
+public enum LiftPassType {
+    SEASON("Season"),
+    DAILY("Daily");
+
+    private final String label;
+
+    LiftPassType(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static LiftPassType parse(String type) {
+        if (type != null) {
+            switch (type.trim().toLowerCase(Locale.ROOT)) {
+                case "season":
+                    return SEASON;
+                case "daily":
+                    return DAILY;
+            }
+        }
+        throw new IllegalArgumentException("Invalid type. Enter 'Daily' or 'Season'.");
+    }
+}
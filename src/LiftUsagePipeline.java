@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+//ingests lift gate scans, one "2026-07-12T09:15:03,lift,pass" line each, from a file or a local socket
+//lines are parsed into fixed primitive batches, checked against the lift gate and folded into the usage windows
+//a snapshot goes to the listeners at most once a second and when a source ends
+//a feed or export that fails on a reader thread is kept as the last error and shown by describe
+//each source's reader does the aggregation itself, so a fast sender is held back by the socket rather than queued
+public class LiftUsagePipeline implements AutoCloseable {
+    static final int BATCH = 4096;
+    private static final long PUBLISH_MILLIS = 1000;
+
+    private final LiftGateValidator gate;
+    private final LiftUsageWindows windows = new LiftUsageWindows();
+    private final List<Consumer<LiftUsageSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService readers = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "lift-usage");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile LiftUsageSnapshot latest;
+    private volatile ServerSocket server;
+    private File export;
+    private volatile String lastError;
+    private long malformed = 0;
+    private long lastPublished = 0;
+
+    public LiftUsagePipeline(LiftGateValidator gate) {
+        this.gate = gate;
+        latest = windows.snapshot(0, 0);
+    }
+
+    public void addListener(Consumer<LiftUsageSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LiftUsageSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    public LiftUsageSnapshot getLatest() {
+        return latest;
+    }
+
+    //the latest snapshot, then the last feed or export failure if there was one
+    public String describe() {
+        String text = latest.describe();
+        String error = lastError;
+        return error == null ? text : text + "Last error: " + error + "\n";
+    }
+
+    public boolean isListening() {
+        return server != null;
+    }
+
+    //reads a scan file in the background, the future completes once it has been folded in and published
+    public Future<?> replay(File file) {
+        return readers.submit(() -> {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+                consume(reader);
+            }
+            return null;
+        });
+    }
+
+    //accepts gate feeds on a loopback port, one connection at a time, until stopListening
+    public synchronized void listen(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Already listening on port " + server.getLocalPort() + ".");
+        }
+        ServerSocket socket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        server = socket;
+        readers.submit(() -> {
+            while (!socket.isClosed()) {
+                try (Socket client = socket.accept();
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+                    consume(reader);
+                } catch (IOException e) {
+                    if (!socket.isClosed()) failed("lift scan feed failed: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    public synchronized void stopListening() {
+        if (server == null) {
+            return;
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            lastError = "could not close the lift scan port: " + e.getMessage();
+        }
+        server = null;
+    }
+
+    //appends every snapshot from now on to a CSV file, starting with the current one; null stops exporting
+    public synchronized void exportTo(File file) throws IOException {
+        if (file != null) {
+            boolean fresh = !file.exists() || file.length() == 0;
+            try (Writer out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8, true))) {
+                if (fresh) out.write(LiftUsageSnapshot.CSV_HEADER + "\n");
+                latest.writeCsv(out);
+            }
+        }
+        export = file;
+    }
+
+    //forgets every scan, for a new day's replay
+    public synchronized void reset() {
+        windows.clear();
+        malformed = 0;
+        publish();
+    }
+
+    @Override
+    public void close() {
+        stopListening();
+        readers.shutdownNow();
+    }
+
+    private void consume(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader b ? b : new BufferedReader(source);
+        Batch batch = new Batch();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            batch.parse(line);
+            //a partial batch goes in whenever the sender pauses, so live figures don't wait for a full one
+            if (batch.size == BATCH || !reader.ready()) apply(batch, false);
+        }
+        apply(batch, true);
+    }
+
+    private synchronized void apply(Batch batch, boolean end) {
+        for (int i = 0; i < batch.size; i++) {
+            int day = (int) Math.floorDiv(batch.seconds[i], 86_400);
+            windows.record(batch.seconds[i], batch.lifts[i], batch.passes[i], gate.isValid(batch.passes[i], day));
+        }
+        malformed += batch.malformed;
+        batch.size = 0;
+        batch.malformed = 0;
+        long now = System.currentTimeMillis();
+        if (end || now - lastPublished >= PUBLISH_MILLIS) {
+            lastPublished = now;
+            publish();
+        }
+    }
+
+    private synchronized void failed(String error) {
+        lastError = error;
+        publish();
+    }
+
+    //the export is written before the listeners hear of the snapshot, so they see it if it failed
+    private void publish() {
+        latest = windows.snapshot(gate.getGrantedDays(), malformed);
+        if (export != null) {
+            try (Writer out = new BufferedWriter(new FileWriter(export, StandardCharsets.UTF_8, true))) {
+                latest.writeCsv(out);
+            } catch (IOException e) {
+                lastError = "lift usage export to " + export.getName() + " failed: " + e.getMessage();
+            }
+        }
+        for (Consumer<LiftUsageSnapshot> listener : listeners) listener.accept(latest);
+    }
+
+    //one per source, reused for every batch from it
+    private static final class Batch {
+        private final long[] seconds = new long[BATCH];
+        private final int[] lifts = new int[BATCH];
+        private final int[] passes = new int[BATCH];
+        private int size = 0;
+        private int malformed = 0;
+        //scans usually arrive in date order, so the date is parsed once per day
+        private String datePrefix = null;
+        private long dayStart = 0;
+
+        //skips blank lines and # comments, counts anything else it can't read
+        void parse(String line) {
+            if (line.isBlank() || line.charAt(0) == '#') {
+                return;
+            }
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+            int liftEnd = line.indexOf(',', 20);
+            if (end < 23 || line.charAt(10) != 'T' || line.charAt(13) != ':' || line.charAt(16) != ':'
+                    || line.charAt(19) != ',' || liftEnd < 0) {
+                malformed++;
+                return;
+            }
+            if (datePrefix == null || !line.startsWith(datePrefix)) {
+                try {
+                    dayStart = LocalDate.parse(line.substring(0, 10)).toEpochDay() * 86_400;
+                    datePrefix = line.substring(0, 10);
+                } catch (DateTimeException e) {
+                    malformed++;
+                    return;
+                }
+            }
+            int hour = number(line, 11, 13);
+            int minute = number(line, 14, 16);
+            int second = number(line, 17, 19);
+            int lift = number(line, 20, liftEnd);
+            int pass = number(line, liftEnd + 1, end);
+            if (hour > 23 || minute > 59 || second > 59 || lift < 1 || lift > LiftUsageWindows.MAX_LIFTS || pass < 1) {
+                malformed++;
+                return;
+            }
+            seconds[size] = dayStart + hour * 3600L + minute * 60L + second;
+            lifts[size] = lift;
+            passes[size] = pass;
+            size++;
+        }
+
+        //digits from .. to, or -1 when there are none or anything else is there
+        private static int number(String s, int from, int to) {
+            if (from >= to || to - from > 9) return -1;
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') return -1;
+                n = n * 10 + (c - '0');
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+//lift usage as of the latest scan minute, published by LiftUsagePipeline
+//per-lift arrays are parallel and only hold lifts scanned in the last hour
+public class LiftUsageSnapshot {
+    static final String CSV_HEADER = "time,metric,lift,value";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final LocalDateTime time;
+    private final int[] lifts;
+    private final int[] lastMinute;
+    private final int[] lastFiveMinutes;
+    private final int[] lastHour;
+    private final long uniqueThisHour;
+    private final long uniqueLastHour;
+    private final long uniqueLastSixtyMinutes;
+    private final long scans;
+    private final long rejected;
+    private final long late;
+    private final long malformed;
+    private final long untracked;
+    private final long passDaysUsed;
+    private final long passDaysPurchased;
+
+    public LiftUsageSnapshot(LocalDateTime time, int[] lifts, int[] lastMinute, int[] lastFiveMinutes, int[] lastHour,
+                             long uniqueThisHour, long uniqueLastHour, long uniqueLastSixtyMinutes,
+                             long scans, long rejected, long late, long malformed, long untracked,
+                             long passDaysUsed, long passDaysPurchased) {
+        this.time = time;
+        this.lifts = lifts;
+        this.lastMinute = lastMinute;
+        this.lastFiveMinutes = lastFiveMinutes;
+        this.lastHour = lastHour;
+        this.uniqueThisHour = uniqueThisHour;
+        this.uniqueLastHour = uniqueLastHour;
+        this.uniqueLastSixtyMinutes = uniqueLastSixtyMinutes;
+        this.scans = scans;
+        this.rejected = rejected;
+        this.late = late;
+        this.malformed = malformed;
+        this.untracked = untracked;
+        this.passDaysUsed = passDaysUsed;
+        this.passDaysPurchased = passDaysPurchased;
+    }
+
+    //null until the first scan
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public long getScans() {
+        return scans;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getUniqueThisHour() {
+        return uniqueThisHour;
+    }
+
+    public long getUniqueLastHour() {
+        return uniqueLastHour;
+    }
+
+    //pass days used over pass days purchased
+    public double getUtilization() {
+        return passDaysPurchased == 0 ? 0 : (double) passDaysUsed / passDaysPurchased;
+    }
+
+    public String describe() {
+        if (time == null) {
+            return "No lift scans yet.\n";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("----- Lift usage at ").append(TIME.format(time)).append(" -----\n");
+        sb.append(String.format("Scans: %d (rejected %d, late %d, malformed %d)%n", scans, rejected, late, malformed));
+        sb.append(String.format("Unique skiers: %d this hour, %d last hour, %d in the last 60 minutes%n",
+                uniqueThisHour, uniqueLastHour, uniqueLastSixtyMinutes));
+        sb.append(String.format("Pass days used: %d of %d purchased (%.1f%%)%s%n", passDaysUsed, passDaysPurchased,
+                getUtilization() * 100, untracked > 0 ? ", " + untracked + " scans from untracked passes" : ""));
+        sb.append(String.format("%-6s %10s %12s %10s%n", "Lift", "Last min", "5-min avg", "Last hour"));
+        for (int i = 0; i < lifts.length; i++) {
+            sb.append(String.format("%-6d %10d %12.1f %10d%n", lifts[i], lastMinute[i], lastFiveMinutes[i] / 5.0, lastHour[i]));
+        }
+        return sb.toString();
+    }
+
+    //one row per figure, so snapshots can be appended to the same file over time
+    public void writeCsv(Writer out) throws IOException {
+        if (time == null) {
+            return;
+        }
+        String t = TIME.format(time);
+        for (int i = 0; i < lifts.length; i++) {
+            row(out, t, "scans_last_minute", lifts[i], lastMinute[i]);
+            row(out, t, "scans_per_minute_5min", lifts[i], lastFiveMinutes[i] / 5.0);
+            row(out, t, "scans_last_hour", lifts[i], lastHour[i]);
+        }
+        row(out, t, "unique_skiers_this_hour", 0, uniqueThisHour);
+        row(out, t, "unique_skiers_last_hour", 0, uniqueLastHour);
+        row(out, t, "unique_skiers_60min", 0, uniqueLastSixtyMinutes);
+        row(out, t, "scans_total", 0, scans);
+        row(out, t, "scans_rejected", 0, rejected);
+        row(out, t, "pass_days_used", 0, passDaysUsed);
+        row(out, t, "pass_days_purchased", 0, passDaysPurchased);
+        row(out, t, "pass_utilization", 0, getUtilization());
+    }
+
+    //lift 0 means the figure is for the whole resort and the lift column is left blank
+    private static void row(Writer out, String time, String metric, int lift, Object value) throws IOException {
+        out.write(time + "," + metric + "," + (lift == 0 ? "" : lift) + "," + value + "\n");
+    }
+}
@@ -0,0 +1,205 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+//windowed lift usage built from gate scans, kept in fixed-size primitive rings so memory stays the same
+//however many scans arrive: scans per lift per minute for the last hour, a unique-skier sketch per minute
+//for the last hour and per hour for the last day, and the last day each pass was used
+//times are local seconds (local date-time as if it were UTC), lifts are numbered from 1
+//single writer: the pipeline records and takes snapshots under its own lock
+public class LiftUsageWindows {
+    static final int MAX_LIFTS = 64;
+    static final int MINUTES = 60;
+    static final int HOURS = 24;
+    //passes tracked for utilization, scans for passes beyond this are counted but not tracked
+    static final int MAX_PASSES = 1 << 18;
+    private static final int REGISTER_BITS = 11;
+    private static final int REGISTERS = 1 << REGISTER_BITS;
+    private static final long NONE = Long.MIN_VALUE;
+
+    //minute rings, slot = minute % MINUTES
+    private final long[] minuteStamps = new long[MINUTES];
+    private final int[] minuteCounts = new int[MINUTES * MAX_LIFTS];
+    private final byte[] minuteRegisters = new byte[MINUTES * REGISTERS];
+    //hour ring, slot = hour % HOURS
+    private final long[] hourStamps = new long[HOURS];
+    private final byte[] hourRegisters = new byte[HOURS * REGISTERS];
+    //open addressing from pass id to the last day it was used, at most half full
+    private final int[] passKeys = new int[MAX_PASSES * 2];
+    private final int[] passDays = new int[MAX_PASSES * 2];
+    private int passCount = 0;
+
+    private long minute = NONE;
+    private long hour = NONE;
+    private long scans = 0;
+    private long rejected = 0;
+    private long late = 0;
+    private long untracked = 0;
+    private long passDaysUsed = 0;
+
+    public LiftUsageWindows() {
+        Arrays.fill(minuteStamps, NONE);
+        Arrays.fill(hourStamps, NONE);
+    }
+
+    //scans older than the minute window are dropped as late, rejected scans only count towards the totals
+    public void record(long second, int lift, int passID, boolean valid) {
+        long m = Math.floorDiv(second, 60);
+        if (minute == NONE || m > minute) {
+            advanceTo(m);
+        } else if (m <= minute - MINUTES) {
+            late++;
+            return;
+        }
+        scans++;
+        if (!valid) {
+            rejected++;
+            return;
+        }
+        int minuteSlot = Math.floorMod(m, MINUTES);
+        minuteCounts[minuteSlot * MAX_LIFTS + lift - 1]++;
+
+        long x = mix(passID);
+        int register = (int) (x >>> (64 - REGISTER_BITS));
+        byte rank = (byte) Math.min(64 - REGISTER_BITS + 1, Long.numberOfLeadingZeros(x << REGISTER_BITS) + 1);
+        int m0 = minuteSlot * REGISTERS + register;
+        if (minuteRegisters[m0] < rank) minuteRegisters[m0] = rank;
+        int h0 = Math.floorMod(Math.floorDiv(m, 60), HOURS) * REGISTERS + register;
+        if (hourRegisters[h0] < rank) hourRegisters[h0] = rank;
+
+        countPassDay(passID, (int) Math.floorDiv(second, 86_400));
+    }
+
+    public void clear() {
+        Arrays.fill(minuteStamps, NONE);
+        Arrays.fill(minuteCounts, 0);
+        Arrays.fill(minuteRegisters, (byte) 0);
+        Arrays.fill(hourStamps, NONE);
+        Arrays.fill(hourRegisters, (byte) 0);
+        Arrays.fill(passKeys, 0);
+        passCount = 0;
+        minute = hour = NONE;
+        scans = rejected = late = untracked = passDaysUsed = 0;
+    }
+
+    public LiftUsageSnapshot snapshot(long purchasedDays, long malformed) {
+        if (minute == NONE) {
+            return new LiftUsageSnapshot(null, new int[0], new int[0], new int[0], new int[0], 0, 0, 0,
+                    scans, rejected, late, malformed, untracked, passDaysUsed, purchasedDays);
+        }
+        //only lifts scanned in the last hour are listed
+        int[] lastMinute = new int[MAX_LIFTS];
+        int[] lastFive = new int[MAX_LIFTS];
+        int[] lastHour = new int[MAX_LIFTS];
+        for (long m = minute - MINUTES + 1; m <= minute; m++) {
+            int slot = Math.floorMod(m, MINUTES);
+            if (minuteStamps[slot] != m) continue;
+            for (int lift = 0; lift < MAX_LIFTS; lift++) {
+                int count = minuteCounts[slot * MAX_LIFTS + lift];
+                lastHour[lift] += count;
+                if (m > minute - 5) lastFive[lift] += count;
+                if (m == minute - 1) lastMinute[lift] = count;
+            }
+        }
+        int active = 0;
+        for (int lift = 0; lift < MAX_LIFTS; lift++) {
+            if (lastHour[lift] > 0) active++;
+        }
+        int[] lifts = new int[active];
+        int[] minuteScans = new int[active];
+        int[] fiveMinuteScans = new int[active];
+        int[] hourScans = new int[active];
+        for (int lift = 0, i = 0; lift < MAX_LIFTS; lift++) {
+            if (lastHour[lift] == 0) continue;
+            lifts[i] = lift + 1;
+            minuteScans[i] = lastMinute[lift];
+            fiveMinuteScans[i] = lastFive[lift];
+            hourScans[i] = lastHour[lift];
+            i++;
+        }
+
+        byte[] merged = new byte[REGISTERS];
+        for (int slot = 0; slot < MINUTES; slot++) {
+            if (minuteStamps[slot] == NONE) continue;
+            for (int r = 0; r < REGISTERS; r++) {
+                byte b = minuteRegisters[slot * REGISTERS + r];
+                if (merged[r] < b) merged[r] = b;
+            }
+        }
+        long previousHour = hour - 1;
+        int previousSlot = Math.floorMod(previousHour, HOURS);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+        return new LiftUsageSnapshot(time, lifts, minuteScans, fiveMinuteScans, hourScans,
+                estimate(hourRegisters, Math.floorMod(hour, HOURS) * REGISTERS),
+                hourStamps[previousSlot] == previousHour ? estimate(hourRegisters, previousSlot * REGISTERS) : 0,
+                estimate(merged, 0),
+                scans, rejected, late, malformed, untracked, passDaysUsed, purchasedDays);
+    }
+
+    //clears the slots the window slides past
+    private void advanceTo(long m) {
+        long from = minute == NONE ? m - MINUTES + 1 : Math.max(minute + 1, m - MINUTES + 1);
+        for (long next = from; next <= m; next++) {
+            int slot = Math.floorMod(next, MINUTES);
+            minuteStamps[slot] = next;
+            Arrays.fill(minuteCounts, slot * MAX_LIFTS, (slot + 1) * MAX_LIFTS, 0);
+            Arrays.fill(minuteRegisters, slot * REGISTERS, (slot + 1) * REGISTERS, (byte) 0);
+        }
+        minute = m;
+
+        long h = Math.floorDiv(m, 60);
+        if (hour == NONE || h > hour) {
+            long fromHour = hour == NONE ? h - 1 : Math.max(hour + 1, h - HOURS + 1);
+            for (long next = fromHour; next <= h; next++) {
+                int slot = Math.floorMod(next, HOURS);
+                hourStamps[slot] = next;
+                Arrays.fill(hourRegisters, slot * REGISTERS, (slot + 1) * REGISTERS, (byte) 0);
+            }
+            hour = h;
+        }
+    }
+
+    //a pass day is counted the first time the pass is scanned on that day
+    private void countPassDay(int passID, int day) {
+        int mask = passKeys.length - 1;
+        int slot = (int) mix(passID) & mask;
+        while (passKeys[slot] != 0 && passKeys[slot] != passID) slot = (slot + 1) & mask;
+        if (passKeys[slot] == 0) {
+            if (passCount == MAX_PASSES) {
+                untracked++;
+                return;
+            }
+            passKeys[slot] = passID;
+            passDays[slot] = day;
+            passCount++;
+            passDaysUsed++;
+        } else if (day > passDays[slot]) {
+            passDays[slot] = day;
+            passDaysUsed++;
+        }
+    }
+
+    //HyperLogLog estimate with the small range correction, within a few percent at 2048 registers
+    private static long estimate(byte[] registers, int offset) {
+        double sum = 0;
+        int zeros = 0;
+        for (int r = 0; r < REGISTERS; r++) {
+            byte b = registers[offset + r];
+            sum += 1.0 / (1L << b);
+            if (b == 0) zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double e = alpha * REGISTERS * REGISTERS / sum;
+        if (e <= 2.5 * REGISTERS && zeros > 0) {
+            e = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(e);
+    }
+
+    private static long mix(int key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+//package ids bucketed by epoch day: arriving that day, departing that day, and in house that night
+//kept in step with the package list, so a day's manifest costs a lookup plus the packages on it
+//a stay is in house every night from its arrival up to the night before its departure
+public class ManifestIndex {
+    public enum Kind {
+        ARRIVALS, DEPARTURES, IN_HOUSE;
+
+        public String label() {
+            return switch (this) {
+                case ARRIVALS -> "Arrivals";
+                case DEPARTURES -> "Departures";
+                case IN_HOUSE -> "In house";
+            };
+        }
+    }
+
+    private final HashMap<Integer, TreeSet<Integer>> arrivals = new HashMap<>();
+    private final HashMap<Integer, TreeSet<Integer>> departures = new HashMap<>();
+    private final HashMap<Integer, TreeSet<Integer>> inHouse = new HashMap<>();
+
+    public void add(int id, int startDay, int days) {
+        arrivals.computeIfAbsent(startDay, d -> new TreeSet<>()).add(id);
+        departures.computeIfAbsent(startDay + days, d -> new TreeSet<>()).add(id);
+        for (int day = startDay; day < startDay + days; day++) {
+            inHouse.computeIfAbsent(day, d -> new TreeSet<>()).add(id);
+        }
+    }
+
+    public void remove(int id, int startDay, int days) {
+        remove(arrivals, startDay, id);
+        remove(departures, startDay + days, id);
+        for (int day = startDay; day < startDay + days; day++) remove(inHouse, day, id);
+    }
+
+    //empty days are dropped so the maps only hold days with someone on them
+    private static void remove(HashMap<Integer, TreeSet<Integer>> buckets, int day, int id) {
+        TreeSet<Integer> ids = buckets.get(day);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) buckets.remove(day);
+    }
+
+    //package ids in order, empty if there are none that day
+    public NavigableSet<Integer> get(Kind kind, int day) {
+        TreeSet<Integer> ids = switch (kind) {
+            case ARRIVALS -> arrivals.get(day);
+            case DEPARTURES -> departures.get(day);
+            case IN_HOUSE -> inHouse.get(day);
+        };
+        return ids == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(ids);
+    }
+
+    public int count(Kind kind, int day) {
+        return get(kind, day).size();
+    }
+}
@@ -1,7 +1,150 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+
 public class MtBullerAdmin {
     public static void main(String[] args) {
-        MtBullerResort mt = new MtBullerResort();
-        mt.populateLists();
-        mt.run();
+        ResortGroup group = createGroup(new Scanner(System.in));
+        List<Autosaver> autosavers = startAutosave(group);
+        startConfirmations(group);
+        if (group.getResorts().size() == 1) {
+            group.getResorts().getFirst().run();
+        } else {
+            group.run();
+        }
+        shutdown(group, autosavers);
     }
-}
\ No newline at end of file
+
+    //resorts come from -Dmtbuller.resorts, a comma separated list of names
+    //-Dmtbuller.store=btree keeps each resort in an on-disk store under -Dmtbuller.store.dir
+    //-Dmtbuller.replication.port=P ships each resort's changes to replicas on port P + its position in the list
+    //-Dmtbuller.replica.of=host:P makes every resort a read-only replica of the primary's resort on the same port
+    //-Dmtbuller.season=MM-dd/MM-dd sets when the lifts run, -Dmtbuller.season.<resort>=... for one resort
+    static ResortGroup createGroup(Scanner input) {
+        ResortGroup group = new ResortGroup(input);
+        boolean onDisk = System.getProperty("mtbuller.store", "memory").equalsIgnoreCase("btree");
+        File storeDir = new File(System.getProperty("mtbuller.store.dir", "resort-data"));
+        String replicaOf = System.getProperty("mtbuller.replica.of");
+        Integer primaryPort = Integer.getInteger("mtbuller.replication.port");
+
+        int position = 0;
+        for (String name : System.getProperty("mtbuller.resorts", "Mount Buller").split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            MtBullerResort resort = group.addResort(name.trim());
+            String season = System.getProperty("mtbuller.season." + slug(resort.getName()), System.getProperty("mtbuller.season"));
+            if (season != null) resort.setSeason(Season.parse(season));
+            if (replicaOf != null) {
+                int colon = replicaOf.lastIndexOf(':');
+                String host = colon < 0 ? "localhost" : replicaOf.substring(0, colon);
+                resort.startReplica(host, Integer.parseInt(replicaOf.substring(colon + 1)) + position++);
+                continue;
+            }
+            try {
+                resort.openRepository(onDisk ? new BTreeRepository(new File(storeDir, slug(resort.getName()))) : new InMemoryRepository());
+            } catch (IOException e) {
+                System.out.println("Could not open the store for " + resort.getName() + ": " + e.getMessage());
+                resort.populateLists();
+            }
+            if (primaryPort != null) {
+                try {
+                    resort.startPrimary(primaryPort + position);
+                } catch (IOException e) {
+                    System.out.println("Replication disabled for " + resort.getName() + ": " + e.getMessage());
+                }
+            }
+            position++;
+        }
+        return group;
+    }
+
+    //flushes autosave and closes every resort's repository
+    static void shutdown(ResortGroup group, List<Autosaver> autosavers) {
+        for (Autosaver autosaver : autosavers) {
+            autosaver.close();
+            if (autosaver.getLastError() != null) System.out.println("Autosave failed: " + autosaver.getLastError());
+        }
+        for (MtBullerResort resort : group.getResorts()) {
+            resort.liftUsage.close();
+            resort.closeReplication();
+            resort.closeConfirmations();
+            if (resort.isReplica()) continue; //its repository only holds the primary's records
+            try {
+                //without autosave, changes are only written to the store here
+                resort.repository.write(resort.changes.drain());
+                resort.repository.close();
+            } catch (IOException e) {
+                System.out.println("Could not close the store for " + resort.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    static String slug(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+    }
+
+    //autosave interval and journal come from -Dmtbuller.autosave.seconds (0 disables) and -Dmtbuller.autosave.file
+    //with several resorts each gets its own journal named after it
+    //a primary flushes every second so replicas stay close behind, without a journal if autosave is disabled
+    static List<Autosaver> startAutosave(ResortGroup group) {
+        ArrayList<Autosaver> autosavers = new ArrayList<>();
+        long interval = Long.getLong("mtbuller.autosave.seconds", 30);
+        if (interval <= 0) {
+            for (MtBullerResort resort : group.getResorts()) {
+                if (resort.primary != null) autosavers.add(resort.autosaveTo(ChangeSink.of(resort.repository, resort.primary), 1));
+            }
+            return autosavers;
+        }
+        String base = System.getProperty("mtbuller.autosave.file", "autosave.journal");
+        boolean perResort = group.getResorts().size() > 1;
+
+        for (MtBullerResort resort : group.getResorts()) {
+            if (resort.isReplica()) {
+                continue;
+            }
+            try {
+                autosavers.add(resort.startAutosave(fileFor(base, resort, perResort), resort.primary == null ? interval : 1));
+            } catch (Exception e) {
+                System.out.println("Autosave disabled for " + resort.getName() + ": " + e.getMessage());
+            }
+        }
+        return autosavers;
+    }
+
+    //with several resorts each gets its own file, named after it
+    static File fileFor(String base, MtBullerResort resort, boolean perResort) {
+        if (!perResort) {
+            return new File(base);
+        }
+        String slug = slug(resort.getName());
+        int dot = base.lastIndexOf('.');
+        return new File(dot < 0 ? base + "-" + slug : base.substring(0, dot) + "-" + slug + base.substring(dot));
+    }
+
+    //booking confirmations queue in -Dmtbuller.outbox.file and are delivered to the local mailbox file
+    //-Dmtbuller.mailbox.file in place of a mail server; -Dmtbuller.confirmations=false turns them off
+    //replicas send none, their primary does
+    static void startConfirmations(ResortGroup group) {
+        if (!Boolean.parseBoolean(System.getProperty("mtbuller.confirmations", "true"))) {
+            return;
+        }
+        String outboxBase = System.getProperty("mtbuller.outbox.file", "confirmations.outbox");
+        String mailboxBase = System.getProperty("mtbuller.mailbox.file", "confirmations.mbox");
+        boolean perResort = group.getResorts().size() > 1;
+        for (MtBullerResort resort : group.getResorts()) {
+            if (resort.isReplica()) {
+                continue;
+            }
+            try {
+                resort.startConfirmations(fileFor(outboxBase, resort, perResort),
+                        ConfirmationTransport.toMailbox(fileFor(mailboxBase, resort, perResort)));
+            } catch (IOException e) {
+                System.out.println("Confirmations disabled for " + resort.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -2,41 +2,142 @@ import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Deflater;
 
 
 public class MtBullerResort {
     ArrayList<Customer> customers = new ArrayList<>();
     ArrayList<Accommodation> accommodations = new ArrayList<>();
+    //id -> record for the two lists above, so lookups and loading don't scan them
+    HashMap<Integer, Customer> customersByID = new HashMap<>();
+    HashMap<Integer, Accommodation> accommodationsByID = new HashMap<>();
+    //in no particular order, removal moves the last package into the gap; packagesByID keeps them in id order
     ArrayList<TravelPackage> packages = new ArrayList<>();
+    //package id -> position in the list above, so packages can be removed without a scan
+    HashMap<Integer, Integer> packageSlots = new HashMap<>();
+    TreeMap<Integer, TravelPackage> packagesByID = new TreeMap<>();
+    //packages ordered by start day then id, see startKey, for date range queries
+    TreeMap<Long, TravelPackage> packagesByStart = new TreeMap<>();
+    //packages ordered by total cost then id, and the key each is filed under, for the sorted listing
+    TreeMap<Long, TravelPackage> packagesByCost = new TreeMap<>();
+    HashMap<Integer, Long> costKeys = new HashMap<>();
+    //customers ordered by name then id, see nameKey, for the sorted listing
+    TreeMap<String, Customer> customersByName = new TreeMap<>();
+    //arrivals, departures and in-house packages per day, for the daily manifest
+    ManifestIndex manifest = new ManifestIndex();
+    //longest stay indexed so far, bounds how far before a date range an overlapping stay can start
+    int longestStay = 1;
+    //column storage backing every accommodation in the list above
+    AccommodationStore inventory = new AccommodationStore();
+    //booked units per type and night, kept in step with the package list
+    OccupancyCounters occupancy = new OccupancyCounters();
+    PriceQuoter quoter = new PriceQuoter(inventory, occupancy, new OccupancyPricing());
+    AccommodationRecommender recommender = new AccommodationRecommender(inventory, quoter);
+    static final int SUGGESTION_COUNT = 5;
+    //results printed before asking to show more, or paging
+    static final int PAGE_SIZE = 20;
+    //menu options that change the resort, refused on a replica
+    static final Set<Integer> WRITE_OPTIONS = Set.of(3, 5, 7, 8, 10, 11, 12, 16);
+    //records touched since the last autosave; the only way changes reach the repository, through the autosave
+    //sink or, with autosave off, at shutdown, so mutators never write to the repository themselves
+    ChangeLog changes = new ChangeLog();
+    //packages cancelled this session, which the repository may still hold until the change log reaches it
+    HashSet<Integer> cancelledIDs = new HashSet<>();
+    //when the lifts run, which sets what a season pass covers and the days lessons are scheduled over
+    Season season = Season.MOUNT_BULLER;
+    //instructor time slots for every package's lessons
+    LessonScheduler lessonScheduler = LessonScheduler.withDefaultRoster(season);
+    //pass validity for the lift gates, kept in step with the package list
+    LiftGateValidator liftGate = new LiftGateValidator();
+    //live lift usage from gate scans, checked against liftGate
+    LiftUsagePipeline liftUsage = new LiftUsagePipeline(liftGate);
+    //customers waiting for a unit to be released
+    Waitlist waitlist = new Waitlist(this);
+    //full record of this resort, the lists above are the working set loaded from it
+    ResortRepository repository = new InMemoryRepository();
+    //ships flushed changes to replicas when this process is the primary
+    ReplicationPrimary primary;
+    //set when this resort is a read-only copy of a primary's, which only changes through applyChanges
+    ReplicationReplica replica;
+    private boolean applying = false;
+    //confirmations for customers, sent in the background; null when they are turned off
+    ConfirmationOutbox outbox;
+    //writes changes out in the background; null until autosave starts
+    Autosaver autosaver;
+
+    //normalized email -> customer, keeps emails unique
+    HashMap<String, Customer> customersByEmail = new HashMap<>();
+    //relink loaded packages to an existing customer with the same email instead of skipping them
+    boolean mergeDuplicateEmails = true;
+
+    String name;
+    Scanner input;
+
+    public MtBullerResort() {
+        this("Mount Buller", new Scanner(System.in));
+    }
+
+    //resorts in a group share one scanner so they don't compete for System.in
+    public MtBullerResort(String name, Scanner input) {
+        this.name = name;
+        this.input = input;
+        inventory.track(changes);
+        inventory.addListener(waitlist);
+        waitlist.setOnAssigned(pkg -> System.out.println("Waitlisted customer assigned: " + pkg));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Season getSeason() {
+        return season;
+    }
 
-    Scanner input = new Scanner(System.in);
+    //only before any package is loaded, their passes and lessons were placed for the old season
+    public void setSeason(Season season) {
+        if (!packages.isEmpty()) {
+            throw new IllegalStateException("The season of " + name + " can't change once packages are loaded.");
+        }
+        liftGate.setSeason(season);
+        lessonScheduler = LessonScheduler.withDefaultRoster(season);
+        this.season = season;
+    }
 
     public void populateLists() {
-        customers.add(new Customer("John", "john@gmail.com", "expert"));
-        customers.add(new Customer("Alice", "alice@yahoo.com", "beginner"));
-        customers.add(new Customer("Bob", "bob@hotmail.com", "intermediate"));
-        customers.add(new Customer("Diana", "diana@outlook.com", "expert"));
-
-        accommodations.add(new Accommodation("hotel", 300));
-        accommodations.add(new Accommodation("apartment", 220));
-        accommodations.add(new Accommodation("lodge", 180));
-        accommodations.add(new Accommodation("cabin", 140));
-        accommodations.add(new Accommodation("hotel", 400));
-        accommodations.add(new Accommodation("apartment", 275));
-        accommodations.add(new Accommodation("lodge", 210));
-        accommodations.add(new Accommodation("cabin", 160));
-        accommodations.add(new Accommodation("hotel", 350));
-        accommodations.add(new Accommodation("apartment", 260));
-
-        packages.add(new TravelPackage(customers.getFirst(), LocalDate.now(), 3));
-        packages.getFirst().attachAccommodation(accommodations.getFirst());
+        registerCustomer(new Customer("John", "john@gmail.com", "expert"));
+        registerCustomer(new Customer("Alice", "alice@yahoo.com", "beginner"));
+        registerCustomer(new Customer("Bob", "bob@hotmail.com", "intermediate"));
+        registerCustomer(new Customer("Diana", "diana@outlook.com", "expert"));
+
+        addAccommodation("hotel", 300);
+        addAccommodation("apartment", 220);
+        addAccommodation("lodge", 180);
+        addAccommodation("cabin", 140);
+        addAccommodation("hotel", 400);
+        addAccommodation("apartment", 275);
+        addAccommodation("lodge", 210);
+        addAccommodation("cabin", 160);
+        addAccommodation("hotel", 350);
+        addAccommodation("apartment", 260);
+
+        createPackage(customers.getFirst(), accommodations.getFirst(), LocalDate.now(), 3);
     }
 
     public void run() {
         boolean running = true;
-        System.out.println("------------ Welcome to Mount Buller Resort! ------------");
+        System.out.println("------------ Welcome to " + name + " Resort! ------------");
+        if (replica != null) System.out.println("This terminal is a " + replica.describe() + ".");
 
         while (running) {
             try {
@@ -50,30 +151,62 @@ public class MtBullerResort {
                 System.out.println("8. Add Lessons to a package");
                 System.out.println("9. Save packages to a file");
                 System.out.println("10. Read packages from a file");
-                System.out.println("11. Quit");
+                System.out.println("11. Join or leave the waitlist");
+                System.out.println("12. Change or cancel a package");
+                System.out.println("13. Lesson schedule");
+                System.out.println("14. Check a lift pass at the gate");
+                System.out.println("15. Lift usage");
+                System.out.println("16. Create a group booking");
+                System.out.println("17. Search accommodations or packages");
+                System.out.println("18. Season analytics from saved package files");
+                System.out.println("19. Replication, confirmation and autosave status");
+                System.out.println("20. Daily manifest");
+                System.out.println("21. Quit");
 
                 System.out.print("\nPlease choose an option: ");
 
                 int option = input.nextInt();
                 input.nextLine(); // consume leftover newline
 
+                //a replica catches up with its primary before every command and only answers read-only ones
+                applyReplicated();
+                if (replica != null && WRITE_OPTIONS.contains(option)) {
+                    System.out.println("This terminal is a read-only replica, make changes on the primary.");
+                    continue;
+                }
+
                 switch (option) {
                     case 1 -> listAllAccommodations();
                     case 2 -> listAvailableAccommodations();
                     case 3 -> addCustomer();
                     case 4 -> listCustomers();
                     case 5 -> addPackage();
-                    case 6 -> listPackages();
+                    case 6 -> listPackagesSorted();
                     case 7 -> addLiftPass();
                     case 8 -> addLessons();
                     case 9 -> writePackages();
                     case 10 -> readPackages();
-                    case 11 -> {
+                    case 11 -> joinWaitlist();
+                    case 12 -> modifyPackage();
+                    case 13 -> lessonSchedule();
+                    case 14 -> checkLiftPass();
+                    case 15 -> liftUsageMenu();
+                    case 16 -> addGroupBooking();
+                    case 17 -> search();
+                    case 18 -> seasonAnalytics();
+                    case 19 -> {
+                        System.out.println("Replication: " + replicationStatus());
+                        System.out.println("Confirmations: " + confirmationStatus());
+                        System.out.println("Autosave: " + autosaveStatus());
+                    }
+                    case 20 -> dailyManifest();
+                    case 21 -> {
                         running = false;
                         System.out.println("Goodbye!");
                     }
                     default -> System.out.println("Invalid option.");
                 }
+                collectChanges();
             } catch (InputMismatchException e) {
                 System.out.println("Invalid input! Please enter a number.");
                 input.nextLine();
@@ -83,63 +216,276 @@ public class MtBullerResort {
 
     public void listCustomers() {
         System.out.println("\n----- Customers -----");
-        for (Customer customer : customers) {
-            System.out.println(customer);
-
-        }
+        browse(this::customersByName);
     }
 
     public void listAllAccommodations() {
         System.out.println("\n----- All Accommodations -----");
-        for (Accommodation accommodation : accommodations) {
-            System.out.println(accommodation);
-        }
+        browse(this::accommodationsByPrice);
     }
 
     public void listAvailableAccommodations() {
         System.out.println("\n----- Available Accommodations -----");
-        boolean foundAvailable = false;
-
-        for (Accommodation accommodation : accommodations) {
-            if (accommodation.isAvailable()) {
-                System.out.println(accommodation);
-                foundAvailable = true;
-            }
-        }
-
-        if (!foundAvailable) {
+        if (printPaged(new AccommodationQuery().available(true).run(inventory)) == 0) {
             System.out.println("There is no available accommodation!");
         }
     }
 
     public int listAccommodationByType(String type) {
         System.out.println("\n----- Available Accommodations (" + type + ") -----");
-        int count = 0;
-        for (Accommodation accommodation : accommodations) {
-            if (accommodation.getType().equalsIgnoreCase(type) && accommodation.isAvailable()) {
-                System.out.println(accommodation);
-                count++;
-            }
-        }
-        if (count == 0) {
+        int shown = printPaged(new AccommodationQuery().type(type).available(true).run(inventory));
+        if (shown == 0) {
             System.out.println("No accommodations found for type: " + type);
         }
-        return count;
+        return shown;
     }
 
     public int listAccommodationByPrice(double price) {
         System.out.println("\n----- Available Accommodations (Max $" + price + ") -----");
-        int count = 0;
-        for (Accommodation accommodation : accommodations) {
-            if (accommodation.getPrice() <= price && accommodation.isAvailable()) {
-                System.out.println(accommodation);
-                count++;
+        int shown = printPaged(new AccommodationQuery().maxPrice(price).available(true).run(inventory));
+        if (shown == 0) {
+            System.out.println("No accommodations found under $" + price);
+        }
+        return shown;
+    }
+
+    //prints results a page at a time, asking before each further page, and returns how many were printed
+    public int printPaged(QueryResult<?> result) {
+        int shown = 0;
+        while (true) {
+            List<?> page = result.nextPage(PAGE_SIZE);
+            page.forEach(System.out::println);
+            shown += page.size();
+            if (page.size() < PAGE_SIZE || !result.hasNext()) {
+                return shown;
+            }
+            System.out.print("Show more? (y/n): ");
+            if (!input.nextLine().trim().equalsIgnoreCase("y")) {
+                return shown;
             }
         }
-        if (count == 0) {
-            System.out.println("No accommodations found under $" + price);
+    }
+
+    //shows a sorted listing a page at a time, moving either way with the page's cursors; false if it is empty
+    public <T> boolean browse(BiFunction<String, Integer, Page<T>> listing) {
+        Page<T> page = listing.apply(null, PAGE_SIZE);
+        if (page.getItems().isEmpty()) {
+            return false;
         }
-        return count;
+        while (true) {
+            page.getItems().forEach(System.out::println);
+            if (!page.hasNext() && !page.hasPrevious()) {
+                return true;
+            }
+            System.out.print((page.hasNext() ? "(n)ext, " : "") + (page.hasPrevious() ? "(p)revious, " : "") + "or Enter to stop: ");
+            String answer = input.nextLine().trim();
+            if (answer.equalsIgnoreCase("n") && page.hasNext()) {
+                page = listing.apply(page.getNext(), PAGE_SIZE);
+            } else if (answer.equalsIgnoreCase("p") && page.hasPrevious()) {
+                page = listing.apply(page.getPrevious(), PAGE_SIZE);
+            } else {
+                return true;
+            }
+        }
+    }
+
+    public Page<Customer> customersByName(String cursor, int size) {
+        return Page.of(customersByName, "customers-by-name", key -> key, cursor, size);
+    }
+
+    public Page<Accommodation> accommodationsByPrice(String cursor, int size) {
+        return Page.of(inventory.unitsByPrice(), "accommodations-by-price", Long::parseLong, cursor, size);
+    }
+
+    public Page<TravelPackage> packagesByDate(String cursor, int size) {
+        return Page.of(packagesByStart, "packages-by-date", Long::parseLong, cursor, size);
+    }
+
+    public Page<TravelPackage> packagesByCost(String cursor, int size) {
+        return Page.of(packagesByCost, "packages-by-cost", Long::parseLong, cursor, size);
+    }
+
+    //who arrives, who leaves and who stays the night on a day, for the morning briefing
+    public void dailyManifest() {
+        LocalDate date = readDate("Manifest date (YYYY-MM-DD) or 'now': ");
+        input.nextLine();
+        for (ManifestIndex.Kind kind : ManifestIndex.Kind.values()) {
+            List<TravelPackage> found = manifest(kind, date);
+            System.out.println("\n----- " + kind.label() + " on " + date + " (" + found.size() + ") -----");
+            for (TravelPackage pkg : found) System.out.println(manifestLine(pkg));
+        }
+    }
+
+    //packages arriving, departing or staying the night on a day, read from the manifest index in package id order
+    public List<TravelPackage> manifest(ManifestIndex.Kind kind, LocalDate date) {
+        Set<Integer> ids = manifest.get(kind, (int) date.toEpochDay());
+        ArrayList<TravelPackage> found = new ArrayList<>(ids.size());
+        for (int id : ids) found.add(findLoadedPackage(id));
+        return found;
+    }
+
+    static String manifestLine(TravelPackage pkg) {
+        Customer c = pkg.getCustomer();
+        Accommodation a = pkg.getAccommodation();
+        return "Package " + pkg.getID() + ": " + c.getName() + " <" + c.getEmail() + ">, "
+                + (a == null ? "no unit" : a.getType() + " unit " + a.getID()) + ", " + pkg.getDate() + " to "
+                + pkg.getDate().plusDays(pkg.getDays()) + (pkg.getHasLiftPass() ? ", lift pass" : "")
+                + (pkg.getHasLessons() ? ", lessons" : "");
+    }
+
+    //aggregates saved package files without loading them, so the resort's own packages are left alone
+    public void seasonAnalytics() {
+        try {
+            System.out.print("Package files, separated by spaces: ");
+            ArrayList<File> files = new ArrayList<>();
+            for (String name : input.nextLine().trim().split("\\s+")) {
+                if (!name.isEmpty()) files.add(new File(name.endsWith(".dat") ? name : name + ".dat"));
+            }
+            if (files.isEmpty()) {
+                System.out.println("No files given.");
+                return;
+            }
+            System.out.print("Group by, comma separated (" + SeasonAnalytics.names(SeasonAnalytics.Dimension.values()) + "): ");
+            List<SeasonAnalytics.Dimension> groups = SeasonAnalytics.parseGroups(input.nextLine());
+            System.out.print("Measure (" + SeasonAnalytics.names(SeasonAnalytics.Measure.values()) + "): ");
+            SeasonAnalytics analytics = new SeasonAnalytics(groups, SeasonAnalytics.Measure.parse(input.nextLine()));
+            System.out.print("CSV file to write (blank to show here): ");
+            String output = input.nextLine().trim();
+
+            long start = System.nanoTime();
+            if (output.isEmpty()) {
+                Writer out = new OutputStreamWriter(System.out);
+                analytics.run(files, out);
+            } else {
+                try (Writer out = new BufferedWriter(new FileWriter(output))) {
+                    analytics.run(files, out);
+                }
+                System.out.println("Results written to " + output);
+            }
+            System.out.printf("%d packages from %d files in %d ms%s%n", analytics.getPackages(), files.size(),
+                    (System.nanoTime() - start) / 1_000_000,
+                    analytics.getSkipped() == 0 ? "" : ", " + analytics.getSkipped() + " skipped");
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (ClassNotFoundException e) {
+            System.out.println("Error reading packages: " + e.getMessage());
+        }
+    }
+
+    //combines any of the filters, leaving a prompt blank skips that filter
+    public void search() {
+        System.out.println("1. Search accommodations");
+        System.out.println("2. Search packages");
+        System.out.print("Enter option: ");
+        try {
+            int option = input.nextInt();
+            input.nextLine();
+            if (option == 1) {
+                AccommodationQuery query = new AccommodationQuery();
+                System.out.print("Type (blank for any): ");
+                String type = input.nextLine().trim();
+                if (!type.isEmpty()) query.type(type);
+                System.out.print("Price range, e.g. 150-300 (blank for any): ");
+                String range = input.nextLine().trim();
+                if (!range.isEmpty()) {
+                    String[] bounds = range.split("-", 2);
+                    query.priceBetween(Double.parseDouble(bounds[0].trim()),
+                            bounds.length > 1 && !bounds[1].isBlank() ? Double.parseDouble(bounds[1].trim()) : Double.MAX_VALUE);
+                }
+                System.out.print("Available or booked (a/b, blank for both): ");
+                String status = input.nextLine().trim();
+                if (!status.isEmpty()) query.available(status.equalsIgnoreCase("a"));
+
+                QueryResult<Accommodation> result = query.run(inventory);
+                System.out.println("\n----- Accommodations (" + query + ") -----");
+                if (printPaged(result) == 0) System.out.println("No accommodations match.");
+            } else if (option == 2) {
+                PackageQuery query = new PackageQuery();
+                System.out.print("Staying between two dates, e.g. 2026-07-01 2026-07-14 (blank for any): ");
+                String[] dates = input.nextLine().trim().split("\\s+");
+                if (!dates[0].isEmpty()) {
+                    LocalDate from = LocalDate.parse(dates[0]);
+                    query.staying(from, dates.length > 1 ? LocalDate.parse(dates[1]) : from);
+                }
+                System.out.print("Skill level (blank for any): ");
+                String skill = input.nextLine().trim();
+                if (!skill.isEmpty()) query.skill(SkillLevel.parse(skill));
+                System.out.print("Accommodation type (blank for any): ");
+                String type = input.nextLine().trim();
+                if (!type.isEmpty()) query.type(type);
+                System.out.print("Has a lift pass (y/n, blank for either): ");
+                String pass = input.nextLine().trim();
+                if (!pass.isEmpty()) query.withLiftPass(pass.equalsIgnoreCase("y"));
+                System.out.print("Has lessons (y/n, blank for either): ");
+                String lessons = input.nextLine().trim();
+                if (!lessons.isEmpty()) query.withLessons(lessons.equalsIgnoreCase("y"));
+
+                QueryResult<TravelPackage> result = query.run(this);
+                System.out.println("\n----- Packages (" + query + ") -----");
+                if (printPaged(result) == 0) System.out.println("No packages match.");
+            } else {
+                System.out.println("Invalid option.");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format! Use YYYY-MM-DD.");
+        }
+    }
+
+    //prompts for a budget and prints the cheapest units that fit
+    public int suggestAccommodations() {
+        double budget = -1;
+        while (budget <= 0) {
+            try {
+                System.out.print("Enter total budget for the stay (must be > 0): ");
+                budget = input.nextDouble();
+                input.nextLine();
+                if (budget <= 0) {
+                    System.out.println("Budget must be greater than 0. Try again.");
+                }
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a number.");
+                input.nextLine();
+                budget = -1;
+            }
+        }
+
+        int days = -1;
+        while (days <= 0) {
+            try {
+                System.out.print("Enter number of days: ");
+                days = input.nextInt();
+                input.nextLine();
+                if (days <= 0) {
+                    System.out.println("Number of days must be positive!");
+                }
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a valid number.");
+                input.nextLine();
+                days = -1;
+            }
+        }
+
+        LocalDate date = readDate();
+        input.nextLine();
+
+        System.out.print("Preferred types, comma separated (blank for any): ");
+        String typeInput = input.nextLine().trim();
+        List<String> types = typeInput.isEmpty() ? List.of() : List.of(typeInput.split(","));
+
+        List<Accommodation> suggestions = recommender.suggest(budget, types, date, days, SUGGESTION_COUNT);
+        System.out.println("\n----- Suggested Accommodations ($" + budget + " for " + days + " days from " + date + ") -----");
+        for (Accommodation accommodation : suggestions) {
+            System.out.printf("%s  stay: $%.2f%n", accommodation, quoter.nightlyRate(accommodation, date, days) * days);
+        }
+        if (suggestions.isEmpty()) {
+            System.out.println("No accommodations fit that budget.");
+        }
+        return suggestions.size();
     }
 
     public void addCustomer() {
@@ -166,8 +512,13 @@ public class MtBullerResort {
                     throw new IllegalArgumentException("Skill level must be Beginner, Intermediate, or Expert.");
                 }
 
+                //emails must be unique
+                if (searchCustomerByEmail(email) != null) {
+                    throw new IllegalArgumentException("A customer with that email already exists.");
+                }
+
                 Customer newCustomer = new Customer(name, email, skillLevel);
-                customers.add(newCustomer);
+                registerCustomer(newCustomer);
 
                 System.out.println("\nCustomer added successfully: " + newCustomer);
                 valid = true;
@@ -183,12 +534,20 @@ public class MtBullerResort {
 
     public void listPackages() {
         System.out.println("\n----- Packages -----");
-        if (packages.isEmpty())
+        if (!browse(this::packagesByDate)) {
+            System.out.println("There are no packages.");
+        }
+    }
+
+    public void listPackagesSorted() {
+        System.out.print("Sort by (d)ate or total (c)ost? ");
+        if (!input.nextLine().trim().equalsIgnoreCase("c")) {
+            listPackages();
+            return;
+        }
+        System.out.println("\n----- Packages by Total Cost -----");
+        if (!browse(this::packagesByCost)) {
             System.out.println("There are no packages.");
-        else {
-            for (TravelPackage pkg : packages) {
-                System.out.println(pkg);
-            }
         }
     }
 
@@ -212,7 +571,7 @@ public class MtBullerResort {
                 String type = input.nextLine().trim();
 
                 if (type.equalsIgnoreCase("Season")) {
-                    pass = new LiftPass("Season", 0);
+                    pass = new LiftPass(LiftPassType.SEASON, 0);
                     break; // valid input, exit loop
 
                 } else if (type.equalsIgnoreCase("Daily")) {
@@ -223,7 +582,7 @@ public class MtBullerResort {
                         throw new IllegalArgumentException("Days must be greater than 0.");
                     }
 
-                    pass = new LiftPass("Daily", days);
+                    pass = new LiftPass(LiftPassType.DAILY, days);
                     break; // valid input, exit loop
 
                 } else {
@@ -240,7 +599,7 @@ public class MtBullerResort {
         }
 
         //attach to the package
-        selectedPkg.setLiftPass(pass);
+        addLiftPass(selectedPkg, pass);
         System.out.println("Lift pass added successfully!");
         System.out.println(selectedPkg);
     }
@@ -251,8 +610,8 @@ public class MtBullerResort {
             return;
         }
 
-        String level = selectedPkg.getCustomer().getSkillLevel();
-        System.out.printf("The selected customer has skill level '%s'. Lessons will be $%.0f each.\n", level, Lessons.lessonPrice(level));
+        SkillLevel level = selectedPkg.getCustomer().getSkill();
+        System.out.printf("The selected customer has skill level '%s'. Lessons will be $%.0f each.\n", level.label(), level.lessonPrice());
 
         System.out.print("Enter number of lessons: ");
         int count = -1;
@@ -270,13 +629,117 @@ public class MtBullerResort {
             }
         }
 
-        Lessons lessons = new Lessons(level, count);
-
-        // attach to the package
-        selectedPkg.setLessons(lessons);
+        // schedule and attach to the package
+        try {
+            bookLessons(selectedPkg, count);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
 
         System.out.println("Lessons added successfully!");
         System.out.println(selectedPkg);
+        lessonScheduler.describe(selectedPkg.getID()).forEach(line -> System.out.println("   " + line));
+    }
+
+    public void checkLiftPass() {
+        try {
+            System.out.print("Enter package number on the pass: ");
+            int id = input.nextInt();
+            input.nextLine();
+            LocalDate date = readDate();
+            input.nextLine();
+            System.out.println(liftGate.isValid(id, date)
+                    ? "Pass " + id + " is valid on " + date + "."
+                    : "Pass " + id + " is NOT valid on " + date + ".");
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        }
+    }
+
+    public void liftUsageMenu() {
+        System.out.println("1. Show current lift usage");
+        System.out.println("2. Replay a gate scan file");
+        System.out.println(liftUsage.isListening() ? "3. Stop listening for gate scans" : "3. Listen for gate scans on a port");
+        System.out.println("4. Export lift usage to a CSV file");
+        System.out.print("Enter option: ");
+        try {
+            int option = input.nextInt();
+            input.nextLine();
+            switch (option) {
+                case 1 -> System.out.print(liftUsage.describe());
+                case 2 -> {
+                    System.out.print("Enter scan file name: ");
+                    File file = new File(input.nextLine().trim());
+                    liftUsage.replay(file).get();
+                    System.out.print(liftUsage.describe());
+                }
+                case 3 -> {
+                    if (liftUsage.isListening()) {
+                        liftUsage.stopListening();
+                        System.out.println("Stopped listening.");
+                    } else {
+                        System.out.print("Enter port: ");
+                        int port = input.nextInt();
+                        input.nextLine();
+                        liftUsage.listen(port);
+                        System.out.println("Listening for gate scans on port " + port + ".");
+                    }
+                }
+                case 4 -> {
+                    System.out.print("Enter CSV file name: ");
+                    String name = input.nextLine().trim();
+                    liftUsage.exportTo(new File(name));
+                    System.out.println("Lift usage is being appended to " + name + ".");
+                }
+                default -> System.out.println("Invalid option.");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        } catch (ExecutionException e) {
+            System.out.println("Error reading scans: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void lessonSchedule() {
+        System.out.println("1. List instructors");
+        System.out.println("2. Show a package's lessons");
+        System.out.println("3. Re-optimise the whole schedule");
+        System.out.print("Enter option: ");
+        try {
+            int option = input.nextInt();
+            input.nextLine();
+            switch (option) {
+                case 1 -> lessonScheduler.getInstructors().forEach(System.out::println);
+                case 2 -> {
+                    System.out.print("Enter package number: ");
+                    int id = input.nextInt();
+                    input.nextLine();
+                    List<String> lines = lessonScheduler.describe(id);
+                    if (lines.isEmpty()) System.out.println("Package " + id + " has no scheduled lessons.");
+                    lines.forEach(System.out::println);
+                }
+                case 3 -> {
+                    if (replica != null) {
+                        System.out.println("This terminal is a read-only replica, re-optimise on the primary.");
+                        return;
+                    }
+                    List<Integer> unplaced = lessonScheduler.reoptimize();
+                    System.out.println(unplaced.isEmpty() ? "All lessons rescheduled."
+                            : "Could not reschedule lessons for packages " + unplaced);
+                }
+                default -> System.out.println("Invalid option.");
+            }
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        }
     }
 
     public void addPackage() {
@@ -292,21 +755,7 @@ public class MtBullerResort {
             return;
         }
 
-        LocalDate travelDate = null;
-        while (travelDate == null) {
-            System.out.print("Enter travel date (YYYY-MM-DD) or 'now': ");
-            String dateInput = input.next().trim();
-
-            if (dateInput.equalsIgnoreCase("now")) {
-                travelDate = LocalDate.now();
-            } else {
-                try {
-                    travelDate = LocalDate.parse(dateInput);
-                } catch (DateTimeParseException e) {
-                    System.out.println("Invalid date format! Please try again.");
-                }
-            }
-        }
+        LocalDate travelDate = readDate();
 
         int days = -1;
         while (days < 0) {
@@ -317,9 +766,7 @@ public class MtBullerResort {
                 input.nextLine();
 
                 if (days > 0) {
-                    TravelPackage newPackage = new TravelPackage(selectedCustomer, travelDate, days);
-                    newPackage.attachAccommodation(selectedAccommodation);
-                    packages.add(newPackage);
+                    TravelPackage newPackage = createPackage(selectedCustomer, selectedAccommodation, travelDate, days);
 
                     System.out.println("Package created successfully!");
                     System.out.println(newPackage);
@@ -335,6 +782,217 @@ public class MtBullerResort {
         }
     }
 
+    //collects the members first, then books them all at once or not at all
+    public void addGroupBooking() {
+        try {
+            LocalDate date = readDate();
+            System.out.print("Enter number of days: ");
+            int days = input.nextInt();
+            input.nextLine();
+            GroupBooking group = new GroupBooking(date, days);
+
+            listCustomers();
+            while (true) {
+                System.out.print("Enter customer ID to add (0 to finish): ");
+                int id = input.nextInt();
+                input.nextLine();
+                if (id == 0) {
+                    break;
+                }
+                Customer c = searchCustomerByID(id);
+                if (c == null) {
+                    System.out.println("Customer not found! Please try again.");
+                    continue;
+                }
+                System.out.print("Accommodation type (blank for any): ");
+                String type = input.nextLine().trim();
+                System.out.print("Maximum price per night (blank for no limit): ");
+                String max = input.nextLine().trim();
+                System.out.print("Lift pass (None/Daily/Season): ");
+                String pass = input.nextLine().trim();
+                System.out.print("Number of lessons (0 for none): ");
+                int lessons = input.nextInt();
+                input.nextLine();
+                group.addMember(c, type.isEmpty() ? null : type, max.isEmpty() ? Double.MAX_VALUE : Double.parseDouble(max),
+                        pass.isEmpty() || pass.equalsIgnoreCase("none") ? null : LiftPassType.parse(pass), lessons);
+            }
+            if (group.size() == 0) {
+                System.out.println("Action cancelled.");
+                return;
+            }
+
+            List<TravelPackage> booked = bookGroup(group);
+            System.out.println("Group booked: " + booked.size() + " packages.");
+            booked.forEach(System.out::println);
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage() + " Nothing was booked.");
+        }
+    }
+
+    public LocalDate readDate() {
+        return readDate("Enter travel date (YYYY-MM-DD) or 'now': ");
+    }
+
+    public LocalDate readDate(String prompt) {
+        LocalDate travelDate = null;
+        while (travelDate == null) {
+            System.out.print(prompt);
+            String dateInput = input.next().trim();
+
+            if (dateInput.equalsIgnoreCase("now")) {
+                travelDate = LocalDate.now();
+            } else {
+                try {
+                    travelDate = LocalDate.parse(dateInput);
+                } catch (DateTimeParseException e) {
+                    System.out.println("Invalid date format! Please try again.");
+                }
+            }
+        }
+        return travelDate;
+    }
+
+    //queues a customer for the next released unit matching their type and price band, or takes them off the waitlist
+    public void joinWaitlist() {
+        List<WaitlistRequest> waiting = waitlist.waiting();
+        if (!waiting.isEmpty()) {
+            System.out.println("Currently waiting:");
+            waiting.forEach(System.out::println);
+        }
+
+        Customer customer = selectCustomer();
+        if (customer == null) {
+            return;
+        }
+        if (waitlist.isWaiting(customer)) {
+            System.out.print(customer.getName() + " is already on the waitlist. Leave it? (y/n): ");
+            if (input.nextLine().trim().equalsIgnoreCase("y")) {
+                waitlist.leave(customer);
+                System.out.println("Removed from the waitlist.");
+            }
+            return;
+        }
+
+        System.out.print("Enter type (Hotel/Lodge/Apartment/Cabin) or blank for any: ");
+        String type = input.nextLine().trim();
+        if (type.isEmpty()) {
+            type = null;
+        } else if (inventory.typeCode(type) < 0) {
+            System.out.println("Unknown accommodation type: " + type);
+            return;
+        }
+
+        PriceBand[] bands = PriceBand.values();
+        for (int i = 0; i < bands.length; i++) {
+            System.out.println((i + 1) + ". " + bands[i]);
+        }
+        try {
+            System.out.print("Choose a price band: ");
+            int band = input.nextInt();
+            input.nextLine();
+            if (band < 1 || band > bands.length) {
+                System.out.println("Invalid price band.");
+                return;
+            }
+
+            LocalDate date = readDate();
+            System.out.print("Enter number of days: ");
+            int days = input.nextInt();
+            System.out.print("Enter priority tier (1 = highest, 3 = standard): ");
+            int tier = input.nextInt();
+            input.nextLine();
+            if (tier < 1 || tier > 3) {
+                System.out.println("Tier must be between 1 and 3.");
+                return;
+            }
+
+            WaitlistRequest request = waitlist.join(customer, type, bands[band - 1], date, days, tier);
+            System.out.println("Added to the waitlist: " + request);
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void modifyPackage() {
+        listPackages();
+        if (packages.isEmpty()) {
+            return;
+        }
+        try {
+            System.out.print("Enter package number (or 0 to exit): ");
+            int choice = input.nextInt();
+            input.nextLine();
+            if (choice == 0) {
+                System.out.println("Action cancelled.");
+                return;
+            }
+            TravelPackage pkg = searchPackageByID(choice);
+            if (pkg == null) {
+                System.out.println("Package not found!");
+                return;
+            }
+            modifyPackage(pkg);
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        }
+    }
+
+    //the change menu for one package of this resort, also reached from the group menu by package id
+    public void modifyPackage(TravelPackage pkg) {
+        try {
+            System.out.println("1. Cancel the package");
+            System.out.println("2. Change dates");
+            System.out.println("3. Change accommodation");
+            System.out.println("4. Remove the Lift Pass");
+            System.out.println("5. Remove the Lessons");
+            System.out.print("Enter option: ");
+            int option = input.nextInt();
+            input.nextLine();
+
+            switch (option) {
+                case 1 -> {
+                    cancelPackage(pkg);
+                    System.out.println("Package " + pkg.getID() + " cancelled.");
+                    return;
+                }
+                case 2 -> {
+                    LocalDate date = readDate();
+                    System.out.print("Enter number of days: ");
+                    int days = input.nextInt();
+                    input.nextLine();
+                    changeDates(pkg, date, days);
+                }
+                case 3 -> {
+                    Accommodation unit = selectAccommodation();
+                    if (unit == null) {
+                        return;
+                    }
+                    changeAccommodation(pkg, unit);
+                }
+                case 4 -> removeLiftPass(pkg);
+                case 5 -> removeLessons(pkg);
+                default -> {
+                    System.out.println("Invalid option.");
+                    return;
+                }
+            }
+            System.out.println("Package updated successfully!");
+            System.out.println(pkg);
+        } catch (InputMismatchException e) {
+            System.out.println("Invalid input! Please enter a valid number.");
+            input.nextLine();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
     //save packages with name input
     public void writePackages() {
         System.out.print("Enter the file name (blank for packages.dat): ");
@@ -365,10 +1023,26 @@ public class MtBullerResort {
             }
         }
 
-        try (FileOutputStream fos = new FileOutputStream(fileName);
-             ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+        int level = Deflater.DEFAULT_COMPRESSION;
+        while (true) {
+            System.out.print("Compression level (0 = none, 1-9, blank for default): ");
+            String levelInput = input.nextLine().trim();
+            if (levelInput.isEmpty()) {
+                break;
+            }
+            try {
+                level = Integer.parseInt(levelInput);
+                if (level >= 0 && level <= 9) {
+                    break;
+                }
+            } catch (NumberFormatException e) {
+                //fall through to the message below
+            }
+            System.out.println("Please enter a number from 0 to 9.");
+        }
 
-            oos.writeObject(packages);
+        try {
+            SaveFile.writeSegments(packages, file, level);
             System.out.println("Packages saved successfully to " + fileName);
 
         } catch (Exception e) {
@@ -378,8 +1052,6 @@ public class MtBullerResort {
 
     //read packages with name input
     public void readPackages() {
-        //clear existing packages before loading from file
-        packages.clear();
         System.out.print("Enter the file name (blank for packages.dat): ");
         String name = input.nextLine().trim().toLowerCase();
 
@@ -396,25 +1068,10 @@ public class MtBullerResort {
             return;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(f))) {
-            packages = (ArrayList<TravelPackage>) ois.readObject();
-
+        try {
             //update customer and accommodation status after loading packages
-
-            for (TravelPackage pkg : packages) {
-                Customer c = searchCustomerByID(pkg.getCustomer().getID());
-                if (c != null) {
-                    c.setHasPackage();
-                } else {
-                    //add customer if not in current list (does not replace existing id)
-                    Customer newCustomer = pkg.getCustomer();
-                    newCustomer.setHasPackage();
-                    customers.add(newCustomer);
-                    System.out.println("Added customer: " + newCustomer);
-                }
-
-                Accommodation a = searchAccommodationByID(pkg.getAccommodation().getID());
-                if (a != null) a.setAvailable(false);
+            for (String note : loadPackages(f)) {
+                System.out.println(note);
             }
             System.out.println("Packages loaded from " + f.getName());
             listPackages();
@@ -425,6 +1082,603 @@ public class MtBullerResort {
         }
     }
 
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public Customer searchCustomerByEmail(String email) {
+        return customersByEmail.get(normalizeEmail(email));
+    }
+
+    //switches to a repository, seeding it when empty and otherwise loading customers, units and current packages
+    public void openRepository(ResortRepository repo) throws IOException {
+        repository = repo;
+        if (repo.isEmpty()) {
+            populateLists();
+            return;
+        }
+        if (repo instanceof BTreeRepository btree) {
+            btree.reserveIDs();
+        }
+        for (Customer c : repo.allCustomers()) {
+            if (findLoadedCustomer(c.getID()) == null) loadCustomer(c);
+        }
+        for (Accommodation a : repo.allAccommodations()) {
+            if (findLoadedAccommodation(a.getID()) == null) loadAccommodation(a);
+        }
+        //older packages stay on disk until searched for
+        for (TravelPackage pkg : repo.findPackagesDepartingFrom(LocalDate.now())) {
+            if (findLoadedPackage(pkg.getID()) == null) loadPackage(pkg);
+        }
+        changes.drain(); //nothing loaded here has changed
+    }
+
+    //replicas refuse changes other than the primary's
+    private void checkWritable() {
+        if (replica != null && !applying) {
+            throw new IllegalStateException(name + " is a read-only replica.");
+        }
+    }
+
+    public boolean isReplica() {
+        return replica != null;
+    }
+
+    //listens for replicas on a loopback port; the autosaver ships each flush to them
+    public void startPrimary(int port) throws IOException {
+        primary = new ReplicationPrimary(this, port);
+    }
+
+    //follows a primary instead of opening a repository, starting empty until its snapshot arrives
+    public void startReplica(String host, int port) {
+        replica = new ReplicationReplica(this, host, port);
+        replica.start();
+    }
+
+    //applies whatever the primary has sent since the last call, on the calling thread; 0 if this isn't a replica
+    public int applyReplicated() {
+        return replica == null ? 0 : replica.applyPending();
+    }
+
+    public void closeReplication() {
+        if (primary != null) primary.close();
+        if (replica != null) replica.close();
+    }
+
+    public String replicationStatus() {
+        if (primary != null) return primary.describe();
+        if (replica != null) return replica.describe();
+        return "not replicating";
+    }
+
+    //booking events from here on queue a confirmation in the outbox file, sent through the transport
+    public ConfirmationOutbox startConfirmations(File outboxFile, ConfirmationTransport transport) throws IOException {
+        if (replica != null) {
+            throw new IllegalStateException("A replica doesn't send confirmations, its primary does.");
+        }
+        outbox = new ConfirmationOutbox(outboxFile, name, transport);
+        return outbox;
+    }
+
+    public void closeConfirmations() {
+        if (outbox != null) outbox.close();
+    }
+
+    public String confirmationStatus() {
+        return outbox == null ? "not sending" : outbox.describe();
+    }
+
+    //records replayed from a journal or a primary were confirmed where they were made
+    private void confirm(ConfirmationMessage.Kind kind, TravelPackage pkg) {
+        if (outbox != null && !applying) outbox.enqueue(kind, pkg);
+    }
+
+    //creates a unit in the inventory store
+    public Accommodation addAccommodation(String type, double price) {
+        checkWritable();
+        Accommodation a = inventory.add(type, price);
+        accommodations.add(a);
+        accommodationsByID.put(a.getID(), a);
+        return a;
+    }
+
+    //adds a customer, rejecting an email that is already registered
+    public void registerCustomer(Customer customer) {
+        checkWritable();
+        String key = normalizeEmail(customer.getEmail());
+        if (customersByEmail.containsKey(key)) {
+            throw new IllegalArgumentException("A customer with email " + customer.getEmail() + " already exists.");
+        }
+        loadCustomer(customer);
+    }
+
+    //moves a customer to a new email, keeping emails unique
+    public void changeEmail(Customer customer, String email) {
+        checkWritable();
+        if (findLoadedCustomer(customer.getID()) != customer) {
+            throw new IllegalArgumentException("Customer " + customer.getID() + " is not registered at " + name + ".");
+        }
+        String key = normalizeEmail(email);
+        Customer owner = customersByEmail.get(key);
+        if (owner != null && owner != customer) {
+            throw new IllegalArgumentException("A customer with email " + email + " already exists.");
+        }
+        customersByEmail.remove(normalizeEmail(customer.getEmail()), customer);
+        customersByEmail.put(key, customer);
+        customer.setEmail(email);
+    }
+
+    //adds records to the working set without writing them back to the repository
+    //a stored customer whose email a loaded one already has is still loaded, so it can be found by id; the email
+    //index keeps the customer that had the address first
+    private void loadCustomer(Customer customer) {
+        customersByEmail.putIfAbsent(normalizeEmail(customer.getEmail()), customer);
+        customersByName.put(nameKey(customer), customer);
+        customers.add(customer);
+        customersByID.put(customer.getID(), customer);
+        Customer.reserveID(customer.getID());
+        customer.track(changes);
+    }
+
+    private void loadAccommodation(Accommodation accommodation) {
+        Accommodation.reserveID(accommodation.getID());
+        inventory.adopt(accommodation);
+        accommodations.add(accommodation);
+        accommodationsByID.put(accommodation.getID(), accommodation);
+    }
+
+    private void loadPackage(TravelPackage pkg) {
+        Customer c = searchCustomerByID(pkg.getCustomer().getID());
+        if (c != null) pkg.setCustomer(c);
+        if (pkg.getAccommodation() != null) {
+            Accommodation a = searchAccommodationByID(pkg.getAccommodation().getID());
+            if (a != null) pkg.setAccommodation(a);
+        }
+        addToList(pkg);
+        TravelPackage.reserveID(pkg.getID());
+        pkg.track(changes);
+    }
+
+    //books a unit for a customer, both must belong to this resort
+    public TravelPackage createPackage(Customer customer, Accommodation accommodation, LocalDate date, int days) {
+        checkWritable();
+        if (customer.inPackage()) {
+            throw new IllegalArgumentException("Customer already has a package.");
+        }
+        if (!accommodation.isAvailable()) {
+            throw new IllegalArgumentException("Accommodation is not available.");
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive.");
+        }
+        TravelPackage pkg = new TravelPackage(customer, date, days);
+        pkg.setNightlyRate(quoter.nightlyRate(accommodation, date, days));
+        pkg.attachAccommodation(accommodation);
+        registerPackage(pkg);
+        //a customer booked directly stops waiting, so a later cancellation doesn't revive the old request
+        waitlist.leave(customer);
+        confirm(ConfirmationMessage.Kind.BOOKED, pkg);
+        return pkg;
+    }
+
+    //books every member of a group or none of them: units are picked and lessons scheduled before anything is
+    //committed, then the packages go into the lists and the change log as one batch
+    //the whole group is quoted at the occupancy from before the booking
+    public List<TravelPackage> bookGroup(GroupBooking group) {
+        checkWritable();
+        if (group.size() == 0) {
+            throw new IllegalArgumentException("The group has no members.");
+        }
+        LocalDate date = group.getDate();
+        int days = group.getDays();
+        HashSet<Customer> seen = new HashSet<>();
+        HashSet<Accommodation> picked = new HashSet<>();
+        ArrayList<Accommodation> units = new ArrayList<>();
+        for (GroupBooking.Member m : group.getMembers()) {
+            Customer c = m.getCustomer();
+            if (searchCustomerByID(c.getID()) != c) {
+                throw new IllegalArgumentException("Customer " + c.getID() + " is not registered at " + name + ".");
+            }
+            if (c.inPackage()) {
+                throw new IllegalArgumentException(c.getName() + " already has a package.");
+            }
+            if (!seen.add(c)) {
+                throw new IllegalArgumentException(c.getName() + " is in the group twice.");
+            }
+            Accommodation unit = m.getUnit();
+            if (unit == null) {
+                unit = inventory.cheapestAvailable(m.getType(), m.getMaxPrice(), picked);
+                if (unit == null) {
+                    throw new IllegalArgumentException(String.format("No available %s at or under $%.2f for %s.",
+                            m.getType() == null ? "accommodation" : m.getType(), m.getMaxPrice(), c.getName()));
+                }
+            } else if (searchAccommodationByID(unit.getID()) != unit || !unit.isAvailable() || picked.contains(unit)) {
+                throw new IllegalArgumentException("Accommodation " + unit.getID() + " is not available.");
+            }
+            picked.add(unit);
+            units.add(unit);
+        }
+
+        //quotes, passes and lessons go on before any package is visible, so a failure leaves nothing behind
+        ArrayList<TravelPackage> created = new ArrayList<>();
+        ArrayList<Lessons> lessons = new ArrayList<>();
+        try {
+            for (int i = 0; i < units.size(); i++) {
+                GroupBooking.Member m = group.getMembers().get(i);
+                TravelPackage pkg = new TravelPackage(m.getCustomer(), date, days);
+                created.add(pkg);
+                pkg.setNightlyRate(quoter.nightlyRate(units.get(i), date, days));
+                if (m.getPassType() != null) {
+                    pkg.setLiftPass(new LiftPass(m.getPassType(), m.getPassType() == LiftPassType.SEASON ? 0 : days));
+                }
+                Lessons booked = null;
+                if (m.getLessons() > 0) {
+                    booked = new Lessons(m.getCustomer().getSkill(), m.getLessons());
+                    lessonScheduler.book(pkg.getID(), booked.getLevel(), booked.getCount(), date, days);
+                }
+                lessons.add(booked);
+            }
+        } catch (IllegalArgumentException e) {
+            for (TravelPackage pkg : created) {
+                lessonScheduler.release(pkg.getID());
+                pkg.getCustomer().clearPackage();
+            }
+            throw e;
+        }
+
+        for (int i = 0; i < created.size(); i++) {
+            TravelPackage pkg = created.get(i);
+            pkg.attachAccommodation(units.get(i));
+            addToList(pkg);
+            //already scheduled above
+            if (lessons.get(i) != null) pkg.setLessons(lessons.get(i));
+            indexCost(pkg);
+            pkg.track(changes);
+            waitlist.leave(pkg.getCustomer());
+        }
+        for (TravelPackage pkg : created) confirm(ConfirmationMessage.Kind.BOOKED, pkg);
+        return created;
+    }
+
+    //total cost of every package booked here
+    public double revenue() {
+        double total = 0;
+        for (TravelPackage pkg : packages) {
+            total += pkg.getTotalCost();
+        }
+        return total;
+    }
+
+    //adds a package and tracks its changes for autosave
+    public void registerPackage(TravelPackage pkg) {
+        addToList(pkg);
+        TravelPackage.reserveID(pkg.getID());
+        pkg.track(changes);
+    }
+
+    //removes the package, frees the customer and releases the unit, which then goes to the waitlist if someone wants it
+    public void cancelPackage(TravelPackage pkg) {
+        checkWritable();
+        checkLoaded(pkg);
+        dropPackage(pkg, true);
+        confirm(ConfirmationMessage.Kind.CANCELLED, pkg);
+        assignReleased();
+    }
+
+    //takes the package out of the working set and frees its customer and unit; deleted also marks it for deletion
+    //from the repository, which a package about to be replaced by one with the same id must skip
+    private void dropPackage(TravelPackage pkg, boolean deleted) {
+        removeFromList(pkg);
+        if (deleted) {
+            changes.markCancelled(pkg);
+            cancelledIDs.add(pkg.getID());
+        }
+        pkg.getCustomer().clearPackage();
+        Accommodation unit = pkg.getAccommodation();
+        if (unit != null) unit.setAvailable(true);
+    }
+
+    public void changeDates(TravelPackage pkg, LocalDate date, int days) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive.");
+        }
+        Lessons lessons = pkg.getLessons();
+        if (lessons != null && lessons.getLevel() != null) {
+            //move the lessons into the new stay, or keep the old schedule if they don't fit
+            lessonScheduler.release(pkg.getID());
+            if (!lessonScheduler.tryBook(pkg.getID(), lessons.getLevel(), lessons.getCount(), date, days)) {
+                lessonScheduler.tryBook(pkg.getID(), lessons.getLevel(), lessons.getCount(), pkg.getDate(), pkg.getDays());
+                throw new IllegalArgumentException("The lessons can't be scheduled in the new dates.");
+            }
+        }
+        //the stay is requoted without counting itself
+        release(pkg);
+        unindexStart(pkg);
+        pkg.setDate(date);
+        pkg.setDays(days);
+        indexStart(pkg);
+        if (pkg.getAccommodation() != null) pkg.setNightlyRate(quoter.nightlyRate(pkg.getAccommodation(), date, days));
+        indexCost(pkg);
+        book(pkg);
+        liftGate.sync(pkg);
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+    }
+
+    //reserves the new unit before releasing the old one; the unit must be one of this resort's
+    public void changeAccommodation(TravelPackage pkg, Accommodation unit) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (searchAccommodationByID(unit.getID()) != unit) {
+            throw new IllegalArgumentException("Accommodation " + unit.getID() + " does not belong to " + name + ".");
+        }
+        if (!unit.isAvailable()) {
+            throw new IllegalArgumentException("Accommodation is not available.");
+        }
+        Accommodation old = pkg.getAccommodation();
+        release(pkg);
+        pkg.setNightlyRate(quoter.nightlyRate(unit, pkg.getDate(), pkg.getDays()));
+        pkg.attachAccommodation(unit);
+        indexCost(pkg);
+        book(pkg);
+        if (old != null) old.setAvailable(true);
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+        assignReleased();
+    }
+
+    //offers units freed by the operation that just finished to the waitlist; applied records were assigned where
+    //they were made, so units they free are left alone
+    private void assignReleased() {
+        if (!applying) waitlist.assignReleased();
+    }
+
+    public void addLiftPass(TravelPackage pkg, LiftPass pass) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (pkg.getHasLiftPass()) {
+            throw new IllegalArgumentException("Package already has a Lift Pass.");
+        }
+        pkg.setLiftPass(pass);
+        indexCost(pkg);
+        liftGate.sync(pkg);
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+    }
+
+    public void removeLiftPass(TravelPackage pkg) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (!pkg.getHasLiftPass()) {
+            throw new IllegalArgumentException("Package has no Lift Pass.");
+        }
+        pkg.setLiftPass(null);
+        indexCost(pkg);
+        liftGate.revoke(pkg.getID());
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+    }
+
+    //schedules the lessons with instructors before selling them, at the customer's skill level
+    public Lessons bookLessons(TravelPackage pkg, int count) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (pkg.getHasLessons()) {
+            throw new IllegalArgumentException("Package already has Lessons.");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Number of lessons must be positive.");
+        }
+        Lessons lessons = new Lessons(pkg.getCustomer().getSkill(), count);
+        lessonScheduler.book(pkg.getID(), lessons.getLevel(), count, pkg.getDate(), pkg.getDays());
+        pkg.setLessons(lessons);
+        indexCost(pkg);
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+        return lessons;
+    }
+
+    public void removeLessons(TravelPackage pkg) {
+        checkWritable();
+        checkLoaded(pkg);
+        if (!pkg.getHasLessons()) {
+            throw new IllegalArgumentException("Package has no Lessons.");
+        }
+        lessonScheduler.release(pkg.getID());
+        pkg.setLessons(null);
+        indexCost(pkg);
+        confirm(ConfirmationMessage.Kind.CHANGED, pkg);
+    }
+
+    //applies records from an autosave journal or a replication primary, matching existing records by ID
+    //cancellations go first, so a unit released by one and booked by another package in the same set ends up booked
+    public void applyChanges(ChangeSet changeSet) {
+        boolean nested = applying;
+        applying = true;
+        try {
+            applyRecords(changeSet);
+        } finally {
+            applying = nested;
+            if (!nested) waitlist.clearReleased();
+        }
+    }
+
+    private void applyRecords(ChangeSet changeSet) {
+        HashSet<Integer> cancelled = new HashSet<>(changeSet.getCancelledPackages());
+        for (int id : cancelled) {
+            TravelPackage pkg = searchPackageByID(id);
+            if (pkg != null) cancelPackage(pkg);
+        }
+
+        for (Customer loaded : changeSet.getCustomers()) {
+            Customer c = searchCustomerByID(loaded.getID());
+            if (c == null) {
+                if (searchCustomerByEmail(loaded.getEmail()) == null) registerCustomer(loaded);
+                continue;
+            }
+            String oldKey = normalizeEmail(c.getEmail());
+            String newKey = normalizeEmail(loaded.getEmail());
+            if (!oldKey.equals(newKey) && !customersByEmail.containsKey(newKey)) changeEmail(c, loaded.getEmail());
+            customersByName.remove(nameKey(c));
+            c.setName(loaded.getName());
+            customersByName.put(nameKey(c), c);
+            c.setSkill(loaded.getSkill());
+            if (loaded.inPackage()) c.setHasPackage();
+        }
+
+        for (Accommodation loaded : changeSet.getAccommodations()) {
+            Accommodation a = searchAccommodationByID(loaded.getID());
+            if (a == null) {
+                loadAccommodation(loaded);
+            } else {
+                a.setType(loaded.getType());
+                a.setPrice(loaded.getPrice());
+                a.setAvailable(loaded.isAvailable());
+            }
+        }
+
+        for (TravelPackage loaded : changeSet.getPackages()) {
+            if (cancelled.contains(loaded.getID())) continue;
+            Customer c = searchCustomerByID(loaded.getCustomer().getID());
+            if (c != null) loaded.setCustomer(c);
+            if (loaded.getAccommodation() != null) {
+                Accommodation a = searchAccommodationByID(loaded.getAccommodation().getID());
+                if (a != null) loaded.attachAccommodation(a);
+            }
+
+            TravelPackage existing = searchPackageByID(loaded.getID());
+            if (existing == null) {
+                registerPackage(loaded);
+            } else {
+                release(existing);
+                lessonScheduler.release(existing.getID());
+                unindexStart(existing);
+                packages.set(packageSlots.get(existing.getID()), loaded);
+                packagesByID.put(loaded.getID(), loaded);
+                indexStart(loaded);
+                indexCost(loaded);
+                book(loaded);
+                scheduleLoadedLessons(loaded);
+                liftGate.sync(loaded);
+                loaded.track(changes);
+            }
+        }
+    }
+
+    //makes this resort match a primary's full state: records are applied as in applyChanges and packages the
+    //primary no longer has are cancelled; customers and units are never deleted, so none are left over
+    public void applySnapshot(ChangeSet snapshot) {
+        HashSet<Integer> kept = new HashSet<>();
+        for (TravelPackage pkg : snapshot.getPackages()) kept.add(pkg.getID());
+        ArrayList<Integer> gone = new ArrayList<>();
+        for (TravelPackage pkg : packages) {
+            if (!kept.contains(pkg.getID())) gone.add(pkg.getID());
+        }
+        applyChanges(new ChangeSet(snapshot.getCustomers(), snapshot.getAccommodations(), snapshot.getPackages(), gone));
+    }
+
+    //every record, used to start a fresh journal
+    public ChangeSet snapshot() {
+        return new ChangeSet(customers, accommodations, packages);
+    }
+
+    //replays and compacts the journal, then flushes changes to it every intervalSeconds
+    public Autosaver startAutosave(File journalFile, long intervalSeconds) throws IOException, ClassNotFoundException {
+        AutosaveJournal journal = new AutosaveJournal(journalFile);
+        for (ChangeSet frame : journal.read()) {
+            applyChanges(frame);
+        }
+        changes.drain(); //replayed and seeded records go into the compacted journal below
+        journal.rewrite(snapshot());
+        ChangeSink sink = primary == null ? ChangeSink.of(journal, repository) : ChangeSink.of(journal, repository, primary);
+        return autosaveTo(sink, intervalSeconds);
+    }
+
+    //flushes changes to the sink every intervalSeconds, once collectChanges has handed them over
+    public Autosaver autosaveTo(ChangeSink sink, long intervalSeconds) {
+        autosaver = new Autosaver(changes, sink, intervalSeconds);
+        return autosaver;
+    }
+
+    //hands what changed since the last call to the autosaver, and a snapshot to any replica that just connected;
+    //only the thread that owns the resort may call it
+    public void collectChanges() {
+        if (primary != null) primary.sendSnapshots();
+        if (autosaver == null) return;
+        try {
+            autosaver.collect();
+        } catch (IOException e) {
+            autosaver.failed(e);
+        }
+    }
+
+    public String autosaveStatus() {
+        return autosaver == null ? "not saving" : autosaver.describe();
+    }
+
+    //replaces the package list with loaded packages, relinking customers and accommodations
+    //returns a note for every customer added, merged or package skipped
+    //decodes and checks the file's segments in parallel, then links the packages in on this thread
+    public ArrayList<String> loadPackages(File file) throws IOException, ClassNotFoundException {
+        SaveFile.Loaded<TravelPackage> loaded = SaveFile.readList(file, TravelPackage.class, MtBullerResort::checkPackage);
+        ArrayList<String> notes = new ArrayList<>(loaded.getRejected());
+        notes.addAll(restorePackages(loaded.getItems()));
+        return notes;
+    }
+
+    //why a loaded package can't be restored, or null; only looks at the package itself so it can run on any thread
+    static String checkPackage(TravelPackage pkg) {
+        if (pkg.getCustomer() == null) {
+            return "Skipped package " + pkg.getID() + ": it has no customer";
+        }
+        if (pkg.getAccommodation() == null) {
+            return "Skipped package " + pkg.getID() + ": it has no accommodation";
+        }
+        if (pkg.getDays() <= 0 || pkg.getDate() == null) {
+            return "Skipped package " + pkg.getID() + ": it has no valid dates";
+        }
+        return null;
+    }
+
+    //replaces the loaded packages with these; packages the file doesn't have are cancelled as in cancelPackage, without
+    //a confirmation, and units still free at the end go to the waitlist
+    public ArrayList<String> restorePackages(ArrayList<TravelPackage> loaded) {
+        checkWritable();
+        ArrayList<String> notes = new ArrayList<>();
+        HashSet<Integer> restored = new HashSet<>();
+        for (TravelPackage pkg : loaded) restored.add(pkg.getID());
+        for (TravelPackage pkg : new ArrayList<>(packagesByID.values())) {
+            dropPackage(pkg, !restored.contains(pkg.getID()));
+        }
+
+        for (TravelPackage pkg : loaded) {
+            Customer loadedCustomer = pkg.getCustomer();
+            Customer c = searchCustomerByID(loadedCustomer.getID());
+
+            if (c == null) {
+                Customer sameEmail = searchCustomerByEmail(loadedCustomer.getEmail());
+                if (sameEmail == null) {
+                    //add customer if not in current list (does not replace existing id)
+                    c = loadedCustomer;
+                    registerCustomer(c);
+                    notes.add("Added customer: " + c);
+                } else if (mergeDuplicateEmails && !sameEmail.inPackage()) {
+                    c = sameEmail;
+                    pkg.setCustomer(c);
+                    notes.add("Merged customer " + loadedCustomer.getID() + " into: " + c);
+                } else {
+                    notes.add("Skipped package " + pkg.getID() + ": email " + loadedCustomer.getEmail() + " already belongs to customer " + sameEmail.getID());
+                    continue;
+                }
+            }
+            c.setHasPackage();
+
+            //point the package at the live unit so both share one inventory row
+            Accommodation a = searchAccommodationByID(pkg.getAccommodation().getID());
+            if (a != null) pkg.attachAccommodation(a);
+            registerPackage(pkg);
+        }
+        assignReleased();
+        return notes;
+    }
+
     //returns a valid customer
     public Customer selectCustomer() {
         Customer selected = null;
@@ -470,6 +1724,7 @@ public class MtBullerResort {
         System.out.println("1. Show all available");
         System.out.println("2. Filter by type");
         System.out.println("3. Filter by price");
+        System.out.println("4. Suggest best fit for a budget");
         System.out.print("Enter option: ");
 
         int filterOption;
@@ -539,6 +1794,12 @@ public class MtBullerResort {
                     return null; //if no matches, exit
                 }
                 break;
+            case 4:
+                int suggestCount = suggestAccommodations();
+                if (suggestCount == 0) {
+                    return null; //if no matches, exit
+                }
+                break;
             default:
                 System.out.println("Invalid option, showing all.");
                 listAvailableAccommodations();
@@ -613,30 +1874,152 @@ public class MtBullerResort {
         return selected;
     }
 
+    //searches the working set, then loads the record from the repository if it is stored there
     public Customer searchCustomerByID(int ID) {
-        for (Customer customer : customers) {
-            if (ID == customer.getID()) {
-                return customer;
-            }
+        Customer customer = findLoadedCustomer(ID);
+        if (customer == null) {
+            customer = fromRepository(() -> repository.findCustomer(ID));
+            if (customer != null) loadCustomer(customer);
         }
-        return null;
+        return customer;
     }
 
     public Accommodation searchAccommodationByID(int ID) {
-        for (Accommodation accommodation : accommodations) {
-            if (ID == accommodation.getID()) {
-                return accommodation;
-            }
+        Accommodation accommodation = findLoadedAccommodation(ID);
+        if (accommodation == null) {
+            accommodation = fromRepository(() -> repository.findAccommodation(ID));
+            if (accommodation != null) loadAccommodation(accommodation);
         }
-        return null;
+        return accommodation;
     }
 
     public TravelPackage searchPackageByID(int ID) {
-        for (TravelPackage pkg : packages) {
-            if (ID == pkg.getID()) {
-                return pkg;
-            }
+        TravelPackage pkg = findLoadedPackage(ID);
+        if (pkg == null) {
+            if (cancelledIDs.contains(ID)) return null;
+            pkg = fromRepository(() -> repository.findPackage(ID));
+            if (pkg != null) loadPackage(pkg);
+        }
+        return pkg;
+    }
+
+    private Customer findLoadedCustomer(int ID) {
+        return customersByID.get(ID);
+    }
+
+    private Accommodation findLoadedAccommodation(int ID) {
+        return accommodationsByID.get(ID);
+    }
+
+    private TravelPackage findLoadedPackage(int ID) {
+        return packagesByID.get(ID);
+    }
+
+    private void addToList(TravelPackage pkg) {
+        cancelledIDs.remove(pkg.getID());
+        packageSlots.put(pkg.getID(), packages.size());
+        packages.add(pkg);
+        packagesByID.put(pkg.getID(), pkg);
+        indexStart(pkg);
+        indexCost(pkg);
+        book(pkg);
+        scheduleLoadedLessons(pkg);
+        liftGate.sync(pkg);
+    }
+
+    //moves the last package into the removed one's slot, so removal doesn't shift the list
+    private void removeFromList(TravelPackage pkg) {
+        Integer slot = packageSlots.remove(pkg.getID());
+        if (slot == null) return;
+        packagesByID.remove(pkg.getID());
+        unindexStart(pkg);
+        Long costKey = costKeys.remove(pkg.getID());
+        if (costKey != null) packagesByCost.remove(costKey);
+        release(pkg);
+        lessonScheduler.release(pkg.getID());
+        liftGate.revoke(pkg.getID());
+        TravelPackage last = packages.removeLast();
+        if (last != pkg) {
+            packages.set(slot, last);
+            packageSlots.put(last.getID(), slot);
+        }
+    }
+
+    static long startKey(long startDay, int id) {
+        return Page.key(startDay, id);
+    }
+
+    private void indexStart(TravelPackage pkg) {
+        if (pkg.getDate() == null) return;
+        packagesByStart.put(startKey(pkg.getStartDay(), pkg.getID()), pkg);
+        manifest.add(pkg.getID(), pkg.getStartDay(), pkg.getDays());
+        longestStay = Math.max(longestStay, pkg.getDays());
+    }
+
+    private void unindexStart(TravelPackage pkg) {
+        if (pkg.getDate() == null) return;
+        packagesByStart.remove(startKey(pkg.getStartDay(), pkg.getID()));
+        manifest.remove(pkg.getID(), pkg.getStartDay(), pkg.getDays());
+    }
+
+    //files the package under its current cost, moving it if it was filed under another
+    private void indexCost(TravelPackage pkg) {
+        long key = Page.key(Math.round(pkg.getTotalCost() * 100), pkg.getID());
+        Long old = costKeys.put(pkg.getID(), key);
+        if (old != null) packagesByCost.remove(old);
+        packagesByCost.put(key, pkg);
+    }
+
+    //case-insensitive name, then the zero-padded id so customers with the same name keep one order
+    static String nameKey(Customer c) {
+        String name = c.getName() == null ? "" : c.getName().toLowerCase(Locale.ROOT);
+        return name + '\0' + String.format("%010d", c.getID());
+    }
+
+    //counts the package's nights against its unit's type
+    private void book(TravelPackage pkg) {
+        int code = occupancyType(pkg);
+        if (code >= 0) occupancy.book(code, pkg.getStartDay(), pkg.getDays());
+    }
+
+    private void release(TravelPackage pkg) {
+        int code = occupancyType(pkg);
+        if (code >= 0) occupancy.release(code, pkg.getStartDay(), pkg.getDays());
+    }
+
+    //lessons on a package that was loaded were sold already, so they are scheduled where they fit
+    private void scheduleLoadedLessons(TravelPackage pkg) {
+        Lessons lessons = pkg.getLessons();
+        if (lessons != null && lessons.getLevel() != null && pkg.getDate() != null) {
+            lessonScheduler.tryBook(pkg.getID(), lessons.getLevel(), lessons.getCount(), pkg.getDate(), pkg.getDays());
+        }
+    }
+
+    private int occupancyType(TravelPackage pkg) {
+        if (pkg.getAccommodation() == null || pkg.getDate() == null) return -1;
+        return inventory.typeCode(pkg.getAccommodation().getType());
+    }
+
+    public boolean isLoaded(TravelPackage pkg) {
+        return findLoadedPackage(pkg.getID()) == pkg;
+    }
+
+    //the package mutators only work on this resort's own copy of a package
+    private void checkLoaded(TravelPackage pkg) {
+        if (!isLoaded(pkg)) {
+            throw new IllegalArgumentException("Package " + pkg.getID() + " does not exist.");
+        }
+    }
+
+    private interface RepositoryRead<T> {
+        T run() throws IOException;
+    }
+
+    private <T> T fromRepository(RepositoryRead<T> read) {
+        try {
+            return read.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read from the repository: " + e.getMessage(), e);
         }
-        return null;
     }
 }
\ No newline at end of file
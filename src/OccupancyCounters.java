@@ -0,0 +1,29 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//booked units per (type code, night), updated on every booking and release and read in constant time
+public class OccupancyCounters {
+    private final ConcurrentHashMap<Long, AtomicInteger> booked = new ConcurrentHashMap<>();
+
+    public void book(int typeCode, int startDay, int days) {
+        for (int day = startDay; day < startDay + days; day++) {
+            booked.computeIfAbsent(key(typeCode, day), k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public void release(int typeCode, int startDay, int days) {
+        for (int day = startDay; day < startDay + days; day++) {
+            AtomicInteger count = booked.get(key(typeCode, day));
+            if (count != null) count.decrementAndGet();
+        }
+    }
+
+    public int booked(int typeCode, int day) {
+        AtomicInteger count = booked.get(key(typeCode, day));
+        return count == null ? 0 : count.get();
+    }
+
+    private static long key(int typeCode, int day) {
+        return ((long) typeCode << 32) | (day & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,10 @@
+//discounts quiet nights and charges more as a type fills up
+public class OccupancyPricing implements PricingPolicy {
+    @Override
+    public double multiplier(double occupancy) {
+        if (occupancy >= 0.9) return 1.25;
+        if (occupancy >= 0.7) return 1.10;
+        if (occupancy <= 0.3) return 0.90;
+        return 1.0;
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+//package history kept outside the java heap in fixed-width records, so millions of past packages cost the GC nothing
+//records live in chunks of CHUNK_RECORDS, each a direct buffer or a mapping of one region of a history file;
+//growing adds a chunk, so nothing is copied and no single buffer has to pass the 2 GB a ByteBuffer can hold
+//records are read through flyweight views; appends are synchronized, reads from other threads only see records
+//appended before they started
+public class OffHeapPackageStore implements AutoCloseable {
+    //record layout, 32 bytes: the cached cost first so it stays 8-byte aligned
+    static final int RECORD = 32;
+    private static final int COST = 0;
+    private static final int PKG_ID = 8;
+    private static final int CUST_ID = 12;
+    private static final int ACC_ID = 16;
+    private static final int START_DAY = 20;
+    private static final int DAYS = 24;
+    private static final int PASS_TYPE = 26; //0 for none, otherwise ordinal + 1
+    private static final int LESSON_LEVEL = 27; //0 for none, otherwise ordinal + 1
+    private static final int PASS_DAYS = 28;
+    private static final int LESSON_COUNT = 30;
+
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT; //2 MB a chunk
+    private static final int CHUNK_BYTES = CHUNK_RECORDS * RECORD;
+
+    //mapped files start with a 16 byte header: magic, record size, record count
+    private static final int MAGIC = 0x4D425048; //"MBPH"
+    private static final int HEADER = 16;
+    private static final int NO_UNIT = -1;
+
+    private final FileChannel channel; //null when not backed by a file
+    private final MappedByteBuffer header;
+    //replaced whole when a chunk is added, so views read it without locking
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile long size = 0;
+    private boolean closed = false;
+
+    //plain off-heap memory; it counts against -XX:MaxDirectMemorySize and is freed once the store is unreachable
+    public OffHeapPackageStore() {
+        this.channel = null;
+        this.header = null;
+    }
+
+    private OffHeapPackageStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+    }
+
+    //maps a history file, creating it if it doesn't exist; records already in it are kept
+    public static OffHeapPackageStore map(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long existing = channel.size();
+            if (existing != 0 && existing < HEADER) {
+                throw new IOException(file.getName() + " is not a package history file.");
+            }
+            OffHeapPackageStore store = new OffHeapPackageStore(channel);
+            if (existing == 0) {
+                store.header.putInt(0, MAGIC);
+                store.header.putInt(4, RECORD);
+                store.header.putLong(8, 0);
+                return store;
+            }
+            if (store.header.getInt(0) != MAGIC || store.header.getInt(4) != RECORD) {
+                throw new IOException(file.getName() + " is not a package history file.");
+            }
+            long count = store.header.getLong(8);
+            if (count < 0 || HEADER + count * RECORD > existing) {
+                throw new IOException(file.getName() + " has a corrupt record count.");
+            }
+            while ((long) store.chunks.length * CHUNK_RECORDS < count) store.addChunk();
+            store.size = count;
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void addChunk() throws IOException {
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = channel == null ? ByteBuffer.allocateDirect(CHUNK_BYTES)
+                : channel.map(FileChannel.MapMode.READ_WRITE, HEADER + (long) chunks.length * CHUNK_BYTES, CHUNK_BYTES);
+        chunks = grown;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isMapped() {
+        return channel != null;
+    }
+
+    //copies a package into a new record and returns its index; the package itself isn't kept
+    public synchronized long append(TravelPackage pkg) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The package history is closed.");
+        }
+        if (pkg.getDays() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Package " + pkg.getID() + " is too long to archive.");
+        }
+        long index = size;
+        if (index == (long) chunks.length * CHUNK_RECORDS) addChunk();
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        int at = (int) (index & (CHUNK_RECORDS - 1)) * RECORD;
+        chunk.putDouble(at + COST, pkg.getTotalCost());
+        chunk.putInt(at + PKG_ID, pkg.getID());
+        chunk.putInt(at + CUST_ID, pkg.getCustomer() == null ? 0 : pkg.getCustomer().getID());
+        chunk.putInt(at + ACC_ID, pkg.getAccommodation() == null ? NO_UNIT : pkg.getAccommodation().getID());
+        chunk.putInt(at + START_DAY, pkg.getStartDay());
+        chunk.putShort(at + DAYS, (short) pkg.getDays());
+
+        LiftPass pass = pkg.getLiftPass();
+        boolean hasPass = pass != null && pass.getType() != null;
+        chunk.put(at + PASS_TYPE, (byte) (hasPass ? pass.getType().ordinal() + 1 : 0));
+        chunk.putShort(at + PASS_DAYS, (short) (hasPass ? Math.min(pass.getDays(), Short.MAX_VALUE) : 0));
+
+        Lessons lessons = pkg.getLessons();
+        boolean hasLessons = lessons != null && lessons.getLevel() != null;
+        chunk.put(at + LESSON_LEVEL, (byte) (hasLessons ? lessons.getLevel().ordinal() + 1 : 0));
+        chunk.putShort(at + LESSON_COUNT, (short) (hasLessons ? Math.min(lessons.getCount(), Short.MAX_VALUE) : 0));
+
+        //the count is written last, so a record only exists once it is complete
+        size = index + 1;
+        if (header != null) header.putLong(8, size);
+        return index;
+    }
+
+    //a view of one record, which can be moved to another record instead of creating a new one
+    public View view(long index) {
+        return new View().moveTo(index);
+    }
+
+    //visits every record through one reused view, so the view mustn't be kept after the call returns
+    public void forEach(Consumer<View> action) {
+        View view = new View();
+        long count = size;
+        for (long i = 0; i < count; i++) action.accept(view.moveTo(i));
+    }
+
+    //writes mapped records back to the file
+    public synchronized void force() {
+        if (channel == null) return;
+        for (ByteBuffer chunk : chunks) ((MappedByteBuffer) chunk).force();
+        header.force();
+    }
+
+    //direct memory has no explicit free outside the preview foreign API, so it goes with the last reference to it
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        force();
+        closed = true;
+        if (channel != null) channel.close();
+    }
+
+    //reads a record in place, with the same getters as TravelPackage where the record has the value
+    public class View {
+        private ByteBuffer chunk;
+        private int at;
+        private long index;
+
+        public View moveTo(long index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("No archived package at " + index);
+            }
+            chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+            this.at = (int) (index & (CHUNK_RECORDS - 1)) * RECORD;
+            this.index = index;
+            return this;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public int getID() {
+            return chunk.getInt(at + PKG_ID);
+        }
+
+        public int getCustomerID() {
+            return chunk.getInt(at + CUST_ID);
+        }
+
+        //-1 when no unit was booked
+        public int getAccommodationID() {
+            return chunk.getInt(at + ACC_ID);
+        }
+
+        public int getStartDay() {
+            return chunk.getInt(at + START_DAY);
+        }
+
+        public LocalDate getDate() {
+            return LocalDate.ofEpochDay(getStartDay());
+        }
+
+        public int getDays() {
+            return chunk.getShort(at + DAYS);
+        }
+
+        public boolean getHasLiftPass() {
+            return chunk.get(at + PASS_TYPE) != 0;
+        }
+
+        //null when there is no pass
+        public LiftPassType getLiftPassType() {
+            int code = chunk.get(at + PASS_TYPE);
+            return code == 0 ? null : LiftPassType.values()[code - 1];
+        }
+
+        public int getLiftPassDays() {
+            return chunk.getShort(at + PASS_DAYS);
+        }
+
+        public boolean getHasLessons() {
+            return chunk.get(at + LESSON_LEVEL) != 0;
+        }
+
+        //null when there are no lessons
+        public SkillLevel getLessonLevel() {
+            int code = chunk.get(at + LESSON_LEVEL);
+            return code == 0 ? null : SkillLevel.values()[code - 1];
+        }
+
+        public int getLessonCount() {
+            return chunk.getShort(at + LESSON_COUNT);
+        }
+
+        //the cost when the package was archived
+        public double getTotalCost() {
+            return chunk.getDouble(at + COST);
+        }
+
+        @Override
+        public String toString() {
+            int unit = getAccommodationID();
+            String result = String.format("Package %d { customer: %d, accommodation: %s, date: %s, days: %d, total cost: $%.2f }",
+                    getID(), getCustomerID(), unit == NO_UNIT ? "none" : "unit " + unit, getDate(), getDays(), getTotalCost());
+            LiftPassType pass = getLiftPassType();
+            if (pass != null) result += "\n   Lift Pass: " + pass.label() + " (" + getLiftPassDays() + " days)";
+            SkillLevel level = getLessonLevel();
+            if (level != null) result += "\n   Lessons: " + getLessonCount() + " x " + level.label();
+            return result;
+        }
+    }
+}
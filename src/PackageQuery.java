@@ -0,0 +1,118 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+//conditions on a resort's loaded packages, all of which must hold
+//a date range is answered from the resort's start day index, otherwise every package is scanned in id order
+public class PackageQuery {
+    private LocalDate from;
+    private LocalDate to;
+    private SkillLevel skill;
+    private Boolean liftPass;
+    private Boolean lessons;
+    private String type;
+
+    //stays with at least one day between from and to, inclusive
+    public PackageQuery staying(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("The date range must end on or after its start.");
+        }
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    //the customer's skill level
+    public PackageQuery skill(SkillLevel skill) {
+        this.skill = skill;
+        return this;
+    }
+
+    public PackageQuery withLiftPass(boolean liftPass) {
+        this.liftPass = liftPass;
+        return this;
+    }
+
+    public PackageQuery withLessons(boolean lessons) {
+        this.lessons = lessons;
+        return this;
+    }
+
+    //the booked unit's type
+    public PackageQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public QueryResult<TravelPackage> run(MtBullerResort resort) {
+        //only the conditions that were set are checked, in the order cheapest first
+        List<Predicate<TravelPackage>> checks = new ArrayList<>();
+        if (liftPass != null) checks.add(pkg -> pkg.getHasLiftPass() == liftPass);
+        if (lessons != null) checks.add(pkg -> pkg.getHasLessons() == lessons);
+        if (skill != null) checks.add(pkg -> pkg.getCustomer().getSkill() == skill);
+        if (type != null) checks.add(pkg -> pkg.getAccommodation() != null && type.equalsIgnoreCase(pkg.getAccommodation().getType()));
+        if (from != null) {
+            int first = (int) from.toEpochDay();
+            int last = (int) to.toEpochDay();
+            checks.add(pkg -> pkg.getStartDay() <= last && pkg.getStartDay() + pkg.getDays() - 1 >= first);
+        }
+        Predicate<TravelPackage> residual = checks.isEmpty() ? pkg -> true : checks.stream().reduce(Predicate::and).get();
+
+        if (from != null) {
+            //a stay overlapping the range starts no earlier than the longest stay before it
+            long low = from.toEpochDay() - resort.longestStay + 1;
+            return new QueryResult<>("start day index", new StartDayCursor(resort, low, to.toEpochDay()), residual);
+        }
+        return new QueryResult<>("package scan", new QueryResult.KeyScan<>(resort.packagesByID), residual);
+    }
+
+    @Override
+    public String toString() {
+        ArrayList<String> parts = new ArrayList<>();
+        if (from != null) parts.add(from + " to " + to);
+        if (skill != null) parts.add(skill.label());
+        if (type != null) parts.add(type);
+        if (liftPass != null) parts.add(liftPass ? "with lift pass" : "without lift pass");
+        if (lessons != null) parts.add(lessons ? "with lessons" : "without lessons");
+        return parts.isEmpty() ? "all packages" : String.join(", ", parts);
+    }
+
+    //walks start days low .. high by looking up the key after the last one returned,
+    //so packages booked or cancelled between pages don't upset it
+    private static final class StartDayCursor implements Iterator<TravelPackage> {
+        private final MtBullerResort resort;
+        private final long highKey;
+        private long lastKey;
+        private Map.Entry<Long, TravelPackage> next;
+
+        StartDayCursor(MtBullerResort resort, long lowDay, long highDay) {
+            this.resort = resort;
+            this.lastKey = MtBullerResort.startKey(lowDay, 0) - 1;
+            this.highKey = MtBullerResort.startKey(highDay, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = resort.packagesByStart.higherEntry(lastKey);
+                if (next != null && next.getKey() > highKey) next = null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public TravelPackage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastKey = next.getKey();
+            TravelPackage pkg = next.getValue();
+            next = null;
+            return pkg;
+        }
+    }
+}
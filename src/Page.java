@@ -0,0 +1,128 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Function;
+
+//one page of a sorted listing, with opaque cursors for the pages either side of it
+//a cursor holds the sort key of the record at the edge of the page, so paging carries on from that record however
+//the records around it change, and each page costs a seek into the index plus the records on it
+public class Page<T> {
+    private final List<T> items;
+    private final String next;
+    private final String previous;
+
+    private Page(List<T> items, String next, String previous) {
+        this.items = Collections.unmodifiableList(items);
+        this.next = next;
+        this.previous = previous;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    //cursor for the page after this one, null on the last page
+    public String getNext() {
+        return next;
+    }
+
+    //cursor for the page before this one, null on the first page
+    public String getPrevious() {
+        return previous;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    public boolean hasPrevious() {
+        return previous != null;
+    }
+
+    //a key that orders by value, then by id so equal values keep a stable order
+    static long key(long value, int id) {
+        return (value << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    //reads a page from an index; a null cursor is the first page
+    //listing names the index, so a cursor from one listing can't be used with another
+    static <K, T> Page<T> of(NavigableMap<K, T> index, String listing, Function<String, K> parseKey, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        if (cursor == null) {
+            return forward(index, listing, index, size);
+        }
+
+        String[] parts = decode(cursor);
+        if (!parts[0].equals(listing)) {
+            throw new IllegalArgumentException("That cursor belongs to another listing.");
+        }
+        K key;
+        try {
+            key = parseKey.apply(parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        if (parts[1].equals("n")) {
+            Page<T> page = forward(index, listing, index.tailMap(key, false), size);
+            //everything after the cursor went away, so show the last page instead of an empty one
+            return page.items.isEmpty() && !index.isEmpty() ? backward(index, listing, index, size) : page;
+        }
+        Page<T> page = backward(index, listing, index.headMap(key, false), size);
+        //fewer than a page before the cursor now, so start again from the top
+        return page.items.size() < size ? forward(index, listing, index, size) : page;
+    }
+
+    private static <K, T> Page<T> forward(NavigableMap<K, T> index, String listing, NavigableMap<K, T> from, int size) {
+        ArrayList<T> items = new ArrayList<>(Math.min(size, 64));
+        K first = null;
+        K last = null;
+        for (Map.Entry<K, T> e : from.entrySet()) {
+            if (items.size() == size) break;
+            if (first == null) first = e.getKey();
+            last = e.getKey();
+            items.add(e.getValue());
+        }
+        return page(index, listing, items, first, last);
+    }
+
+    private static <K, T> Page<T> backward(NavigableMap<K, T> index, String listing, NavigableMap<K, T> before, int size) {
+        ArrayList<T> items = new ArrayList<>(Math.min(size, 64));
+        K first = null;
+        K last = null;
+        for (Map.Entry<K, T> e : before.descendingMap().entrySet()) {
+            if (items.size() == size) break;
+            if (last == null) last = e.getKey();
+            first = e.getKey();
+            items.add(e.getValue());
+        }
+        Collections.reverse(items);
+        return page(index, listing, items, first, last);
+    }
+
+    private static <K, T> Page<T> page(NavigableMap<K, T> index, String listing, List<T> items, K first, K last) {
+        String next = last != null && index.higherKey(last) != null ? encode(listing, "n", last) : null;
+        String previous = first != null && index.lowerKey(first) != null ? encode(listing, "p", first) : null;
+        return new Page<>(items, next, previous);
+    }
+
+    private static String encode(String listing, String direction, Object key) {
+        String plain = listing + "|" + direction + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 3);
+            if (parts.length == 3 && (parts[1].equals("n") || parts[1].equals("p"))) return parts;
+        } catch (IllegalArgumentException e) {
+            //not base64, reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor.");
+    }
+}
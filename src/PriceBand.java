@@ -0,0 +1,30 @@
+//nightly price ceilings a waitlisted customer can choose from
+public enum PriceBand {
+    BUDGET(150),
+    STANDARD(250),
+    PREMIUM(350),
+    LUXURY(Double.MAX_VALUE);
+
+    private final double maxPrice;
+
+    PriceBand(double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    //the cheapest band whose ceiling covers the price
+    public static PriceBand of(double price) {
+        for (PriceBand band : values()) {
+            if (price <= band.maxPrice) return band;
+        }
+        return LUXURY;
+    }
+
+    @Override
+    public String toString() {
+        return maxPrice == Double.MAX_VALUE ? "Luxury (any price)" : String.format("%s (up to $%.0f)", name().charAt(0) + name().substring(1).toLowerCase(), maxPrice);
+    }
+}
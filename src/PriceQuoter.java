@@ -0,0 +1,38 @@
+import java.time.LocalDate;
+
+//quotes nightly rates from the occupancy counters, without looking at packages or the unit list
+public class PriceQuoter {
+    private final AccommodationStore store;
+    private final OccupancyCounters occupancy;
+    private PricingPolicy policy;
+
+    public PriceQuoter(AccommodationStore store, OccupancyCounters occupancy, PricingPolicy policy) {
+        this.store = store;
+        this.occupancy = occupancy;
+        this.policy = policy;
+    }
+
+    public void setPolicy(PricingPolicy policy) {
+        this.policy = policy;
+    }
+
+    //average multiplier over the stay for one type, O(days)
+    public double factor(int typeCode, LocalDate date, int days) {
+        int units = typeCode < 0 ? 0 : store.unitCount(typeCode);
+        if (units == 0 || days <= 0 || date == null) {
+            return 1.0;
+        }
+        int start = (int) date.toEpochDay();
+        double total = 0;
+        for (int day = start; day < start + days; day++) {
+            total += policy.multiplier(occupancy.booked(typeCode, day) / (double) units);
+        }
+        return total / days;
+    }
+
+    //nightly rate for a stay, rounded to cents
+    public double nightlyRate(Accommodation unit, LocalDate date, int days) {
+        double rate = unit.getPrice() * factor(store.typeCode(unit.getType()), date, days);
+        return Math.round(rate * 100) / 100.0;
+    }
+}
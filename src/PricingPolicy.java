@@ -0,0 +1,6 @@
+//turns the share of a type already booked on a night into a multiplier on the unit's base rate
+public interface PricingPolicy {
+    PricingPolicy FLAT = occupancy -> 1.0;
+
+    double multiplier(double occupancy);
+}
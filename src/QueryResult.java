@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+//results of a query, produced lazily a page at a time: only candidates that are read get checked
+//the plan's candidates come from an index or a scan, the rest of the conditions are checked here
+public class QueryResult<T> implements Iterator<T> {
+    private final Iterator<T> candidates;
+    private final Predicate<T> residual;
+    private final String plan;
+    private T next;
+    private int examined = 0;
+
+    QueryResult(String plan, Iterator<T> candidates, Predicate<T> residual) {
+        this.plan = plan;
+        this.candidates = candidates;
+        this.residual = residual;
+    }
+
+    //how the query was answered, e.g. "price index (hotel)"
+    public String getPlan() {
+        return plan;
+    }
+
+    //candidates read from the index or scan so far
+    public int getExamined() {
+        return examined;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && candidates.hasNext()) {
+            T candidate = candidates.next();
+            examined++;
+            if (residual.test(candidate)) next = candidate;
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    //up to size more results, empty once they run out
+    public List<T> nextPage(int size) {
+        ArrayList<T> page = new ArrayList<>(Math.min(size, 64));
+        while (page.size() < size && hasNext()) page.add(next());
+        return page;
+    }
+
+    public List<T> toList() {
+        return nextPage(Integer.MAX_VALUE);
+    }
+
+    //reads an index in key order by looking up the key after the last one returned,
+    //so records added or removed between pages don't make it skip or repeat any
+    static final class KeyScan<K, T> implements Iterator<T> {
+        private final NavigableMap<K, T> index;
+        private K lastKey;
+        private Map.Entry<K, T> next;
+
+        KeyScan(NavigableMap<K, T> index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) next = lastKey == null ? index.firstEntry() : index.higherEntry(lastKey);
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastKey = next.getKey();
+            T record = next.getValue();
+            next = null;
+            return record;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+//append-only file of serialized records, each stored as [length][bytes] and addressed by its offset
+public class RecordFile implements AutoCloseable {
+    private final FileChannel channel;
+    private long end;
+
+    public RecordFile(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = channel.size();
+    }
+
+    public synchronized long append(Serializable record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(record);
+        }
+        return appendBytes(bytes.toByteArray());
+    }
+
+    //appends a record as read by readBytes, without deserializing it
+    public synchronized long appendBytes(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + record.length);
+        buffer.putInt(record.length).put(record).flip();
+
+        long offset = end;
+        while (buffer.hasRemaining()) {
+            end += channel.write(buffer, end);
+        }
+        return offset;
+    }
+
+    public synchronized Object read(long offset) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(offset)))) {
+            return ois.readObject();
+        }
+    }
+
+    public synchronized byte[] readBytes(long offset) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(length(offset));
+        while (data.hasRemaining()) {
+            if (channel.read(data, offset + 4 + data.position()) < 0) {
+                throw new EOFException("Record at " + offset + " is truncated.");
+            }
+        }
+        return data.array();
+    }
+
+    //bytes of the record at offset, not counting its length prefix
+    public synchronized int length(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        if (channel.read(length, offset) < 4) {
+            throw new EOFException("Record at " + offset + " is truncated.");
+        }
+        length.flip();
+        return length.getInt();
+    }
+
+    public synchronized long size() {
+        return end;
+    }
+
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.Deflater;
+
+//ships a resort's flushed change sets to read-only replicas over TCP, as a sink next to the autosave journal
+//a replica gets the whole resort when it connects, then every change set flushed after that, in order
+//frame: [kind][sequence][body length][change set in SaveFile blocks], a heartbeat has no body
+//listens on the loopback address only, so replicas run as other processes on the same machine
+//the snapshot is taken by the thread that owns the resort in sendSnapshots, never by a sender thread; a replica that
+//connects while the terminal waits for input gets heartbeats until the next command
+public class ReplicationPrimary implements ChangeSink, AutoCloseable {
+    static final int MAGIC = 0x4D425250; //"MBRP"
+    static final byte SNAPSHOT = 1;
+    static final byte CHANGES = 2;
+    static final byte HEARTBEAT = 3;
+    static final int HEARTBEAT_SECONDS = 2;
+    //frames a replica can fall behind by before it is dropped, it then reconnects and starts again from a snapshot
+    static final int MAX_BEHIND = 1024;
+
+    private final MtBullerResort resort;
+    private final ServerSocket server;
+    private final CopyOnWriteArrayList<Replica> replicas = new CopyOnWriteArrayList<>();
+    //replicas whose sender is waiting for sendSnapshots
+    private final ConcurrentLinkedQueue<Replica> waiting = new ConcurrentLinkedQueue<>();
+    private long sequence = 0; //guarded by this, so frames are queued to every replica in order
+    private volatile long latest = 0;
+    private volatile boolean closed = false;
+    //shown by describe, since sender threads have no one to tell
+    private volatile String lastError;
+
+    public ReplicationPrimary(MtBullerResort resort, int port) throws IOException {
+        this.resort = resort;
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "replication-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    //sequence number of the last change set shipped
+    public long getSequence() {
+        return latest;
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    //encodes the change set once for every replica; a replica that can't keep up is dropped rather than failing the flush
+    @Override
+    public void write(ChangeSet changes) throws IOException {
+        if (closed) return;
+        byte[] body = encode(changes);
+        synchronized (this) {
+            sequence++;
+            latest = sequence;
+            Frame frame = new Frame(CHANGES, sequence, body);
+            for (Replica replica : replicas) replica.offer(frame);
+        }
+    }
+
+    //encodes one snapshot of the resort for every replica waiting on one; only the thread that owns the resort may call it
+    public void sendSnapshots() {
+        if (waiting.isEmpty()) return;
+        byte[] body = null;
+        IOException failure = null;
+        try {
+            body = encode(resort.snapshot());
+        } catch (IOException e) {
+            failure = e;
+        }
+        Replica replica;
+        while ((replica = waiting.poll()) != null) {
+            if (failure == null) replica.snapshot.complete(body);
+            else replica.snapshot.completeExceptionally(failure);
+        }
+    }
+
+    static byte[] encode(ChangeSet changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new SaveFile.BlockOutputStream(bytes, Deflater.BEST_SPEED))) {
+            oos.writeObject(changes);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread sender = new Thread(() -> serve(socket), "replica-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed) lastError = "stopped accepting replicas: " + e.getMessage();
+                return;
+            }
+        }
+    }
+
+    //the replica is registered before the snapshot is taken, so no change set falls between the two;
+    //change sets queued meanwhile are applied again on top of the snapshot, which applyChanges allows
+    private void serve(Socket socket) {
+        Replica replica = new Replica(socket);
+        long start;
+        synchronized (this) {
+            start = sequence;
+            replicas.add(replica);
+        }
+        waiting.add(replica);
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.writeUTF(resort.getName());
+            out.flush();
+            byte[] snapshot = null;
+            while (snapshot == null && !closed && !replica.dropped) {
+                try {
+                    snapshot = replica.snapshot.get(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    //keeps the replica from timing out while the owner is busy
+                    writeFrame(out, new Frame(HEARTBEAT, start, new byte[0]));
+                } catch (ExecutionException e) {
+                    throw new IOException("could not take a snapshot: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            if (snapshot == null) return;
+            writeFrame(out, new Frame(SNAPSHOT, start, snapshot));
+            while (!closed && !replica.dropped) {
+                Frame frame = replica.queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                writeFrame(out, frame == null ? new Frame(HEARTBEAT, latest, new byte[0]) : frame);
+            }
+        } catch (SocketException e) {
+            //replica went away or was dropped
+        } catch (IOException e) {
+            lastError = "replication to " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replicas.remove(replica);
+            waiting.remove(replica);
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, Frame frame) throws IOException {
+        out.writeByte(frame.kind);
+        out.writeLong(frame.sequence);
+        out.writeInt(frame.body.length);
+        out.write(frame.body);
+        out.flush();
+    }
+
+    public String describe() {
+        String text = "primary on port " + getPort() + ", " + replicas.size() + " replica(s) connected, sequence " + latest;
+        return lastError == null ? text : text + ", last error: " + lastError;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException e) {
+            //already closed
+        }
+        for (Replica replica : replicas) replica.drop();
+    }
+
+    private static final class Frame {
+        final byte kind;
+        final long sequence;
+        final byte[] body;
+
+        Frame(byte kind, long sequence, byte[] body) {
+            this.kind = kind;
+            this.sequence = sequence;
+            this.body = body;
+        }
+    }
+
+    private static final class Replica {
+        final Socket socket;
+        final LinkedBlockingQueue<Frame> queue = new LinkedBlockingQueue<>(MAX_BEHIND);
+        final CompletableFuture<byte[]> snapshot = new CompletableFuture<>();
+        volatile boolean dropped = false;
+
+        Replica(Socket socket) {
+            this.socket = socket;
+        }
+
+        void offer(Frame frame) {
+            if (!dropped && !queue.offer(frame)) drop();
+        }
+
+        //closing the socket breaks a blocked write, and the sender stops at its next poll otherwise
+        void drop() {
+            dropped = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //already closed
+            }
+        }
+    }
+}
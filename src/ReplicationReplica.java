@@ -0,0 +1,185 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+//keeps a read-only resort in step with a ReplicationPrimary
+//a reader thread decodes frames off the socket and queues them, and the thread that owns the resort applies them
+//with applyPending, so the resort is never touched by two threads; a lost connection is retried with backoff
+//and starts again from a fresh snapshot
+public class ReplicationReplica implements AutoCloseable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    //a primary sends at least a heartbeat every few seconds, silence for longer than this means it is gone
+    private static final int READ_TIMEOUT_MILLIS = ReplicationPrimary.HEARTBEAT_SECONDS * 5000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    //larger frames are refused rather than allocated; a whole resort compresses to far less
+    static final int MAX_FRAME_BYTES = 256 << 20;
+
+    private final MtBullerResort resort;
+    private final String host;
+    private final int port;
+    private final LinkedBlockingQueue<Update> pending = new LinkedBlockingQueue<>();
+    //told from the reader thread whenever updates are queued
+    private final CopyOnWriteArrayList<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Thread reader;
+    private volatile Socket socket;
+    private volatile boolean closed = false;
+    private volatile boolean connected = false;
+    private volatile String problem;
+    private volatile long primarySequence = 0;
+    private volatile long applied = -1;
+
+    public ReplicationReplica(MtBullerResort resort, String host, int port) {
+        this.resort = resort;
+        this.host = host;
+        this.port = port;
+        this.reader = new Thread(this::run, "replica-of-" + port);
+        reader.setDaemon(true);
+    }
+
+    public void start() {
+        reader.start();
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    //false until the first snapshot has been applied
+    public boolean isCaughtUp() {
+        return applied >= 0 && pending.isEmpty() && applied >= primarySequence;
+    }
+
+    //applies every queued update to the resort on the calling thread, returns how many there were
+    public int applyPending() {
+        int count = 0;
+        Update update;
+        while ((update = pending.poll()) != null) {
+            if (update.snapshot) {
+                resort.applySnapshot(update.changes);
+            } else {
+                resort.applyChanges(update.changes);
+            }
+            applied = update.sequence;
+            count++;
+        }
+        //what changed here came from the primary, so there is nothing to save
+        if (count > 0) resort.changes.drain();
+        return count;
+    }
+
+    public String describe() {
+        String state;
+        if (connected) {
+            state = applied < 0 ? "loading" : isCaughtUp() ? "up to date" : (primarySequence - applied) + " change set(s) behind";
+        } else {
+            state = "disconnected" + (problem == null ? "" : " (" + problem + ")") + ", retrying";
+        }
+        return "read-only replica of " + host + ":" + port + ", " + state + (applied < 0 ? "" : ", sequence " + applied);
+    }
+
+    private void run() {
+        long backoff = 500;
+        while (!closed) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                if (in.readInt() != ReplicationPrimary.MAGIC) {
+                    throw new IOException("not a replication primary");
+                }
+                String name = in.readUTF();
+                if (!name.equals(resort.getName())) {
+                    throw new IOException("the primary on that port is " + name);
+                }
+                connected = true;
+                problem = null;
+                backoff = 500;
+                readFrames(in);
+            } catch (IOException | ClassNotFoundException e) {
+                if (!closed) problem = e.getMessage();
+            } finally {
+                connected = false;
+            }
+            if (closed) return;
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    private void readFrames(DataInputStream in) throws IOException, ClassNotFoundException {
+        while (!closed) {
+            byte kind = in.readByte();
+            long sequence = in.readLong();
+            int length = in.readInt();
+            if (length < 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("frame of " + length + " bytes");
+            }
+            //grows as the bytes arrive, so a length the sender doesn't follow up allocates nothing up front
+            byte[] body = in.readNBytes(length);
+            if (body.length < length) {
+                throw new EOFException("frame cut short");
+            }
+            if (kind == ReplicationPrimary.HEARTBEAT) {
+                primarySequence = sequence;
+                continue;
+            }
+            if (kind != ReplicationPrimary.SNAPSHOT && kind != ReplicationPrimary.CHANGES) {
+                throw new IOException("unknown frame " + kind);
+            }
+            ChangeSet changes;
+            //anyone on this machine can answer on the port, so only a change set's classes are deserialized
+            try (ObjectInputStream ois = new ObjectInputStream(new SaveFile.BlockInputStream(new ByteArrayInputStream(body)))) {
+                ois.setObjectInputFilter(ChangeSet.FILTER);
+                changes = (ChangeSet) ois.readObject();
+            }
+            boolean snapshot = kind == ReplicationPrimary.SNAPSHOT;
+            //a snapshot supersedes anything still waiting from an earlier connection
+            if (snapshot) pending.clear();
+            pending.add(new Update(snapshot, sequence, changes));
+            primarySequence = Math.max(primarySequence, sequence);
+            for (Runnable listener : listeners) listener.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reader.interrupt();
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                //already closed
+            }
+        }
+    }
+
+    private static final class Update {
+        final boolean snapshot;
+        final long sequence;
+        final ChangeSet changes;
+
+        Update(boolean snapshot, long sequence, ChangeSet changes) {
+            this.snapshot = snapshot;
+            this.sequence = sequence;
+            this.changes = changes;
+        }
+    }
+}
@@ -1,17 +1,33 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
 
 public class ResortGUI extends JFrame {
     //main output
     private final JTextArea output = new JTextArea(18, 80);
     private final JComboBox<String> typeFilterCombo = new JComboBox<>(new String[]{"All", "Hotel", "Apartment", "Lodge", "Cabin"});
     private final JTextField maxPriceField = new JTextField(7);
+    private final JComboBox<String> statusCombo = new JComboBox<>(new String[]{"Available", "Booked", "All"});
+    //results are shown a page at a time: sorted listings page both ways from the cursors of the page shown,
+    //query results only forwards, appending each page
+    private static final int OUTPUT_PAGE = 100;
+    private QueryResult<?> moreResults;
+    private BiFunction<String, Integer, ? extends Page<?>> listing;
+    private String listingTitle;
+    private Page<?> shownPage;
 
     //customers tab
     private final JTextField nameField = new JTextField(12);
@@ -21,8 +37,21 @@ public class ResortGUI extends JFrame {
     //packages tab
     private final JComboBox<Customer> customerCombo = new JComboBox<>();
     private final JComboBox<Accommodation> accommodationCombo = new JComboBox<>();
+    private final JComboBox<String> packageSortCombo = new JComboBox<>(new String[]{"By Date", "By Total Cost"});
     private final JTextField dateField = new JTextField(10); // "YYYY-MM-DD" or "now"
     private final JTextField daysField = new JTextField(5);
+    private final JTextField budgetField = new JTextField(7);
+    private final JComboBox<String> suggestTypeCombo = new JComboBox<>(new String[]{"Any", "Hotel", "Apartment", "Lodge", "Cabin"});
+    private final JComboBox<PriceBand> bandCombo = new JComboBox<>(PriceBand.values());
+    private final JComboBox<Integer> tierCombo = new JComboBox<>(new Integer[]{1, 2, 3});
+    private final JComboBox<TravelPackage> managePackageCombo = new JComboBox<>();
+    private final JTextField stayFromField = new JTextField(10);
+    private final JTextField stayToField = new JTextField(10);
+    private final JTextField manifestDateField = new JTextField("now", 10);
+    private final JComboBox<String> searchSkillCombo = new JComboBox<>(new String[]{"Any", "Beginner", "Intermediate", "Expert"});
+    private final JComboBox<String> searchTypeCombo = new JComboBox<>(new String[]{"Any", "Hotel", "Apartment", "Lodge", "Cabin"});
+    private final JComboBox<String> searchPassCombo = new JComboBox<>(new String[]{"Either", "With", "Without"});
+    private final JComboBox<String> searchLessonsCombo = new JComboBox<>(new String[]{"Either", "With", "Without"});
 
     //extras tab
     private final JComboBox<TravelPackage> packageForPassCombo = new JComboBox<>();
@@ -33,22 +62,59 @@ public class ResortGUI extends JFrame {
     private final JTextField lessonsCountField = new JTextField(5);
 
 
-    MtBullerResort resort = new MtBullerResort();
+    //lift usage tab, refreshed from the selected resort's pipeline
+    private final JTextArea usageArea = new JTextArea(12, 70);
+    private final JTextField scanPortField = new JTextField("4560", 5);
+    private final JButton listenBtn = new JButton("Listen");
 
-    public ResortGUI() {
+    //group tab
+    private final JComboBox<String> resortCombo = new JComboBox<>();
+    private final JTextField customerSearchField = new JTextField(14);
+
+    //combo models updated one record at a time as packages change
+    private final IdComboModel<Customer> freeCustomers = new IdComboModel<>(Customer::getID);
+    private final IdComboModel<Accommodation> availableUnits = new IdComboModel<>(Accommodation::getID);
+    private final IdComboModel<TravelPackage> allPackages = new IdComboModel<>(TravelPackage::getID);
+    private final IdComboModel<TravelPackage> packagesWithoutPass = new IdComboModel<>(TravelPackage::getID);
+    private final IdComboModel<TravelPackage> packagesWithoutLessons = new IdComboModel<>(TravelPackage::getID);
+
+    //diagnostics tab, from the watchdog timing every event on the EDT
+    private final EdtWatchdog watchdog;
+    private final JTextArea diagnosticsArea = new JTextArea(12, 70);
+
+    //filled in by the loader once the frame is showing
+    ResortGroup group;
+    MtBullerResort resort;
+    private List<Autosaver> autosavers = List.of();
+
+    //tabs start as placeholders and are built the first time they are selected after loading
+    private final JTabbedPane tabs = new JTabbedPane();
+    private final ArrayList<Supplier<Component>> tabBuilders = new ArrayList<>();
+
+    public ResortGUI(EdtWatchdog watchdog) {
         super("Mount Buller Resort GUI");
+        this.watchdog = watchdog;
 
-        resort.populateLists();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        //write pending changes before the window exits
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (group != null) MtBullerAdmin.shutdown(group, autosavers);
+            }
+        });
         setLayout(new BorderLayout());
 
         //tabs
-        JTabbedPane tabs = new JTabbedPane();
-        tabs.addTab("Accommodations", buildAccommodationsTab());
-        tabs.addTab("Customers", buildCustomersTab());
-        tabs.addTab("Packages", buildPackagesTab());
-        tabs.addTab("Extras", buildExtrasTab());
-        tabs.addTab("File", buildFileTab());
+        addLazyTab("Accommodations", this::buildAccommodationsTab);
+        addLazyTab("Customers", this::buildCustomersTab);
+        addLazyTab("Packages", this::buildPackagesTab);
+        addLazyTab("Extras", this::buildExtrasTab);
+        addLazyTab("File", this::buildFileTab);
+        addLazyTab("Group", this::buildGroupTab);
+        addLazyTab("Lift Usage", this::buildLiftUsageTab);
+        addLazyTab("Diagnostics", this::buildDiagnosticsTab);
+        tabs.addChangeListener(e -> buildSelectedTab());
 
 
         //add components
@@ -57,39 +123,148 @@ public class ResortGUI extends JFrame {
 
         add(scroll, BorderLayout.CENTER);
 
-        updateCombos();
+        customerCombo.setModel(freeCustomers);
+        accommodationCombo.setModel(availableUnits);
+        managePackageCombo.setModel(allPackages);
+        packageForPassCombo.setModel(packagesWithoutPass);
+        packageForLessonsCombo.setModel(packagesWithoutLessons);
+        output.setText("Loading resort data...\n");
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
+
+        new Loader().execute();
     }
 
 
     public static void main(String[] args) {
-        new ResortGUI();
+        //-Dmtbuller.edt.thresholdMillis is how long one event may hold the EDT before it is traced as slow
+        EdtWatchdog watchdog = EdtWatchdog.install(Long.getLong("mtbuller.edt.thresholdMillis", EdtWatchdog.DEFAULT_THRESHOLD_MILLIS));
+        SwingUtilities.invokeLater(() -> new ResortGUI(watchdog));
+    }
+
+    private void addLazyTab(String title, Supplier<Component> builder) {
+        JPanel placeholder = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        placeholder.add(new JLabel("Loading..."));
+        tabs.addTab(title, placeholder);
+        tabBuilders.add(builder);
+    }
+
+    private void buildSelectedTab() {
+        int i = tabs.getSelectedIndex();
+        if (resort == null || i < 0 || tabBuilders.get(i) == null) {
+            return;
+        }
+        tabs.setComponentAt(i, tabBuilders.get(i).get());
+        tabBuilders.set(i, null);
+        tabs.revalidate();
     }
 
+    //opens the resorts off the EDT, feeding the first resort's records into the combo models as it goes
+    private class Loader extends SwingWorker<ResortGroup, Object> {
+        private static final int CHUNK = 500;
+        private List<Autosaver> started = List.of();
+
+        @Override
+        protected ResortGroup doInBackground() {
+            ResortGroup loaded = MtBullerAdmin.createGroup(new Scanner(System.in));
+            started = MtBullerAdmin.startAutosave(loaded);
+            MtBullerAdmin.startConfirmations(loaded);
+            MtBullerResort first = loaded.getResorts().getFirst();
+            //nothing touches the lists until done() hands the group to the EDT
+            publishAll(first.customers);
+            publishAll(first.accommodations);
+            publishAll(first.packages);
+            return loaded;
+        }
+
+        private void publishAll(List<?> records) {
+            for (int i = 0; i < records.size(); i += CHUNK) {
+                publish(records.subList(i, Math.min(records.size(), i + CHUNK)).toArray());
+            }
+        }
+
+        @Override
+        protected void process(List<Object> records) {
+            for (Object record : records) {
+                if (record instanceof Customer c) {
+                    freeCustomers.sync(c, !c.inPackage());
+                } else if (record instanceof Accommodation a) {
+                    availableUnits.sync(a, a.isAvailable());
+                } else if (record instanceof TravelPackage p) {
+                    allPackages.sync(p, true);
+                    packagesWithoutPass.sync(p, !p.getHasLiftPass());
+                    packagesWithoutLessons.sync(p, !p.getHasLessons());
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            try {
+                group = get();
+            } catch (Exception e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                output.setText("Could not load resort data: " + cause.getMessage() + "\n");
+                JOptionPane.showMessageDialog(ResortGUI.this, "Could not load resort data: " + cause.getMessage());
+                return;
+            }
+            autosavers = started;
+            resort = group.getResorts().getFirst();
+            for (MtBullerResort r : group.getResorts()) {
+                resortCombo.addItem(r.getName());
+                r.waitlist.setOnAssigned(pkg -> {
+                    output.append("Waitlisted customer assigned: " + pkg + "\n");
+                    if (r == resort) syncPackage(pkg);
+                });
+                r.liftUsage.addListener(snapshot -> SwingUtilities.invokeLater(() -> {
+                    if (r == resort) usageArea.setText(r.liftUsage.describe());
+                }));
+                //replicated changes are applied on the EDT, which owns the resort
+                if (r.isReplica()) {
+                    r.replica.addListener(() -> SwingUtilities.invokeLater(() -> {
+                        if (r.applyReplicated() > 0 && r == resort) updateCombos();
+                    }));
+                    r.applyReplicated();
+                }
+            }
+            //the EDT owns the resorts, so it is the one that hands their changes to autosave
+            new Timer(1000, e -> {
+                for (MtBullerResort r : group.getResorts()) r.collectChanges();
+            }).start();
+            setTitle(title());
+            output.setText("Loaded " + resort.customers.size() + " customers, " + resort.accommodations.size()
+                    + " accommodations and " + resort.packages.size() + " packages.\n");
+            buildSelectedTab();
+        }
+    }
+
+
+    //a button that changes the resort, disabled on a read-only replica
+    private JButton writeButton(String label) {
+        JButton button = new JButton(label);
+        if (resort.isReplica()) {
+            button.setEnabled(false);
+            button.setToolTipText("Read-only replica: make changes on the primary");
+        }
+        return button;
+    }
+
+    private String title() {
+        return resort.getName() + " Resort GUI" + (resort.isReplica() ? " (read-only replica)" : "");
+    }
 
     private Component buildAccommodationsTab() {
         JPanel p = new JPanel();
         p.setLayout(new FlowLayout(FlowLayout.LEFT));
 
         JButton listAllBtn = new JButton("List All");
-        listAllBtn.addActionListener(e -> {
-            output.setText("----- All Accommodations -----\n");
-            for (Accommodation a : resort.accommodations) {
-                output.append(a + "\n");
-            }
-        });
+        listAllBtn.addActionListener(e -> showPage("----- All Accommodations by Price -----",
+                resort::accommodationsByPrice, "There are no accommodations."));
 
         JButton listAvaiBtn = new JButton("List Available");
-        listAvaiBtn.addActionListener(e -> {
-            output.setText("----- Available Accommodations -----\n");
-            for (Accommodation a : resort.accommodations) {
-                if (a.isAvailable()) {
-                    output.append(a + "\n");
-                }
-            }
-        });
+        listAvaiBtn.addActionListener(e -> showResults("----- Available Accommodations -----",
+                new AccommodationQuery().available(true).run(resort.inventory), "There is no available accommodation!"));
 
         JButton filterTypeBtn = new JButton("Filter by Type");
         filterTypeBtn.addActionListener(e -> filterByType());
@@ -97,12 +272,19 @@ public class ResortGUI extends JFrame {
         JButton filterPriceBtn = new JButton("Filter by Price");
         filterPriceBtn.addActionListener(e -> filterByPrice());
 
+        //type, max price and status together
+        JButton searchBtn = new JButton("Search");
+        searchBtn.addActionListener(e -> searchAccommodations());
+
         p.add(listAllBtn);
         p.add(listAvaiBtn);
         p.add(typeFilterCombo);
         p.add(filterTypeBtn);
         p.add(maxPriceField);
         p.add(filterPriceBtn);
+        p.add(statusCombo);
+        p.add(searchBtn);
+        addPaging(p);
         return p;
     }
 
@@ -111,12 +293,9 @@ public class ResortGUI extends JFrame {
         p.setLayout(new FlowLayout(FlowLayout.LEFT));
 
         JButton listBtn = new JButton("List Customers");
-        listBtn.addActionListener(e -> {
-            output.setText("----- Customers -----\n");
-            for (Customer c : resort.customers) output.append(c + "\n");
-        });
+        listBtn.addActionListener(e -> showPage("----- Customers by Name -----", resort::customersByName, "There are no customers."));
 
-        JButton addBtn = new JButton("Add Customer");
+        JButton addBtn = writeButton("Add Customer");
         addBtn.addActionListener(this::handleAddCustomer);
 
         p.add(listBtn);
@@ -127,6 +306,7 @@ public class ResortGUI extends JFrame {
         p.add(new JLabel("Skill:"));
         p.add(skillCombo);
         p.add(addBtn);
+        addPaging(p);
 
         return p;
     }
@@ -138,10 +318,17 @@ public class ResortGUI extends JFrame {
         JButton listBtn = new JButton("List Packages");
         listBtn.addActionListener(e -> listPackages());
 
-        JButton createBtn = new JButton("Create Package");
+        JButton createBtn = writeButton("Create Package");
         createBtn.addActionListener(e -> createPackage());
 
+        JButton groupBtn = writeButton("Group Booking...");
+        groupBtn.addActionListener(e -> bookGroup());
+
+        JButton suggestBtn = new JButton("Suggest");
+        suggestBtn.addActionListener(e -> suggestAccommodations());
+
         p1.add(listBtn);
+        p1.add(packageSortCombo);
         p1.add(new JLabel("Customer:"));
         p1.add(customerCombo);
         p1.add(new JLabel("Accommodation:"));
@@ -152,17 +339,174 @@ public class ResortGUI extends JFrame {
         p2.add(new JLabel("Days:"));
         p2.add(daysField);
         p2.add(createBtn);
-
+        p2.add(groupBtn);
+
+        JPanel p3 = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        p3.add(new JLabel("Budget:"));
+        p3.add(budgetField);
+        p3.add(new JLabel("Type:"));
+        p3.add(suggestTypeCombo);
+        p3.add(suggestBtn);
+
+        //waitlist uses the customer, type, date and days above
+        JButton waitlistBtn = writeButton("Join Waitlist");
+        waitlistBtn.addActionListener(e -> joinWaitlist());
+        JButton leaveWaitlistBtn = writeButton("Leave Waitlist");
+        leaveWaitlistBtn.addActionListener(e -> leaveWaitlist());
+
+        JPanel p4 = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        p4.add(new JLabel("Price band:"));
+        p4.add(bandCombo);
+        p4.add(new JLabel("Tier:"));
+        p4.add(tierCombo);
+        p4.add(waitlistBtn);
+        p4.add(leaveWaitlistBtn);
+
+        JButton searchPackagesBtn = new JButton("Search Packages");
+        searchPackagesBtn.addActionListener(e -> searchPackages());
+        JPanel p5 = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        p5.add(new JLabel("Staying from:"));
+        p5.add(stayFromField);
+        p5.add(new JLabel("to:"));
+        p5.add(stayToField);
+        p5.add(new JLabel("Skill:"));
+        p5.add(searchSkillCombo);
+        p5.add(new JLabel("Type:"));
+        p5.add(searchTypeCombo);
+        p5.add(new JLabel("Lift pass:"));
+        p5.add(searchPassCombo);
+        p5.add(new JLabel("Lessons:"));
+        p5.add(searchLessonsCombo);
+        p5.add(searchPackagesBtn);
+        addPaging(p5);
 
         JPanel container = new JPanel();
         container.setLayout(new BoxLayout(container, BoxLayout.Y_AXIS)); //vertical stacking
         container.add(p1);
         container.add(p2);
+        container.add(p3);
+        container.add(p4);
+        container.add(p5);
+        container.add(buildManifestPanel());
+        container.add(buildManagePanel());
 
         return container;
     }
 
 
+    //changes to an existing package, dates come from the fields above and the unit from the accommodation combo
+    private JPanel buildManagePanel() {
+        JButton cancelBtn = writeButton("Cancel Package");
+        cancelBtn.addActionListener(e -> cancelPackage());
+        JButton datesBtn = writeButton("Change Dates");
+        datesBtn.addActionListener(e -> changeDates());
+        JButton unitBtn = writeButton("Change Unit");
+        unitBtn.addActionListener(e -> changeAccommodation());
+        JButton removePassBtn = writeButton("Remove Pass");
+        removePassBtn.addActionListener(e -> modifyPackage(MtBullerResort::removeLiftPass, "Lift Pass removed."));
+        JButton removeLessonsBtn = writeButton("Remove Lessons");
+        removeLessonsBtn.addActionListener(e -> modifyPackage(MtBullerResort::removeLessons, "Lessons removed."));
+
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        p.add(new JLabel("Package:"));
+        p.add(managePackageCombo);
+        p.add(cancelBtn);
+        p.add(datesBtn);
+        p.add(unitBtn);
+        p.add(removePassBtn);
+        p.add(removeLessonsBtn);
+        return p;
+    }
+
+    //made on the resort that holds the package
+    private interface PackageChange {
+        void apply(MtBullerResort owner, TravelPackage pkg);
+    }
+
+    //the resort holding the package, found through the group; null after telling the user it is gone
+    private MtBullerResort ownerOf(TravelPackage pkg) {
+        MtBullerResort owner = group.ownerOfPackage(pkg.getID());
+        if (owner == null) {
+            JOptionPane.showMessageDialog(this, "Package " + pkg.getID() + " no longer exists.");
+        }
+        return owner;
+    }
+
+    private TravelPackage selectedPackage() {
+        TravelPackage pkg = (TravelPackage) managePackageCombo.getSelectedItem();
+        if (pkg == null) {
+            JOptionPane.showMessageDialog(this, "Select a package.");
+        }
+        return pkg;
+    }
+
+    private void modifyPackage(PackageChange change, String message) {
+        TravelPackage pkg = selectedPackage();
+        if (pkg == null) {
+            return;
+        }
+        MtBullerResort owner = ownerOf(pkg);
+        if (owner == null) {
+            return;
+        }
+        try {
+            change.apply(owner, pkg);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+        output.setText(message + "\n" + pkg + "\n");
+        syncPackage(pkg);
+    }
+
+    private void cancelPackage() {
+        TravelPackage pkg = selectedPackage();
+        if (pkg == null) {
+            return;
+        }
+        int confirm = JOptionPane.showConfirmDialog(this, "Cancel package " + pkg.getID() + "?", "Cancel Package", JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+        //the waitlist may book the released unit, its callback appends to the output
+        output.setText("Package " + pkg.getID() + " cancelled.\n");
+        try {
+            group.cancelPackage(pkg);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+        syncPackage(pkg);
+    }
+
+    private void changeDates() {
+        TravelPackage pkg = selectedPackage();
+        if (pkg == null) {
+            return;
+        }
+        LocalDate date = readDate();
+        int days = readDays();
+        if (date == null || days <= 0) {
+            return;
+        }
+        modifyPackage((owner, p) -> owner.changeDates(p, date, days), "Dates changed.");
+    }
+
+    private void changeAccommodation() {
+        TravelPackage pkg = selectedPackage();
+        if (pkg == null) {
+            return;
+        }
+        Accommodation a = (Accommodation) accommodationCombo.getSelectedItem();
+        if (a == null) {
+            JOptionPane.showMessageDialog(this, "Select an accommodation.");
+            return;
+        }
+        Accommodation old = pkg.getAccommodation();
+        modifyPackage((owner, p) -> owner.changeAccommodation(p, a), "Accommodation changed.");
+        if (old != null) syncUnit(old);
+    }
+
     private Component buildExtrasTab() {
         //main panel
         JPanel container = new JPanel();
@@ -174,7 +518,7 @@ public class ResortGUI extends JFrame {
         passGroup.add(dailyPassBtn);
         passGroup.add(seasonPassBtn);
 
-        JButton addPassBtn = new JButton("Add Lift Pass");
+        JButton addPassBtn = writeButton("Add Lift Pass");
         addPassBtn.addActionListener(e -> handleAddPass());
 
         passPanel.add(new JLabel("Lift Pass → Package:"));
@@ -187,7 +531,7 @@ public class ResortGUI extends JFrame {
 
         //lessons panel
         JPanel lessonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JButton addLessonsBtn = new JButton("Add Lessons");
+        JButton addLessonsBtn = writeButton("Add Lessons");
         addLessonsBtn.addActionListener(e -> handleAddLessons());
 
         lessonsPanel.add(new JLabel("Lessons → Package:"));
@@ -196,8 +540,34 @@ public class ResortGUI extends JFrame {
         lessonsPanel.add(lessonsCountField);
         lessonsPanel.add(addLessonsBtn);
 
+        JPanel schedulePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton instructorsBtn = new JButton("Instructors");
+        instructorsBtn.addActionListener(e -> {
+            output.setText("----- Instructors -----\n");
+            for (Instructor i : resort.lessonScheduler.getInstructors()) output.append(i + "\n");
+        });
+        JButton reoptimizeBtn = writeButton("Re-optimise Lesson Schedule");
+        reoptimizeBtn.addActionListener(e -> {
+            List<Integer> unplaced = resort.lessonScheduler.reoptimize();
+            output.setText(unplaced.isEmpty() ? "All lessons rescheduled.\n"
+                    : "Could not reschedule lessons for packages " + unplaced + "\n");
+        });
+        schedulePanel.add(instructorsBtn);
+        schedulePanel.add(reoptimizeBtn);
+
+        JPanel gatePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField passIDField = new JTextField(6);
+        JButton gateBtn = new JButton("Check at Gate");
+        gateBtn.addActionListener(e -> checkLiftPass(passIDField.getText()));
+        gatePanel.add(new JLabel("Pass (package #):"));
+        gatePanel.add(passIDField);
+        gatePanel.add(new JLabel("on the date in the Packages tab, or today"));
+        gatePanel.add(gateBtn);
+
         container.add(passPanel);
         container.add(lessonsPanel);
+        container.add(schedulePanel);
+        container.add(gatePanel);
 
         return container;
     }
@@ -221,14 +591,37 @@ public class ResortGUI extends JFrame {
             JOptionPane.showMessageDialog(this, "Enter a positive lessons count.");
             return;
         }
-        String level = pkg.getCustomer().getSkillLevel();
-        Lessons lessons = new Lessons(level, count);
-        pkg.setLessons(lessons);
+        MtBullerResort owner = ownerOf(pkg);
+        if (owner == null) {
+            return;
+        }
+        try {
+            owner.bookLessons(pkg, count);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
         output.setText("Lessons added successfully!\n" + pkg + "\n");
-        updateCombos();
+        for (String line : owner.lessonScheduler.describe(pkg.getID())) output.append("   " + line + "\n");
+        syncPackage(pkg);
         lessonsCountField.setText("");
     }
 
+    private void checkLiftPass(String passID) {
+        int id;
+        try {
+            id = Integer.parseInt(passID.trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Enter a package number.");
+            return;
+        }
+        LocalDate date = dateField.getText().isBlank() ? LocalDate.now() : readDate();
+        if (date == null) {
+            return;
+        }
+        output.setText("Pass " + id + (resort.liftGate.isValid(id, date) ? " is valid on " : " is NOT valid on ") + date + "\n");
+    }
+
     private void handleAddPass() {
         TravelPackage pkg = (TravelPackage) packageForPassCombo.getSelectedItem();
         if (pkg == null) {
@@ -242,7 +635,7 @@ public class ResortGUI extends JFrame {
 
         LiftPass pass;
         if (seasonPassBtn.isSelected()) {
-            pass = new LiftPass("Season", 0);
+            pass = new LiftPass(LiftPassType.SEASON, 0);
         } else {
             int days;
             try {
@@ -252,11 +645,15 @@ public class ResortGUI extends JFrame {
                 JOptionPane.showMessageDialog(this, "Enter a valid number of days.");
                 return;
             }
-            pass = new LiftPass("Daily", days);
+            pass = new LiftPass(LiftPassType.DAILY, days);
+        }
+        MtBullerResort owner = ownerOf(pkg);
+        if (owner == null) {
+            return;
         }
-        pkg.setLiftPass(pass);
+        owner.addLiftPass(pkg, pass);
         output.setText("Lift pass added successfully!\n" + pkg + "\n");
-        updateCombos();
+        syncPackage(pkg);
         passDaysField.setText("");
     }
 
@@ -267,7 +664,7 @@ public class ResortGUI extends JFrame {
         JButton saveBtn = new JButton("Save Packages...");
         saveBtn.addActionListener(e -> savePackages());
 
-        JButton loadBtn = new JButton("Load Packages...");
+        JButton loadBtn = writeButton("Load Packages...");
         loadBtn.addActionListener(e -> readPackages());
 
         JButton listBtn = new JButton("List Packages");
@@ -279,6 +676,215 @@ public class ResortGUI extends JFrame {
         return p;
     }
 
+    private Component buildGroupTab() {
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        resortCombo.addActionListener(e -> switchResort());
+
+        JButton availableBtn = new JButton("Available (All Resorts)");
+        availableBtn.addActionListener(e -> {
+            output.setText("----- Available Accommodations (all resorts) -----\n");
+            List<ResortItem<Accommodation>> available = group.availableAccommodations(null, Double.MAX_VALUE);
+            for (ResortItem<Accommodation> item : available) output.append(item + "\n");
+            if (available.isEmpty()) output.append("There is no available accommodation!\n");
+        });
+
+        JButton revenueBtn = new JButton("Revenue");
+        revenueBtn.addActionListener(e -> {
+            output.setText("----- Revenue -----\n");
+            double total = 0;
+            for (Map.Entry<String, Double> entry : group.revenueByResort().entrySet()) {
+                output.append(String.format("%s: $%.2f%n", entry.getKey(), entry.getValue()));
+                total += entry.getValue();
+            }
+            output.append(String.format("Total: $%.2f%n", total));
+        });
+
+        JButton searchBtn = new JButton("Search Customers");
+        searchBtn.addActionListener(e -> {
+            output.setText("----- Customers matching \"" + customerSearchField.getText().trim() + "\" -----\n");
+            List<ResortItem<Customer>> found = group.searchCustomers(customerSearchField.getText());
+            for (ResortItem<Customer> item : found) output.append(item + "\n");
+            if (found.isEmpty()) output.append("No customers found.\n");
+        });
+
+        JButton replicationBtn = new JButton("Replication");
+        replicationBtn.addActionListener(e -> {
+            output.setText("----- Replication -----\n");
+            for (MtBullerResort r : group.getResorts()) output.append(r.getName() + ": " + r.replicationStatus() + "\n");
+        });
+
+        JButton confirmationsBtn = new JButton("Confirmations");
+        confirmationsBtn.addActionListener(e -> {
+            output.setText("----- Confirmations -----\n");
+            for (MtBullerResort r : group.getResorts()) output.append(r.getName() + ": " + r.confirmationStatus() + "\n");
+        });
+
+        JButton autosaveBtn = new JButton("Autosave");
+        autosaveBtn.addActionListener(e -> {
+            output.setText("----- Autosave -----\n");
+            for (MtBullerResort r : group.getResorts()) output.append(r.getName() + ": " + r.autosaveStatus() + "\n");
+        });
+
+        p.add(new JLabel("Resort:"));
+        p.add(resortCombo);
+        p.add(availableBtn);
+        p.add(revenueBtn);
+        p.add(customerSearchField);
+        p.add(searchBtn);
+        p.add(replicationBtn);
+        p.add(confirmationsBtn);
+        p.add(autosaveBtn);
+        return p;
+    }
+
+    private Component buildLiftUsageTab() {
+        JPanel p = new JPanel(new BorderLayout());
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        JButton replayBtn = new JButton("Replay Scan File...");
+        replayBtn.addActionListener(e -> replayScans());
+        listenBtn.addActionListener(e -> toggleListening());
+        JButton exportBtn = new JButton("Export CSV...");
+        exportBtn.addActionListener(e -> exportUsage());
+
+        controls.add(replayBtn);
+        controls.add(new JLabel("Gate feed port:"));
+        controls.add(scanPortField);
+        controls.add(listenBtn);
+        controls.add(exportBtn);
+
+        usageArea.setEditable(false);
+        usageArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        usageArea.setText(resort.liftUsage.describe());
+        p.add(controls, BorderLayout.NORTH);
+        p.add(new JScrollPane(usageArea), BorderLayout.CENTER);
+        return p;
+    }
+
+    private void replayScans() {
+        String fileName = JOptionPane.showInputDialog(this, "Enter scan file name:", "Replay Gate Scans", JOptionPane.PLAIN_MESSAGE);
+        if (fileName == null || fileName.isBlank()) {
+            return;
+        }
+        File f = new File(fileName.trim());
+        MtBullerResort r = resort;
+        output.setText("Replaying gate scans from " + f.getName() + "...\n");
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                r.liftUsage.replay(f).get();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    output.setText("Replayed gate scans from " + f.getName() + "\n");
+                } catch (Exception ex) {
+                    Throwable cause = ex;
+                    while (cause.getCause() != null) cause = cause.getCause();
+                    JOptionPane.showMessageDialog(ResortGUI.this, "Error reading scans: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void toggleListening() {
+        if (resort.liftUsage.isListening()) {
+            resort.liftUsage.stopListening();
+            listenBtn.setText("Listen");
+            output.setText("Stopped listening for gate scans.\n");
+            return;
+        }
+        try {
+            int port = Integer.parseInt(scanPortField.getText().trim());
+            resort.liftUsage.listen(port);
+            listenBtn.setText("Stop Listening");
+            output.setText("Listening for gate scans on port " + port + ".\n");
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Enter a port number.");
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Could not listen: " + ex.getMessage());
+        }
+    }
+
+    private void exportUsage() {
+        String fileName = JOptionPane.showInputDialog(this, "Enter CSV file name (leave blank for 'lift-usage.csv'):", "Export Lift Usage", JOptionPane.PLAIN_MESSAGE);
+        if (fileName == null) {
+            return;
+        }
+        fileName = fileName.isBlank() ? "lift-usage.csv" : fileName.trim();
+        try {
+            resort.liftUsage.exportTo(new File(fileName));
+            output.setText("Lift usage is being appended to " + fileName + "\n");
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error exporting: " + ex.getMessage());
+        }
+    }
+
+    //which handlers hold up the EDT and where they spend the time
+    private Component buildDiagnosticsTab() {
+        JPanel p = new JPanel(new BorderLayout());
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+        JButton refreshBtn = new JButton("Refresh");
+        refreshBtn.addActionListener(e -> showDiagnostics());
+        JButton clearBtn = new JButton("Clear");
+        clearBtn.addActionListener(e -> {
+            watchdog.clear();
+            showDiagnostics();
+        });
+        JButton exportBtn = new JButton("Export Log...");
+        exportBtn.addActionListener(e -> exportDiagnostics());
+
+        controls.add(new JLabel("Events slower than " + watchdog.getThresholdMillis() + " ms are traced"));
+        controls.add(refreshBtn);
+        controls.add(clearBtn);
+        controls.add(exportBtn);
+
+        diagnosticsArea.setEditable(false);
+        diagnosticsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        showDiagnostics();
+        p.add(controls, BorderLayout.NORTH);
+        p.add(new JScrollPane(diagnosticsArea), BorderLayout.CENTER);
+        return p;
+    }
+
+    private void showDiagnostics() {
+        diagnosticsArea.setText(watchdog.report());
+        diagnosticsArea.setCaretPosition(0);
+    }
+
+    private void exportDiagnostics() {
+        String fileName = JOptionPane.showInputDialog(this, "Enter log file name (leave blank for 'edt-diagnostics.log'):", "Export Diagnostics", JOptionPane.PLAIN_MESSAGE);
+        if (fileName == null) {
+            return;
+        }
+        fileName = fileName.isBlank() ? "edt-diagnostics.log" : fileName.trim();
+        try (Writer out = new BufferedWriter(new FileWriter(fileName))) {
+            watchdog.export(out);
+            output.setText("Diagnostics written to " + fileName + "\n");
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error exporting: " + ex.getMessage());
+        }
+    }
+
+    //the other tabs work on the selected resort
+    private void switchResort() {
+        MtBullerResort selected = group.getResort(Objects.toString(resortCombo.getSelectedItem(), ""));
+        if (selected == null || selected == resort) {
+            return;
+        }
+        resort = selected;
+        setTitle(title());
+        output.setText("Switched to " + resort.getName() + "\n");
+        usageArea.setText(resort.liftUsage.describe());
+        listenBtn.setText(resort.liftUsage.isListening() ? "Stop Listening" : "Listen");
+        updateCombos();
+    }
+
     private void savePackages() {
         String fileName = JOptionPane.showInputDialog(this, "Enter file name (leave blank for 'packages.dat'):", "Save Packages", JOptionPane.PLAIN_MESSAGE);
 
@@ -297,8 +903,8 @@ public class ResortGUI extends JFrame {
 
         File f = new File(fileName);
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(f))) {
-            oos.writeObject(new ArrayList<>(resort.packages));
+        try {
+            SaveFile.writeSegments(resort.packages, f, Deflater.DEFAULT_COMPRESSION);
             output.setText("Packages saved to " + f.getName() + "\n");
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Error saving: " + ex.getMessage());
@@ -330,25 +936,12 @@ public class ResortGUI extends JFrame {
             return;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(f))) {
-            resort.packages = (ArrayList<TravelPackage>) ois.readObject();
-
+        try {
             //restore customer and accommodation statuses
-            for (TravelPackage pkg : resort.packages) {
-                Customer c = resort.searchCustomerByID(pkg.getCustomer().getID());
-                if (c != null) {
-                    c.setHasPackage();
-                } else {
-                    Customer newC = pkg.getCustomer();
-                    newC.setHasPackage();
-                    resort.customers.add(newC);
-                }
-
-                Accommodation a = resort.searchAccommodationByID(pkg.getAccommodation().getID());
-                if (a != null) a.setAvailable(false);
-            }
+            ArrayList<String> notes = resort.loadPackages(f);
 
             listPackages();
+            for (String note : notes) output.append("\n" + note);
             output.append("\nPackages loaded from " + f.getName());
             updateCombos();
         } catch (Exception ex) {
@@ -377,45 +970,158 @@ public class ResortGUI extends JFrame {
             return;
         }
 
-        LocalDate date;
+        LocalDate date = readDate();
+        int days = readDays();
+        if (date == null || days <= 0) {
+            return;
+        }
+
+        TravelPackage pkg;
+        try {
+            pkg = group.createPackage(c, a, date, days);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+
+        output.setText("Package created successfully!\n" + pkg + "\n");
+        syncPackage(pkg);
+        dateField.setText("");
+        daysField.setText("");
+    }
+
+    //null after telling the user the date is invalid
+    private LocalDate readDate() {
         String dateTxt = dateField.getText().trim();
         if (dateTxt.equalsIgnoreCase("now")) {
-            date = LocalDate.now();
+            return LocalDate.now();
+        }
+        try {
+            return LocalDate.parse(dateTxt);
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date format.");
+            return null;
+        }
+    }
+
+    //0 after telling the user the number of days is invalid
+    private int readDays() {
+        try {
+            int days = Integer.parseInt(daysField.getText().trim());
+            if (days <= 0) throw new NumberFormatException();
+            return days;
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Enter a positive number of days.");
+            return 0;
+        }
+    }
+
+    //arrivals, departures and who is in house for one day
+    private JPanel buildManifestPanel() {
+        JButton manifestBtn = new JButton("Daily Manifest");
+        manifestBtn.addActionListener(e -> showManifest());
+
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        p.add(new JLabel("Manifest date (YYYY-MM-DD or now):"));
+        p.add(manifestDateField);
+        p.add(manifestBtn);
+        return p;
+    }
+
+    private void showManifest() {
+        String text = manifestDateField.getText().trim();
+        LocalDate date;
+        try {
+            date = text.equalsIgnoreCase("now") ? LocalDate.now() : LocalDate.parse(text);
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date format.");
+            return;
+        }
+        listing = null;
+        moreResults = null;
+        output.setText("");
+        for (ManifestIndex.Kind kind : ManifestIndex.Kind.values()) {
+            List<TravelPackage> found = resort.manifest(kind, date);
+            output.append("----- " + kind.label() + " on " + date + " (" + found.size() + ") -----\n");
+            for (TravelPackage pkg : found) output.append(MtBullerResort.manifestLine(pkg) + "\n");
+        }
+        output.setCaretPosition(0);
+    }
+
+    private void joinWaitlist() {
+        Customer c = (Customer) customerCombo.getSelectedItem();
+        if (c == null) {
+            JOptionPane.showMessageDialog(this, "Select a customer.");
+            return;
+        }
+        LocalDate date = readDate();
+        int days = readDays();
+        if (date == null || days <= 0) {
+            return;
+        }
+        String sel = Objects.toString(suggestTypeCombo.getSelectedItem(), "Any");
+        String type = sel.equalsIgnoreCase("Any") ? null : sel;
+
+        try {
+            WaitlistRequest request = resort.waitlist.join(c, type, (PriceBand) bandCombo.getSelectedItem(),
+                    date, days, (Integer) tierCombo.getSelectedItem());
+            output.setText("Added to the waitlist:\n" + request + "\n");
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+        }
+    }
+
+    private void leaveWaitlist() {
+        Customer c = (Customer) customerCombo.getSelectedItem();
+        if (c == null) {
+            JOptionPane.showMessageDialog(this, "Select a customer.");
+            return;
+        }
+        if (resort.waitlist.leave(c)) {
+            output.setText(c.getName() + " was removed from the waitlist.\n");
         } else {
-            try {
-                date = LocalDate.parse(dateTxt);
-            } catch (DateTimeParseException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid date format.");
-                return;
-            }
+            JOptionPane.showMessageDialog(this, c.getName() + " is not on the waitlist.");
         }
+    }
+
+    //fills the accommodation combo with the cheapest units that fit the budget
+    private void suggestAccommodations() {
+        double budget;
         int days;
         try {
+            budget = Double.parseDouble(budgetField.getText().trim());
             days = Integer.parseInt(daysField.getText().trim());
-            if (days <= 0) throw new NumberFormatException();
+            if (budget <= 0 || days <= 0) throw new NumberFormatException();
         } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(this, "Enter a positive number of days.");
+            JOptionPane.showMessageDialog(this, "Enter a budget and number of days greater than 0.");
             return;
         }
+        String sel = Objects.toString(suggestTypeCombo.getSelectedItem(), "Any");
+        List<String> types = sel.equalsIgnoreCase("Any") ? List.of() : List.of(sel);
 
-        TravelPackage pkg = new TravelPackage(c, date, days);
-        pkg.attachAccommodation(a);
-        a.setAvailable(false);
-        c.setHasPackage();
-        resort.packages.add(pkg);
+        //quotes for today unless a travel date is entered
+        LocalDate date = dateField.getText().isBlank() ? LocalDate.now() : readDate();
+        if (date == null) {
+            return;
+        }
 
-        output.setText("Package created successfully!\n" + pkg + "\n");
-        updateCombos();
-        dateField.setText("");
-        daysField.setText("");
+        List<Accommodation> suggestions = resort.recommender.suggest(budget, types, date, days, MtBullerResort.SUGGESTION_COUNT);
+        output.setText("----- Suggested Accommodations ($" + budget + " for " + days + " days from " + date + ") -----\n");
+        for (Accommodation a : suggestions) {
+            output.append(String.format("%s  stay: $%.2f%n", a, resort.quoter.nightlyRate(a, date, days) * days));
+        }
+        if (suggestions.isEmpty()) {
+            output.append("No accommodations fit that budget.\n");
+            return;
+        }
+        accommodationCombo.setModel(new DefaultComboBoxModel<>(suggestions.toArray(new Accommodation[0])));
     }
 
     private void listPackages() {
-        if (resort.packages.isEmpty()) {
-            output.setText("There are no packages.\n");
+        if (packageSortCombo.getSelectedIndex() == 1) {
+            showPage("----- Packages by Total Cost -----", resort::packagesByCost, "There are no packages.");
         } else {
-            output.setText("----- Packages -----\n");
-            for (TravelPackage p : resort.packages) output.append(p + "\n");
+            showPage("----- Packages by Date -----", resort::packagesByDate, "There are no packages.");
         }
     }
 
@@ -428,15 +1134,9 @@ public class ResortGUI extends JFrame {
         try {
             double max = Double.parseDouble(txt);
             if (max <= 0) throw new NumberFormatException();
-            output.setText("----- Available Accommodations (Max $" + max + ") -----\n");
-            int count = 0;
-            for (Accommodation a : resort.accommodations) {
-                if (a.isAvailable() && a.getPrice() <= max) {
-                    output.append(a + "\n");
-                    count++;
-                }
-            }
-            if (count == 0) output.append("No accommodations found under $" + max + "\n");
+            showResults("----- Available Accommodations (Max $" + max + ") -----",
+                    new AccommodationQuery().maxPrice(max).available(true).run(resort.inventory),
+                    "No accommodations found under $" + max);
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Enter a valid number greater than 0.");
         }
@@ -444,16 +1144,127 @@ public class ResortGUI extends JFrame {
 
     private void filterByType() {
         String sel = Objects.toString(typeFilterCombo.getSelectedItem(), "All");
-        output.setText("----- Available Accommodations (" + sel + ") -----\n");
-        int count = 0;
-        for (Accommodation a : resort.accommodations) {
-            boolean choice = sel.equalsIgnoreCase("All") || a.getType().equalsIgnoreCase(sel);
-            if (choice && a.isAvailable()) {
-                output.append(a + "\n");
-                count++;
+        String type = sel.equalsIgnoreCase("All") ? null : sel;
+        showResults("----- Available Accommodations (" + sel + ") -----",
+                new AccommodationQuery().type(type).available(true).run(resort.inventory),
+                "No accommodations found for type: " + sel);
+    }
+
+    private void searchAccommodations() {
+        AccommodationQuery query = new AccommodationQuery();
+        String type = Objects.toString(typeFilterCombo.getSelectedItem(), "All");
+        if (!type.equalsIgnoreCase("All")) query.type(type);
+        String status = Objects.toString(statusCombo.getSelectedItem(), "All");
+        if (!status.equals("All")) query.available(status.equals("Available"));
+        try {
+            if (!maxPriceField.getText().isBlank()) query.maxPrice(Double.parseDouble(maxPriceField.getText().trim()));
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Enter a valid max price or leave it blank.");
+            return;
+        }
+        showResults("----- Accommodations (" + query + ") -----", query.run(resort.inventory), "No accommodations match.");
+    }
+
+    private void searchPackages() {
+        PackageQuery query = new PackageQuery();
+        try {
+            String from = stayFromField.getText().trim();
+            String to = stayToField.getText().trim();
+            if (!from.isEmpty() || !to.isEmpty()) {
+                LocalDate start = LocalDate.parse(from.isEmpty() ? to : from);
+                query.staying(start, to.isEmpty() ? start : LocalDate.parse(to));
             }
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Dates must be YYYY-MM-DD.");
+            return;
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage());
+            return;
+        }
+        String skill = Objects.toString(searchSkillCombo.getSelectedItem(), "Any");
+        if (!skill.equals("Any")) query.skill(SkillLevel.parse(skill));
+        String type = Objects.toString(searchTypeCombo.getSelectedItem(), "Any");
+        if (!type.equals("Any")) query.type(type);
+        String pass = Objects.toString(searchPassCombo.getSelectedItem(), "Either");
+        if (!pass.equals("Either")) query.withLiftPass(pass.equals("With"));
+        String lessons = Objects.toString(searchLessonsCombo.getSelectedItem(), "Either");
+        if (!lessons.equals("Either")) query.withLessons(lessons.equals("With"));
+        showResults("----- Packages (" + query + ") -----", query.run(resort), "No packages match.");
+    }
+
+    private void addPaging(JPanel p) {
+        JButton prevBtn = new JButton("Prev");
+        prevBtn.addActionListener(e -> showPrevious());
+        JButton nextBtn = new JButton("Next");
+        nextBtn.addActionListener(e -> showNext());
+        p.add(prevBtn);
+        p.add(nextBtn);
+    }
+
+    //shows the first page of a sorted listing
+    private void showPage(String title, BiFunction<String, Integer, ? extends Page<?>> listing, String emptyText) {
+        moreResults = null;
+        this.listing = listing;
+        listingTitle = title;
+        shownPage = listing.apply(null, OUTPUT_PAGE);
+        if (shownPage.getItems().isEmpty()) {
+            output.setText(title + "\n" + emptyText + "\n");
+            return;
         }
-        if (count == 0) output.append("No accommodations found for type: " + sel + "\n");
+        printPage();
+    }
+
+    private void printPage() {
+        output.setText(listingTitle + "\n");
+        for (Object record : shownPage.getItems()) output.append(record + "\n");
+        if (shownPage.hasPrevious() || shownPage.hasNext()) {
+            output.append("(" + (shownPage.hasPrevious() ? "Prev" : "") + (shownPage.hasPrevious() && shownPage.hasNext() ? " and " : "")
+                    + (shownPage.hasNext() ? "Next" : "") + " for more)\n");
+        }
+        output.setCaretPosition(0);
+    }
+
+    private void showNext() {
+        if (listing == null) {
+            showMore();
+        } else if (shownPage.hasNext()) {
+            shownPage = listing.apply(shownPage.getNext(), OUTPUT_PAGE);
+            printPage();
+        } else {
+            output.append("No more results.\n");
+        }
+    }
+
+    private void showPrevious() {
+        if (listing == null) {
+            output.append("Search results only page forwards, earlier ones are above.\n");
+        } else if (shownPage.hasPrevious()) {
+            shownPage = listing.apply(shownPage.getPrevious(), OUTPUT_PAGE);
+            printPage();
+        } else {
+            output.append("This is the first page.\n");
+        }
+    }
+
+    private void showResults(String title, QueryResult<?> result, String emptyText) {
+        output.setText(title + "\n");
+        listing = null;
+        moreResults = result;
+        if (!result.hasNext()) {
+            output.append(emptyText + "\n");
+            return;
+        }
+        showMore();
+    }
+
+    //appends the next page of the last query
+    private void showMore() {
+        if (moreResults == null || !moreResults.hasNext()) {
+            output.append("No more results.\n");
+            return;
+        }
+        for (Object record : moreResults.nextPage(OUTPUT_PAGE)) output.append(record + "\n");
+        if (moreResults.hasNext()) output.append("(press Next for the next " + OUTPUT_PAGE + ")\n");
     }
 
     private JScrollPane buildOutput() {
@@ -482,36 +1293,117 @@ public class ResortGUI extends JFrame {
             JOptionPane.showMessageDialog(this, "Skill level must be Beginner, Intermediate, or Expert.");
             return;
         }
+        if (resort.searchCustomerByEmail(email) != null) {
+            JOptionPane.showMessageDialog(this, "A customer with that email already exists.");
+            return;
+        }
         Customer c = new Customer(name, email, skill);
-        resort.customers.add(c);
+        resort.registerCustomer(c);
         output.setText("Customer added successfully:\n" + c + "\n");
-        updateCombos();
+        freeCustomers.sync(c, true);
         nameField.setText("");
         emailField.setText("");
     }
 
 
+    //rebuilds every model, used when switching resorts or after loading a file
     private void updateCombos() {
-        //customers without package
-        DefaultComboBoxModel<Customer> custModel = new DefaultComboBoxModel<>();
-        for (Customer c : resort.customers) if (!c.inPackage()) custModel.addElement(c);
-        customerCombo.setModel(custModel);
+        freeCustomers.setAll(new CustomerQuery().inPackage(false).run(resort).toList());
 
-        //available accommodations
-        DefaultComboBoxModel<Accommodation> accModel = new DefaultComboBoxModel<>();
-        for (Accommodation a : resort.accommodations) if (a.isAvailable()) accModel.addElement(a);
-        accommodationCombo.setModel(accModel);
+        availableUnits.setAll(new AccommodationQuery().available(true).run(resort.inventory).toList());
+        accommodationCombo.setModel(availableUnits);
 
-        //packages without pass
-        DefaultComboBoxModel<TravelPackage> passModel = new DefaultComboBoxModel<>();
-        for (TravelPackage p : resort.packages) if (!p.getHasLiftPass()) passModel.addElement(p);
-        packageForPassCombo.setModel(passModel);
+        allPackages.setAll(resort.packages);
+        packagesWithoutPass.setAll(new PackageQuery().withLiftPass(false).run(resort).toList());
+        packagesWithoutLessons.setAll(new PackageQuery().withLessons(false).run(resort).toList());
+    }
 
-        //packages without lessons
-        DefaultComboBoxModel<TravelPackage> lessonsModel = new DefaultComboBoxModel<>();
-        for (TravelPackage p : resort.packages) if (!p.getHasLessons()) lessonsModel.addElement(p);
-        packageForLessonsCombo.setModel(lessonsModel);
+    //the same unit requirement and extras for every selected customer, on the dates above
+    private void bookGroup() {
+        Customer[] free = new Customer[freeCustomers.getSize()];
+        for (int i = 0; i < free.length; i++) free[i] = freeCustomers.getElementAt(i);
+        JList<Customer> members = new JList<>(free);
+        members.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        members.setVisibleRowCount(10);
+        JComboBox<String> typeCombo = new JComboBox<>(new String[]{"Any", "Hotel", "Apartment", "Lodge", "Cabin"});
+        JTextField maxField = new JTextField(7);
+        JComboBox<String> passCombo = new JComboBox<>(new String[]{"None", "Daily", "Season"});
+        JTextField lessonsField = new JTextField("0", 4);
+
+        JPanel options = new JPanel(new GridLayout(0, 2, 4, 4));
+        options.add(new JLabel("Type:"));
+        options.add(typeCombo);
+        options.add(new JLabel("Max price (blank for any):"));
+        options.add(maxField);
+        options.add(new JLabel("Lift pass:"));
+        options.add(passCombo);
+        options.add(new JLabel("Lessons each:"));
+        options.add(lessonsField);
+        JPanel form = new JPanel(new BorderLayout(8, 8));
+        form.add(new JLabel("Customers (ctrl/shift-click to select several):"), BorderLayout.NORTH);
+        form.add(new JScrollPane(members), BorderLayout.CENTER);
+        form.add(options, BorderLayout.EAST);
+
+        if (JOptionPane.showConfirmDialog(this, form, "Group Booking", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        List<Customer> selected = members.getSelectedValuesList();
+        if (selected.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select at least one customer.");
+            return;
+        }
+        LocalDate date = readDate();
+        int days = readDays();
+        if (date == null || days <= 0) {
+            return;
+        }
+
+        List<TravelPackage> booked;
+        try {
+            String type = Objects.toString(typeCombo.getSelectedItem(), "Any");
+            double max = maxField.getText().isBlank() ? Double.MAX_VALUE : Double.parseDouble(maxField.getText().trim());
+            String pass = Objects.toString(passCombo.getSelectedItem(), "None");
+            int lessons = Integer.parseInt(lessonsField.getText().trim());
+            GroupBooking group = new GroupBooking(date, days);
+            for (Customer c : selected) {
+                group.addMember(c, type.equals("Any") ? null : type, max,
+                        pass.equals("None") ? null : LiftPassType.parse(pass), lessons);
+            }
+            booked = resort.bookGroup(group);
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Nothing was booked: " + ex.getMessage());
+            return;
+        }
+
+        //one update per model for the whole group
+        ArrayList<Accommodation> units = new ArrayList<>();
+        for (TravelPackage pkg : booked) units.add(pkg.getAccommodation());
+        allPackages.syncAll(booked, pkg -> true);
+        packagesWithoutPass.syncAll(booked, pkg -> !pkg.getHasLiftPass());
+        packagesWithoutLessons.syncAll(booked, pkg -> !pkg.getHasLessons());
+        freeCustomers.syncAll(selected, c -> !c.inPackage());
+        availableUnits.syncAll(units, Accommodation::isAvailable);
+        accommodationCombo.setModel(availableUnits);
+
+        output.setText("Group booked: " + booked.size() + " packages.\n");
+        for (TravelPackage pkg : booked) output.append(pkg + "\n");
+    }
+
+    //updates the combos for one package and the customer and unit it touches
+    private void syncPackage(TravelPackage pkg) {
+        boolean live = resort.isLoaded(pkg);
+        allPackages.sync(pkg, live);
+        packagesWithoutPass.sync(pkg, live && !pkg.getHasLiftPass());
+        packagesWithoutLessons.sync(pkg, live && !pkg.getHasLessons());
+        freeCustomers.sync(pkg.getCustomer(), !pkg.getCustomer().inPackage());
+        if (pkg.getAccommodation() != null) syncUnit(pkg.getAccommodation());
+    }
 
+    private void syncUnit(Accommodation a) {
+        availableUnits.sync(a, a.isAvailable());
+        //a filtered suggestion list is replaced by the full one after a booking change
+        accommodationCombo.setModel(availableUnits);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,266 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+//several resorts, each a shard holding its own customers, inventory and packages
+//writes are routed to the resort that owns the record, group-wide queries run on every resort in parallel and are merged
+public class ResortGroup {
+    private final LinkedHashMap<String, MtBullerResort> resorts = new LinkedHashMap<>();
+    //record id -> owning resort, filled as records are routed or found; ids are unique across the group
+    //only the thread that owns the resorts routes, so these are plain maps
+    private final HashMap<Integer, MtBullerResort> accommodationOwners = new HashMap<>();
+    private final HashMap<Integer, MtBullerResort> customerOwners = new HashMap<>();
+    private final HashMap<Integer, MtBullerResort> packageOwners = new HashMap<>();
+    private final Scanner input;
+
+    public ResortGroup(Scanner input) {
+        this.input = input;
+    }
+
+    public MtBullerResort addResort(String name) {
+        if (resorts.containsKey(name.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Resort " + name + " already exists.");
+        }
+        MtBullerResort resort = new MtBullerResort(name, input);
+        resorts.put(name.toLowerCase(Locale.ROOT), resort);
+        return resort;
+    }
+
+    public MtBullerResort getResort(String name) {
+        return resorts.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public List<MtBullerResort> getResorts() {
+        return new ArrayList<>(resorts.values());
+    }
+
+    //routing
+    public MtBullerResort ownerOfAccommodation(int id) {
+        return owner(accommodationOwners, id, r -> r.searchAccommodationByID(id) != null);
+    }
+
+    public MtBullerResort ownerOfCustomer(int id) {
+        return owner(customerOwners, id, r -> r.searchCustomerByID(id) != null);
+    }
+
+    //null once the package is cancelled
+    public MtBullerResort ownerOfPackage(int id) {
+        return owner(packageOwners, id, r -> r.searchPackageByID(id) != null);
+    }
+
+    //books in the resort that owns the unit, the customer must be registered there too
+    public TravelPackage createPackage(Customer customer, Accommodation accommodation, LocalDate date, int days) {
+        MtBullerResort owner = ownerOfAccommodation(accommodation.getID());
+        if (owner == null || owner.searchAccommodationByID(accommodation.getID()) != accommodation) {
+            throw new IllegalArgumentException("Accommodation " + accommodation.getID() + " does not belong to any resort.");
+        }
+        if (ownerOfCustomer(customer.getID()) != owner || owner.searchCustomerByID(customer.getID()) != customer) {
+            throw new IllegalArgumentException("Customer is not registered at " + owner.getName() + ".");
+        }
+        TravelPackage pkg = owner.createPackage(customer, accommodation, date, days);
+        packageOwners.put(pkg.getID(), owner);
+        return pkg;
+    }
+
+    //cancels in the resort holding the package and returns that resort
+    public MtBullerResort cancelPackage(TravelPackage pkg) {
+        MtBullerResort owner = ownerOfPackage(pkg.getID());
+        if (owner == null || owner.searchPackageByID(pkg.getID()) != pkg) {
+            throw new IllegalArgumentException("Package " + pkg.getID() + " does not belong to any resort.");
+        }
+        owner.cancelPackage(pkg);
+        packageOwners.remove(pkg.getID());
+        return owner;
+    }
+
+    //the cached owner if it still holds the record, otherwise the first resort that does, searched in order
+    private MtBullerResort owner(HashMap<Integer, MtBullerResort> owners, int id, Predicate<MtBullerResort> holds) {
+        MtBullerResort cached = owners.get(id);
+        if (cached != null && holds.test(cached)) return cached;
+        for (MtBullerResort r : resorts.values()) {
+            if (r != cached && holds.test(r)) {
+                owners.put(id, r);
+                return r;
+            }
+        }
+        owners.remove(id);
+        return null;
+    }
+
+    //group-wide queries
+    public List<ResortItem<Accommodation>> availableAccommodations(String type, double maxPrice) {
+        return resorts.values().parallelStream()
+                .flatMap(r -> new AccommodationQuery().type(type).maxPrice(maxPrice).available(true).run(r.inventory).toList()
+                        .stream().map(a -> new ResortItem<>(r, a)))
+                .sorted(Comparator.comparingDouble(item -> item.getItem().getPrice()))
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Double> revenueByResort() {
+        Map<MtBullerResort, Double> totals = resorts.values().parallelStream()
+                .collect(Collectors.toConcurrentMap(r -> r, MtBullerResort::revenue));
+        LinkedHashMap<String, Double> result = new LinkedHashMap<>();
+        for (MtBullerResort r : resorts.values()) {
+            result.put(r.getName(), totals.get(r));
+        }
+        return result;
+    }
+
+    //customers whose name or email contains the text, in resort order
+    public List<ResortItem<Customer>> searchCustomers(String text) {
+        String needle = text.trim().toLowerCase(Locale.ROOT);
+        return resorts.values().parallelStream()
+                .flatMap(r -> r.customers.stream()
+                        .filter(c -> c.getName().toLowerCase(Locale.ROOT).contains(needle)
+                                || MtBullerResort.normalizeEmail(c.getEmail()).contains(needle))
+                        .map(c -> new ResortItem<>(r, c)))
+                .collect(Collectors.toList());
+    }
+
+    public void run() {
+        boolean running = true;
+        System.out.println("------------ Resort Group ------------");
+
+        while (running) {
+            try {
+                System.out.println("\n1. Open a resort");
+                System.out.println("2. Available accommodations (all resorts)");
+                System.out.println("3. Revenue by resort");
+                System.out.println("4. Search customers (all resorts)");
+                System.out.println("5. Book a package (any resort)");
+                System.out.println("6. Change a package by ID (any resort)");
+                System.out.println("7. Quit");
+                System.out.print("\nPlease choose an option: ");
+
+                int option = input.nextInt();
+                input.nextLine();
+                for (MtBullerResort r : resorts.values()) r.applyReplicated();
+
+                switch (option) {
+                    case 1 -> openResort();
+                    case 2 -> {
+                        System.out.println("\n----- Available Accommodations (all resorts) -----");
+                        List<ResortItem<Accommodation>> available = availableAccommodations(null, Double.MAX_VALUE);
+                        for (ResortItem<Accommodation> item : available) System.out.println(item);
+                        if (available.isEmpty()) System.out.println("There is no available accommodation!");
+                    }
+                    case 3 -> {
+                        System.out.println("\n----- Revenue -----");
+                        double total = 0;
+                        for (Map.Entry<String, Double> entry : revenueByResort().entrySet()) {
+                            System.out.printf("%s: $%.2f%n", entry.getKey(), entry.getValue());
+                            total += entry.getValue();
+                        }
+                        System.out.printf("Total: $%.2f%n", total);
+                    }
+                    case 4 -> {
+                        System.out.print("Enter part of a name or email: ");
+                        List<ResortItem<Customer>> found = searchCustomers(input.nextLine());
+                        for (ResortItem<Customer> item : found) System.out.println(item);
+                        if (found.isEmpty()) System.out.println("No customers found.");
+                    }
+                    case 5 -> bookAnywhere();
+                    case 6 -> changeAnywhere();
+                    case 7 -> {
+                        running = false;
+                        System.out.println("Goodbye!");
+                    }
+                    default -> System.out.println("Invalid option.");
+                }
+                for (MtBullerResort r : resorts.values()) r.collectChanges();
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a number.");
+                input.nextLine();
+            }
+        }
+    }
+
+    //picks a free unit from any resort, then books it there for one of that resort's customers
+    private void bookAnywhere() {
+        List<ResortItem<Accommodation>> available = availableAccommodations(null, Double.MAX_VALUE);
+        if (available.isEmpty()) {
+            System.out.println("There is no available accommodation!");
+            return;
+        }
+        for (ResortItem<Accommodation> item : available) System.out.println(item);
+        System.out.print("Enter accommodation ID (or 0 to exit): ");
+        int id = input.nextInt();
+        input.nextLine();
+        if (id == 0) {
+            System.out.println("Action cancelled.");
+            return;
+        }
+        MtBullerResort owner = ownerOfAccommodation(id);
+        if (owner == null) {
+            System.out.println("Accommodation not found!");
+            return;
+        }
+        if (owner.isReplica()) {
+            System.out.println(owner.getName() + " is a read-only replica: make changes on the primary.");
+            return;
+        }
+        System.out.println("Booking at " + owner.getName() + ".");
+        Customer customer = owner.selectCustomer();
+        if (customer == null) {
+            return;
+        }
+        LocalDate date = owner.readDate();
+        System.out.print("Enter number of days: ");
+        int days = input.nextInt();
+        input.nextLine();
+        try {
+            TravelPackage pkg = createPackage(customer, owner.searchAccommodationByID(id), date, days);
+            System.out.println("Package created successfully!");
+            System.out.println(pkg);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    //finds the resort holding the package and opens its change menu there
+    private void changeAnywhere() {
+        System.out.print("Enter package number (or 0 to exit): ");
+        int id = input.nextInt();
+        input.nextLine();
+        if (id == 0) {
+            System.out.println("Action cancelled.");
+            return;
+        }
+        MtBullerResort owner = ownerOfPackage(id);
+        if (owner == null) {
+            System.out.println("Package not found!");
+            return;
+        }
+        if (owner.isReplica()) {
+            System.out.println(owner.getName() + " is a read-only replica: make changes on the primary.");
+            return;
+        }
+        TravelPackage pkg = owner.searchPackageByID(id);
+        System.out.println(owner.getName() + ": " + pkg);
+        owner.modifyPackage(pkg);
+    }
+
+    private void openResort() {
+        List<MtBullerResort> list = getResorts();
+        for (int i = 0; i < list.size(); i++) {
+            System.out.println((i + 1) + ". " + list.get(i).getName());
+        }
+        System.out.print("Choose a resort: ");
+        int choice = input.nextInt();
+        input.nextLine();
+        if (choice < 1 || choice > list.size()) {
+            System.out.println("Invalid resort.");
+            return;
+        }
+        list.get(choice - 1).run(); //returns when the operator quits that resort's menu
+    }
+}
@@ -0,0 +1,23 @@
+//a record returned by a group-wide query, tagged with the resort it came from
+public class ResortItem<T> {
+    private final MtBullerResort resort;
+    private final T item;
+
+    public ResortItem(MtBullerResort resort, T item) {
+        this.resort = resort;
+        this.item = item;
+    }
+
+    public MtBullerResort getResort() {
+        return resort;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + resort.getName() + "] " + item;
+    }
+}
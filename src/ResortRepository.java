@@ -0,0 +1,47 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+//storage behind a resort: the resort's lists are the working set, the repository is the full record
+public interface ResortRepository extends ChangeSink, AutoCloseable {
+    void saveCustomer(Customer customer) throws IOException;
+
+    void saveAccommodation(Accommodation accommodation) throws IOException;
+
+    void savePackage(TravelPackage pkg) throws IOException;
+
+    //no-op when the package isn't stored
+    void deletePackage(int id) throws IOException;
+
+    Customer findCustomer(int id) throws IOException;
+
+    Customer findCustomerByEmail(String email) throws IOException;
+
+    Accommodation findAccommodation(int id) throws IOException;
+
+    TravelPackage findPackage(int id) throws IOException;
+
+    List<Customer> allCustomers() throws IOException;
+
+    List<Accommodation> allAccommodations() throws IOException;
+
+    List<Accommodation> findAccommodationsByType(String type) throws IOException;
+
+    List<TravelPackage> findPackagesByCustomer(int customerID) throws IOException;
+
+    //packages still running on or after the date, i.e. start + days >= date
+    List<TravelPackage> findPackagesDepartingFrom(LocalDate date) throws IOException;
+
+    boolean isEmpty() throws IOException;
+
+    @Override
+    default void write(ChangeSet changes) throws IOException {
+        for (Customer c : changes.getCustomers()) saveCustomer(c);
+        for (Accommodation a : changes.getAccommodations()) saveAccommodation(a);
+        for (TravelPackage p : changes.getPackages()) savePackage(p);
+        for (int id : changes.getCancelledPackages()) deletePackage(id);
+    }
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,528 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+//save file format: magic, version, then blocks of serialized data, each optionally deflated and CRC32C checked
+//version 2 cuts a list into segments of blocks that are encoded and decoded independently on the fork/join pool
+//files without the magic are read as plain ObjectOutputStream files from older versions
+public class SaveFile {
+    static final int MAGIC = 0x4D425046; //"MBPF"
+    static final byte VERSION = 1;
+    static final byte SEGMENTED = 2;
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int SEGMENT_ITEMS = 2048;
+    private static final int SEGMENT_HEADER = 4 + 4; //item count, stored length
+    private static final int END_OF_SEGMENTS = -1;
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final byte END = -1;
+
+    //writes to a temp file next to the target, forces it to disk, then renames it over the target
+    //level is a Deflater level: 0 stores blocks uncompressed, -1 is the default
+    public static void write(Object value, File target, int level) throws IOException {
+        checkLevel(level);
+        writeAtomically(target, fos -> {
+            DataOutputStream header = new DataOutputStream(fos);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+
+            BlockOutputStream blocks = new BlockOutputStream(new BufferedOutputStream(fos), level);
+            ObjectOutputStream oos = new ObjectOutputStream(blocks);
+            oos.writeObject(value);
+            oos.close(); //ends the block stream and flushes it into fos
+        });
+    }
+
+    //segment: [item count][stored length][block stream holding the items], a count of -1 ends the file
+    //each segment has its own object stream, so an object shared by two segments is stored in both
+    public static void writeSegments(List<?> items, File target, int level) throws IOException {
+        checkLevel(level);
+        byte[][] segments = new byte[(items.size() + SEGMENT_ITEMS - 1) / SEGMENT_ITEMS][];
+        try {
+            ForkJoinPool.commonPool().invoke(new EncodeTask(items, level, segments, 0, segments.length));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writeAtomically(target, fos -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeByte(SEGMENTED);
+            for (int i = 0; i < segments.length; i++) {
+                out.writeInt(Math.min(SEGMENT_ITEMS, items.size() - i * SEGMENT_ITEMS));
+                out.writeInt(segments[i].length);
+                out.write(segments[i]);
+            }
+            out.writeInt(END_OF_SEGMENTS);
+            out.flush();
+        });
+    }
+
+    private static void checkLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between -1 and 9.");
+        }
+    }
+
+    interface FileBody {
+        void write(FileOutputStream out) throws IOException;
+    }
+
+    //writes a temporary file, forces it to disk and moves it over the target, so a crash leaves one or the other
+    static void writeAtomically(File target, FileBody body) throws IOException {
+        Path targetPath = target.getAbsoluteFile().toPath();
+        Path temp = targetPath.resolveSibling(target.getName() + ".tmp");
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+                body.write(fos);
+                fos.getChannel().force(true);
+            }
+            try {
+                Files.move(temp, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    //reads any format, checking every block's checksum as it streams in; a segmented file comes back as an ArrayList
+    public static Object read(File source) throws IOException, ClassNotFoundException {
+        if (version(source) == SEGMENTED) {
+            return readList(source, Object.class, null).getItems();
+        }
+        try (InputStream in = open(source);
+             ObjectInputStream ois = new ObjectInputStream(in)) {
+            return ois.readObject();
+        }
+    }
+
+    //returns a stream of the serialized bytes in the file, decoding blocks if the file has them
+    static InputStream open(File source) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(source));
+        in.mark(5);
+        DataInputStream header = new DataInputStream(in);
+        try {
+            if (header.readInt() == MAGIC) {
+                byte version = header.readByte();
+                if (version == SEGMENTED) {
+                    throw new IOException("Segmented save files are read with readList.");
+                }
+                if (version != VERSION) {
+                    throw new IOException("Unsupported save file version " + version);
+                }
+                return new BlockInputStream(in);
+            }
+        } catch (EOFException e) {
+            //too short for a header, let the legacy path report it
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        in.reset();
+        return in;
+    }
+
+    //the version byte, or 0 for a file from before the header
+    static int version(File source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(5);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                //keep reading
+            }
+            header.flip();
+            if (header.remaining() < 5 || header.getInt() != MAGIC) return 0;
+            return header.get();
+        }
+    }
+
+    //items of a list read from the file, and why any were left out
+    public static class Loaded<T> {
+        private final ArrayList<T> items = new ArrayList<>();
+        private final ArrayList<String> rejected = new ArrayList<>();
+
+        public ArrayList<T> getItems() {
+            return items;
+        }
+
+        public ArrayList<String> getRejected() {
+            return rejected;
+        }
+
+        private void addAll(Loaded<T> other) {
+            items.addAll(other.items);
+            rejected.addAll(other.rejected);
+        }
+
+        private void accept(Object item, Class<T> type, Function<T, String> check) {
+            if (!type.isInstance(item)) {
+                rejected.add("Skipped an entry of type " + (item == null ? "null" : item.getClass().getSimpleName()));
+                return;
+            }
+            T typed = type.cast(item);
+            String problem = check == null ? null : check.apply(typed);
+            if (problem == null) items.add(typed);
+            else rejected.add(problem);
+        }
+    }
+
+    //reads a saved list in file order, decoding and checking segments in parallel when the file has them
+    //check returns why an item is rejected, or null to keep it
+    public static <T> Loaded<T> readList(File source, Class<T> type, Function<T, String> check) throws IOException, ClassNotFoundException {
+        return foldList(source, Loaded::new, (loaded, item) -> loaded.accept(item, type, check), (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    //folds every item of a saved list without keeping the items: each segment is decoded into its own result on the
+    //fork/join pool and neighbouring results are combined in file order; older files are folded on this thread
+    public static <R> R foldList(File source, Supplier<R> empty, BiConsumer<R, Object> add, BinaryOperator<R> combine)
+            throws IOException, ClassNotFoundException {
+        if (version(source) != SEGMENTED) {
+            Object value = read(source);
+            if (!(value instanceof List<?> list)) {
+                throw new IOException(source.getName() + " does not hold a list.");
+            }
+            R result = empty.get();
+            for (Object item : list) add.accept(result, item);
+            return result;
+        }
+
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            //walk the segment headers to find where each one starts
+            ArrayList<long[]> segments = new ArrayList<>();
+            long position = 5;
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+            while (true) {
+                //the end marker is a lone count
+                header.clear().limit(4);
+                readFully(channel, header, position);
+                int count = header.getInt(0);
+                if (count == END_OF_SEGMENTS) break;
+                header.limit(SEGMENT_HEADER);
+                readFully(channel, header, position);
+                int length = header.getInt(4);
+                if (count < 0 || length < 0 || position + SEGMENT_HEADER + length > channel.size()) {
+                    throw new IOException("Save file segment header is corrupt.");
+                }
+                segments.add(new long[]{position + SEGMENT_HEADER, length, count});
+                position += SEGMENT_HEADER + length;
+            }
+            FoldTask<R> task = new FoldTask<>(channel, segments, empty, add, combine, 0, segments.size());
+            //a caller already on the pool, e.g. folding several files at once, runs it as a subtask
+            return ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (SegmentClassException e) {
+            throw e.notFound;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Save file is truncated.");
+            }
+        }
+    }
+
+    //serializes segments from..to into their slots
+    private static class EncodeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final List<?> items;
+        private final int level;
+        private final byte[][] segments;
+        private final int from;
+        private final int to;
+
+        EncodeTask(List<?> items, int level, byte[][] segments, int from, int to) {
+            this.items = items;
+            this.level = level;
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EncodeTask(items, level, segments, from, mid), new EncodeTask(items, level, segments, mid, to));
+                return;
+            }
+            if (from == to) return;
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ObjectOutputStream oos = new ObjectOutputStream(new BlockOutputStream(bytes, level));
+                int end = Math.min(items.size(), (from + 1) * SEGMENT_ITEMS);
+                for (int i = from * SEGMENT_ITEMS; i < end; i++) {
+                    oos.writeObject(items.get(i));
+                }
+                oos.close();
+                segments[from] = bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    //decodes segments from..to and folds their items, results are combined in file order
+    private static class FoldTask<R> extends RecursiveTask<R> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final List<long[]> segments;
+        private final Supplier<R> empty;
+        private final BiConsumer<R, Object> add;
+        private final BinaryOperator<R> combine;
+        private final int from;
+        private final int to;
+
+        FoldTask(FileChannel channel, List<long[]> segments, Supplier<R> empty, BiConsumer<R, Object> add,
+                 BinaryOperator<R> combine, int from, int to) {
+            this.channel = channel;
+            this.segments = segments;
+            this.empty = empty;
+            this.add = add;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                FoldTask<R> right = new FoldTask<>(channel, segments, empty, add, combine, mid, to);
+                right.fork();
+                R left = new FoldTask<>(channel, segments, empty, add, combine, from, mid).compute();
+                return combine.apply(left, right.join());
+            }
+            R result = empty.get();
+            if (from == to) return result;
+
+            long[] segment = segments.get(from);
+            try {
+                ByteBuffer stored = ByteBuffer.allocate((int) segment[1]);
+                readFully(channel, stored, segment[0]);
+                try (ObjectInputStream ois = new ObjectInputStream(new BlockInputStream(new ByteArrayInputStream(stored.array())))) {
+                    for (long i = 0; i < segment[2]; i++) {
+                        add.accept(result, ois.readObject());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new SegmentClassException(e);
+            }
+            return result;
+        }
+    }
+
+    //carries a ClassNotFoundException out of a fork/join task
+    private static class SegmentClassException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final ClassNotFoundException notFound;
+
+        SegmentClassException(ClassNotFoundException notFound) {
+            super(notFound);
+            this.notFound = notFound;
+        }
+    }
+
+    //block: [method byte][raw length][stored length][crc32c of raw bytes][stored bytes], END byte closes the stream
+    static class BlockOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final Deflater deflater;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private byte[] compressed = new byte[BLOCK_SIZE + 64];
+        private int count = 0;
+        private boolean closed = false;
+
+        BlockOutputStream(OutputStream out, int level) {
+            this.out = new DataOutputStream(out);
+            this.deflater = level == 0 ? null : new Deflater(level);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) writeBlock();
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) writeBlock();
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) return;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer, 0, count);
+
+            int stored = -1;
+            if (deflater != null) {
+                deflater.reset();
+                deflater.setInput(buffer, 0, count);
+                deflater.finish();
+                stored = 0;
+                while (!deflater.finished()) {
+                    if (stored == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    stored += deflater.deflate(compressed, stored, compressed.length - stored);
+                }
+            }
+
+            if (stored >= 0 && stored < count) {
+                out.writeByte(DEFLATED);
+                out.writeInt(count);
+                out.writeInt(stored);
+                out.writeInt((int) crc.getValue());
+                out.write(compressed, 0, stored);
+            } else {
+                //not worth compressing
+                out.writeByte(STORED);
+                out.writeInt(count);
+                out.writeInt(count);
+                out.writeInt((int) crc.getValue());
+                out.write(buffer, 0, count);
+            }
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            writeBlock();
+            out.writeByte(END);
+            out.flush();
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    static class BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater();
+        private byte[] block = new byte[BLOCK_SIZE];
+        private byte[] stored = new byte[BLOCK_SIZE];
+        private int pos = 0;
+        private int limit = 0;
+        private boolean ended = false;
+
+        BlockInputStream(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == limit && !nextBlock()) return -1;
+            return block[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (pos == limit && !nextBlock()) return -1;
+            int n = Math.min(len, limit - pos);
+            System.arraycopy(block, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (ended) return false;
+            byte method;
+            try {
+                method = in.readByte();
+            } catch (EOFException e) {
+                throw new IOException("Save file is truncated.");
+            }
+            if (method == END) {
+                ended = true;
+                return false;
+            }
+            int rawLength = in.readInt();
+            int storedLength = in.readInt();
+            int expectedCrc = in.readInt();
+            if (rawLength < 0 || storedLength < 0 || rawLength > BLOCK_SIZE) {
+                throw new IOException("Save file block header is corrupt.");
+            }
+            if (block.length < rawLength) block = new byte[rawLength];
+
+            if (method == STORED) {
+                in.readFully(block, 0, rawLength);
+            } else if (method == DEFLATED) {
+                if (stored.length < storedLength) stored = new byte[storedLength];
+                in.readFully(stored, 0, storedLength);
+                inflater.reset();
+                inflater.setInput(stored, 0, storedLength);
+                try {
+                    int n = 0;
+                    while (n < rawLength && !inflater.finished()) {
+                        n += inflater.inflate(block, n, rawLength - n);
+                        if (inflater.needsInput() && n < rawLength) break;
+                    }
+                    if (n != rawLength) throw new IOException("Save file block is corrupt.");
+                } catch (DataFormatException e) {
+                    throw new IOException("Save file block is corrupt.", e);
+                }
+            } else {
+                throw new IOException("Unknown block type " + method);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(block, 0, rawLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Save file checksum mismatch.");
+            }
+            pos = 0;
+            limit = rawLength;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+    }
+}
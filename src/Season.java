@@ -0,0 +1,76 @@
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+
+//the days of the year a resort's lifts run, e.g. 06-07/10-06; a season may run over new year, e.g. 12-01/04-15
+public class Season {
+    public static final Season MOUNT_BULLER = new Season(MonthDay.of(6, 7), MonthDay.of(10, 6));
+
+    private final MonthDay opens;
+    private final MonthDay closes;
+
+    public Season(MonthDay opens, MonthDay closes) {
+        if (opens.equals(closes)) {
+            throw new IllegalArgumentException("A season must close on a different day than it opens.");
+        }
+        this.opens = opens;
+        this.closes = closes;
+    }
+
+    //"MM-dd/MM-dd", opening day then closing day
+    public static Season parse(String text) {
+        String[] days = text.trim().split("/");
+        if (days.length != 2) {
+            throw new IllegalArgumentException("A season is written opens/closes, e.g. 06-07/10-06, not " + text.trim());
+        }
+        try {
+            return new Season(MonthDay.parse("--" + days[0].trim()), MonthDay.parse("--" + days[1].trim()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid season " + text.trim() + ", use MM-dd/MM-dd, e.g. 06-07/10-06");
+        }
+    }
+
+    public MonthDay getOpens() {
+        return opens;
+    }
+
+    public MonthDay getCloses() {
+        return closes;
+    }
+
+    //opening day of the season that opens in the year
+    public LocalDate opensIn(int year) {
+        return opens.atYear(year);
+    }
+
+    //closing day of the season that opened on the day
+    public LocalDate closesAfter(LocalDate opening) {
+        LocalDate closing = closes.atYear(opening.getYear());
+        return closing.isBefore(opening) ? closes.atYear(opening.getYear() + 1) : closing;
+    }
+
+    //opening day of the season the date falls in, null when the lifts aren't running
+    public LocalDate opensBefore(LocalDate date) {
+        for (int year = date.getYear(); year >= date.getYear() - 1; year--) {
+            LocalDate opening = opensIn(year);
+            if (!date.isBefore(opening) && !date.isAfter(closesAfter(opening))) return opening;
+        }
+        return null;
+    }
+
+    //days from opening to closing, both included; longest in a leap year
+    public int maxDays() {
+        int days = 0;
+        for (int year = 2023; year <= 2024; year++) {
+            LocalDate opening = opensIn(year);
+            days = Math.max(days, (int) (closesAfter(opening).toEpochDay() - opening.toEpochDay()) + 1);
+        }
+        return days;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%02d-%02d/%02d-%02d", opens.getMonthValue(), opens.getDayOfMonth(),
+                closes.getMonthValue(), closes.getDayOfMonth());
+    }
+}
@@ -0,0 +1,353 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+//grouped aggregates over archived season files, read straight from disk without loading them into a resort
+//every file is a fork/join task and every segment within it a subtask, each folding its packages into its own groups
+//usage: java SeasonAnalytics <group,by,...> <measure> <file.dat>... e.g. java SeasonAnalytics season,type stay *.dat
+public class SeasonAnalytics {
+    public enum Dimension {
+        SEASON, TYPE, SKILL, YEAR, MONTH, PASS, LESSONS;
+
+        //the group value of a package from a season file
+        String of(String season, TravelPackage pkg) {
+            return switch (this) {
+                case SEASON -> season;
+                case TYPE -> pkg.getAccommodation().getType();
+                case SKILL -> pkg.getCustomer().getSkill() == null ? "unknown" : pkg.getCustomer().getSkill().label();
+                case YEAR -> String.valueOf(pkg.getDate().getYear());
+                case MONTH -> YearMonth.from(pkg.getDate()).toString();
+                case PASS -> pkg.getLiftPass() == null || pkg.getLiftPass().getType() == null ? "none" : pkg.getLiftPass().getType().label();
+                case LESSONS -> pkg.getLessons() == null || pkg.getLessons().getLevel() == null ? "none" : pkg.getLessons().getLevel().label();
+            };
+        }
+
+        static Dimension parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown group " + name.trim() + ", use " + names(values()));
+            }
+        }
+    }
+
+    //values are whole numbers, costs in cents; the uptake measures are 0 or 1 so their average is a rate
+    public enum Measure {
+        STAY(1), COST(100), LESSONS(1), LESSON_UPTAKE(1), PASS_UPTAKE(1);
+
+        private final int scale;
+
+        Measure(int scale) {
+            this.scale = scale;
+        }
+
+        long value(TravelPackage pkg) {
+            return switch (this) {
+                case STAY -> pkg.getDays();
+                case COST -> Math.round(pkg.getTotalCost() * 100);
+                case LESSONS -> pkg.getLessons() == null ? 0 : pkg.getLessons().getCount();
+                case LESSON_UPTAKE -> pkg.getHasLessons() ? 1 : 0;
+                case PASS_UPTAKE -> pkg.getHasLiftPass() ? 1 : 0;
+            };
+        }
+
+        static Measure parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown measure " + name.trim() + ", use " + names(values()));
+            }
+        }
+    }
+
+    public static final String[] STATS = {"count", "sum", "avg", "min", "p50", "p90", "p99", "max"};
+
+    private final List<Dimension> groupBy;
+    private final Measure measure;
+    private long packages = 0;
+    private long skipped = 0;
+
+    public SeasonAnalytics(List<Dimension> groupBy, Measure measure) {
+        if (groupBy.isEmpty()) {
+            throw new IllegalArgumentException("Group by at least one of " + names(Dimension.values()));
+        }
+        this.groupBy = List.copyOf(groupBy);
+        this.measure = measure;
+    }
+
+    //packages aggregated by the last run
+    public long getPackages() {
+        return packages;
+    }
+
+    //packages the last run left out because they had no customer, unit or dates
+    public long getSkipped() {
+        return skipped;
+    }
+
+    //scans every file in parallel and writes one CSV row per group
+    //grouped by season, a file's rows are written as soon as it and the files before it are done;
+    //otherwise the files' groups are merged and written at the end, sorted by group
+    public void run(List<File> files, Writer out) throws IOException, ClassNotFoundException {
+        for (File file : files) {
+            if (!file.isFile()) {
+                throw new IOException("No such file: " + file);
+            }
+        }
+        packages = 0;
+        skipped = 0;
+        writeRow(out, header());
+
+        ArrayList<ForkJoinTask<Groups>> tasks = new ArrayList<>();
+        for (File file : files) tasks.add(ForkJoinPool.commonPool().submit(new FileTask(file)));
+
+        Groups all = new Groups();
+        try {
+            for (ForkJoinTask<Groups> task : tasks) {
+                Groups groups = task.join();
+                packages += groups.packages;
+                skipped += groups.skipped;
+                if (groupBy.contains(Dimension.SEASON)) writeGroups(out, groups);
+                else all.merge(groups);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (ScanException e) {
+            throw e.notFound;
+        } finally {
+            for (ForkJoinTask<Groups> task : tasks) task.cancel(false);
+        }
+        if (!groupBy.contains(Dimension.SEASON)) writeGroups(out, all);
+        out.flush();
+    }
+
+    private List<String> header() {
+        ArrayList<String> header = new ArrayList<>();
+        for (Dimension d : groupBy) header.add(d.name().toLowerCase(Locale.ROOT));
+        header.add("measure");
+        header.addAll(Arrays.asList(STATS));
+        return header;
+    }
+
+    private void writeGroups(Writer out, Groups groups) throws IOException {
+        ArrayList<Map.Entry<List<String>, Stats>> rows = new ArrayList<>(groups.stats.entrySet());
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        String name = measure.name().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (Map.Entry<List<String>, Stats> row : rows) {
+            ArrayList<String> cells = new ArrayList<>(row.getKey());
+            cells.add(name);
+            row.getValue().addCells(cells, measure.scale);
+            writeRow(out, cells);
+        }
+    }
+
+    private static final Comparator<List<String>> KEY_ORDER = (a, b) -> {
+        for (int i = 0; i < a.size(); i++) {
+            int c = a.get(i).compareTo(b.get(i));
+            if (c != 0) return c;
+        }
+        return 0;
+    };
+
+    private static void writeRow(Writer out, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) out.write(',');
+            String cell = cells.get(i);
+            if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0) {
+                cell = '"' + cell.replace("\"", "\"\"") + '"';
+            }
+            out.write(cell);
+        }
+        out.write('\n');
+    }
+
+    //the season of a file is its name without the extension
+    static String season(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    //folds one file, its segments on the same pool
+    private final class FileTask extends RecursiveTask<Groups> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final File file;
+
+        FileTask(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected Groups compute() {
+            String season = season(file);
+            try {
+                return SaveFile.foldList(file, Groups::new, (groups, item) -> groups.add(season, item), Groups::merge);
+            } catch (IOException e) {
+                throw new UncheckedIOException(new IOException(file.getName() + ": " + e.getMessage(), e));
+            } catch (ClassNotFoundException e) {
+                throw new ScanException(e);
+            }
+        }
+    }
+
+    //carries a ClassNotFoundException out of a fork/join task
+    private static class ScanException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final ClassNotFoundException notFound;
+
+        ScanException(ClassNotFoundException notFound) {
+            super(notFound);
+            this.notFound = notFound;
+        }
+    }
+
+    //the groups of one segment, file or whole run
+    private final class Groups {
+        private final HashMap<List<String>, Stats> stats = new HashMap<>();
+        private long packages = 0;
+        private long skipped = 0;
+
+        void add(String season, Object item) {
+            if (!(item instanceof TravelPackage pkg) || MtBullerResort.checkPackage(pkg) != null) {
+                skipped++;
+                return;
+            }
+            packages++;
+            String[] key = new String[groupBy.size()];
+            for (int i = 0; i < key.length; i++) key[i] = groupBy.get(i).of(season, pkg);
+            stats.computeIfAbsent(List.of(key), k -> new Stats()).add(measure.value(pkg));
+        }
+
+        Groups merge(Groups other) {
+            packages += other.packages;
+            skipped += other.skipped;
+            other.stats.forEach((key, s) -> stats.merge(key, s, Stats::merge));
+            return this;
+        }
+    }
+
+    //count, sum, min, max and how often each value occurred, so percentiles are exact and results merge
+    //days and lesson counts take a handful of values, but occupancy pricing makes costs close to unique, so once a
+    //group holds more than MAX_VALUES distinct values they are rounded down to a coarser step, doubled until they
+    //fit; percentiles are then exact to within that step and the map never grows past MAX_VALUES entries
+    static final int MAX_VALUES = 4096;
+
+    private static final class Stats {
+        private long count = 0;
+        private long sum = 0;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long step = 1;
+        private TreeMap<Long, Long> values = new TreeMap<>();
+
+        void add(long value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            values.merge(bucket(value), 1L, Long::sum);
+            if (values.size() > MAX_VALUES) coarsen(step * 2);
+        }
+
+        Stats merge(Stats other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            if (other.step > step) coarsen(other.step);
+            other.values.forEach((value, n) -> values.merge(bucket(value), n, Long::sum));
+            while (values.size() > MAX_VALUES) coarsen(step * 2);
+            return this;
+        }
+
+        private long bucket(long value) {
+            return value - Math.floorMod(value, step);
+        }
+
+        private void coarsen(long newStep) {
+            step = newStep;
+            TreeMap<Long, Long> coarse = new TreeMap<>();
+            values.forEach((value, n) -> coarse.merge(bucket(value), n, Long::sum));
+            values = coarse;
+        }
+
+        //nearest-rank percentile, to within step once the values have been coarsened
+        long percentile(double p) {
+            long rank = Math.max(1, (long) Math.ceil(p * count));
+            long seen = 0;
+            for (Map.Entry<Long, Long> e : values.entrySet()) {
+                seen += e.getValue();
+                if (seen >= rank) return Math.max(min, e.getKey());
+            }
+            return max;
+        }
+
+        void addCells(List<String> cells, int scale) {
+            cells.add(String.valueOf(count));
+            cells.add(format(sum, scale));
+            cells.add(String.format(Locale.ROOT, "%.4f", sum / (double) count / scale));
+            cells.add(format(min, scale));
+            cells.add(format(percentile(0.5), scale));
+            cells.add(format(percentile(0.9), scale));
+            cells.add(format(percentile(0.99), scale));
+            cells.add(format(max, scale));
+        }
+
+        private static String format(long value, int scale) {
+            return scale == 1 ? String.valueOf(value) : String.format(Locale.ROOT, "%.2f", value / (double) scale);
+        }
+    }
+
+    static String names(Enum<?>[] values) {
+        ArrayList<String> names = new ArrayList<>();
+        for (Enum<?> v : values) names.add(v.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        return String.join(", ", names);
+    }
+
+    static List<Dimension> parseGroups(String groups) {
+        ArrayList<Dimension> dims = new ArrayList<>();
+        for (String name : groups.split(",")) {
+            if (!name.isBlank()) dims.add(Dimension.parse(name));
+        }
+        return dims;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("usage: java SeasonAnalytics <group,by,...> <measure> <file.dat>...");
+            System.err.println("groups: " + names(Dimension.values()));
+            System.err.println("measures: " + names(Measure.values()));
+            System.exit(2);
+        }
+        try {
+            SeasonAnalytics analytics = new SeasonAnalytics(parseGroups(args[0]), Measure.parse(args[1]));
+            ArrayList<File> files = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) files.add(new File(args[i]));
+            long start = System.nanoTime();
+            analytics.run(files, new PrintWriter(new OutputStreamWriter(System.out)));
+            System.err.printf("%d packages from %d files in %d ms, %d skipped%n", analytics.getPackages(), files.size(),
+                    (System.nanoTime() - start) / 1_000_000, analytics.getSkipped());
+        } catch (IllegalArgumentException | IOException | ClassNotFoundException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.Locale;
+
+public enum SkillLevel {
+    BEGINNER(25.0),
+    INTERMEDIATE(20.0),
+    EXPERT(15.0);
+
+    private final double lessonPrice;
+
+    SkillLevel(double lessonPrice) {
+        this.lessonPrice = lessonPrice;
+    }
+
+    public double lessonPrice() {
+        return lessonPrice;
+    }
+
+    //lower case name, as customers have always displayed it
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static SkillLevel parse(String level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Invalid level");
+        }
+        return switch (level.trim().toLowerCase(Locale.ROOT)) {
+            case "beginner" -> BEGINNER;
+            case "intermediate" -> INTERMEDIATE;
+            case "expert" -> EXPERT;
+            default -> throw new IllegalArgumentException("Invalid level");
+        };
+    }
+
+    //recovers the level of lessons saved before the level itself was stored
+    static SkillLevel fromLessonPrice(double price) {
+        for (SkillLevel level : values()) {
+            if (level.lessonPrice == price) return level;
+        }
+        return null;
+    }
+}
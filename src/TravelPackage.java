@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -5,16 +9,31 @@ import java.time.LocalDate;
 public class TravelPackage implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    //serialized with the original LocalDate and has-extras flags so older save files still load
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("pkgID", int.class),
+            new ObjectStreamField("days", int.class),
+            new ObjectStreamField("cust", Customer.class),
+            new ObjectStreamField("acc", Accommodation.class),
+            new ObjectStreamField("date", LocalDate.class),
+            new ObjectStreamField("liftPass", LiftPass.class),
+            new ObjectStreamField("hasLiftPass", boolean.class),
+            new ObjectStreamField("lessons", Lessons.class),
+            new ObjectStreamField("hasLessons", boolean.class),
+            new ObjectStreamField("nightlyRate", double.class)
+    };
+    private static final int NO_DATE = Integer.MIN_VALUE;
     private static int nextID = 1;
-    private final int pkgID = nextID++;
+    private int pkgID = nextID++;
     private int days;
     private Customer cust;
     private Accommodation acc;
-    private LocalDate date;
+    private int startDay = NO_DATE; //epoch day of the travel date
     private LiftPass liftPass;
-    private boolean hasLiftPass = false;
     private Lessons lessons;
-    private boolean hasLessons = false;
+    private double nightlyRate; //quoted when booked, 0 for packages saved before pricing and charged at the unit's price
+    private transient ChangeLog changes;
 
 
     public TravelPackage() {
@@ -23,15 +42,35 @@ public class TravelPackage implements Serializable {
 
     public TravelPackage(Customer cust, LocalDate date, int days) {
         this.cust = cust;
-        this.date = date;
+        this.startDay = (int) date.toEpochDay();
         this.days = days;
         cust.setHasPackage(); //set customer package status
     }
 
 
+    //keeps new IDs clear of one that was loaded from a file
+    static void reserveID(int id) {
+        if (id >= nextID) nextID = id + 1;
+    }
+
+    void track(ChangeLog changes) {
+        this.changes = changes;
+        markChanged();
+    }
+
+    private void markChanged() {
+        if (changes != null) changes.mark(this);
+    }
+
     public void attachAccommodation(Accommodation acc) {
         this.acc = acc;
         acc.setAvailable(false); //change attached accommodation to unavailable
+        markChanged();
+    }
+
+    //points at a unit without changing its availability, used when relinking stored packages
+    void setAccommodation(Accommodation acc) {
+        this.acc = acc;
     }
 
     public int getID() {
@@ -42,12 +81,26 @@ public class TravelPackage implements Serializable {
         return cust;
     }
 
+    public void setCustomer(Customer cust) {
+        this.cust = cust;
+        markChanged();
+    }
+
     public Accommodation getAccommodation() {
         return acc;
     }
 
     public LocalDate getDate() {
-        return date;
+        return startDay == NO_DATE ? null : LocalDate.ofEpochDay(startDay);
+    }
+
+    public void setDate(LocalDate date) {
+        this.startDay = (int) date.toEpochDay();
+        markChanged();
+    }
+
+    public int getStartDay() {
+        return startDay;
     }
 
     public int getDays() {
@@ -56,6 +109,17 @@ public class TravelPackage implements Serializable {
 
     public void setDays(int days) {
         this.days = days;
+        markChanged();
+    }
+
+    public double getNightlyRate() {
+        if (nightlyRate > 0 || acc == null) return nightlyRate;
+        return acc.getPrice();
+    }
+
+    public void setNightlyRate(double nightlyRate) {
+        this.nightlyRate = nightlyRate;
+        markChanged();
     }
 
     public LiftPass getLiftPass() {
@@ -64,20 +128,24 @@ public class TravelPackage implements Serializable {
 
     public void setLiftPass(LiftPass liftPass) {
         this.liftPass = liftPass;
-        this.hasLiftPass = true; //set lesson
+        markChanged();
     }
 
     public boolean getHasLiftPass() {
-        return hasLiftPass;
+        return liftPass != null;
     }
 
     public void setLessons(Lessons lesson) {
         this.lessons = lesson;
-        this.hasLessons = true;
+        markChanged();
+    }
+
+    public Lessons getLessons() {
+        return lessons;
     }
 
     public boolean getHasLessons() {
-        return hasLessons;
+        return lessons != null;
     }
 
 
@@ -85,7 +153,7 @@ public class TravelPackage implements Serializable {
         double totalCost = 0;
 
         if (acc != null) {
-            totalCost += acc.getPrice() * days;
+            totalCost += getNightlyRate() * days;
         }
 
         if (liftPass != null) {
@@ -99,6 +167,36 @@ public class TravelPackage implements Serializable {
         return totalCost;
     }
 
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("pkgID", pkgID);
+        fields.put("days", days);
+        fields.put("cust", cust);
+        fields.put("acc", acc);
+        fields.put("date", getDate());
+        fields.put("liftPass", liftPass);
+        fields.put("hasLiftPass", getHasLiftPass());
+        fields.put("lessons", lessons);
+        fields.put("hasLessons", getHasLessons());
+        fields.put("nightlyRate", nightlyRate);
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        pkgID = fields.get("pkgID", 0);
+        days = fields.get("days", 0);
+        cust = (Customer) fields.get("cust", null);
+        acc = (Accommodation) fields.get("acc", null);
+        LocalDate date = (LocalDate) fields.get("date", null);
+        startDay = date == null ? NO_DATE : (int) date.toEpochDay();
+        liftPass = (LiftPass) fields.get("liftPass", null);
+        lessons = (Lessons) fields.get("lessons", null);
+        nightlyRate = fields.get("nightlyRate", 0.0);
+    }
+
     @Override
     public String toString() {
         String result = String.format(
@@ -106,7 +204,7 @@ public class TravelPackage implements Serializable {
                 pkgID,
                 cust.getName(),
                 acc.getType(),
-                date,
+                getDate(),
                 days, getTotalCost()
         );
         //append lift pass
@@ -0,0 +1,142 @@
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+//customers waiting for units, one priority queue per (type, price band) ordered by tier then request time
+//a released unit is offered to the best head among the queues it can satisfy, without scanning the inventory
+//units are only noted as they are released and offered by assignReleased once the resort operation that freed
+//them has finished, so a package is never created from inside another change
+public class Waitlist implements AvailabilityListener {
+    private static final String ANY_TYPE = "";
+    private static final Comparator<WaitlistRequest> PRIORITY =
+            Comparator.comparingInt(WaitlistRequest::getTier).thenComparingLong(WaitlistRequest::getSequence);
+
+    private final MtBullerResort resort;
+    private final HashMap<String, List<PriorityQueue<WaitlistRequest>>> queues = new HashMap<>();
+    private final HashMap<Integer, WaitlistRequest> byCustomer = new HashMap<>();
+    private final ArrayDeque<Accommodation> released = new ArrayDeque<>();
+    private long nextSequence = 0;
+    private Consumer<TravelPackage> onAssigned = pkg -> { };
+
+    public Waitlist(MtBullerResort resort) {
+        this.resort = resort;
+    }
+
+    //called with each package created from the waitlist
+    public void setOnAssigned(Consumer<TravelPackage> onAssigned) {
+        this.onAssigned = onAssigned;
+    }
+
+    public synchronized WaitlistRequest join(Customer customer, String type, PriceBand band, LocalDate date, int days, int tier) {
+        if (customer.inPackage()) {
+            throw new IllegalArgumentException("Customer already has a package.");
+        }
+        if (byCustomer.containsKey(customer.getID())) {
+            throw new IllegalArgumentException("Customer is already on the waitlist.");
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive.");
+        }
+        WaitlistRequest request = new WaitlistRequest(nextSequence++, customer, type, band, date, days, tier);
+        queuesFor(key(type)).get(band.ordinal()).add(request);
+        byCustomer.put(customer.getID(), request);
+        return request;
+    }
+
+    //lazily removed: the entry is skipped when it reaches the head of its queue
+    public synchronized boolean leave(Customer customer) {
+        WaitlistRequest request = byCustomer.remove(customer.getID());
+        if (request == null) return false;
+        request.cancel();
+        return true;
+    }
+
+    public synchronized boolean isWaiting(Customer customer) {
+        return byCustomer.containsKey(customer.getID());
+    }
+
+    public synchronized List<WaitlistRequest> waiting() {
+        ArrayList<WaitlistRequest> list = new ArrayList<>(byCustomer.values());
+        list.sort(PRIORITY);
+        return list;
+    }
+
+    @Override
+    public synchronized void unitReleased(Accommodation unit) {
+        released.add(unit);
+    }
+
+    //offers every unit released since the last call, skipping any that were booked again meanwhile
+    public void assignReleased() {
+        while (true) {
+            Accommodation unit;
+            WaitlistRequest request;
+            synchronized (this) {
+                unit = released.poll();
+                if (unit == null) return;
+                if (!unit.isAvailable()) continue;
+                request = take(unit);
+            }
+            if (request == null) continue;
+            TravelPackage pkg = resort.createPackage(request.getCustomer(), unit, request.getDate(), request.getDays());
+            onAssigned.accept(pkg);
+        }
+    }
+
+    //forgets released units without offering them, for changes that were already assigned where they were made
+    public synchronized void clearReleased() {
+        released.clear();
+    }
+
+    //removes and returns the best waiting request the unit satisfies
+    private synchronized WaitlistRequest take(Accommodation unit) {
+        int firstBand = PriceBand.of(unit.getPrice()).ordinal();
+        List<PriorityQueue<WaitlistRequest>> typed = queues.get(key(unit.getType()));
+        List<PriorityQueue<WaitlistRequest>> any = queues.get(ANY_TYPE);
+
+        PriorityQueue<WaitlistRequest> best = null;
+        for (int band = firstBand; band < PriceBand.values().length; band++) {
+            best = better(best, head(typed, band));
+            best = better(best, head(any, band));
+        }
+        if (best == null) return null;
+        WaitlistRequest request = best.poll();
+        byCustomer.remove(request.getCustomer().getID());
+        return request;
+    }
+
+    //the queue, after dropping cancelled or already booked entries from its head
+    private PriorityQueue<WaitlistRequest> head(List<PriorityQueue<WaitlistRequest>> bands, int band) {
+        if (bands == null) return null;
+        PriorityQueue<WaitlistRequest> queue = bands.get(band);
+        while (!queue.isEmpty() && (queue.peek().isCancelled() || queue.peek().getCustomer().inPackage())) {
+            WaitlistRequest stale = queue.poll();
+            byCustomer.remove(stale.getCustomer().getID(), stale);
+        }
+        return queue.isEmpty() ? null : queue;
+    }
+
+    private static PriorityQueue<WaitlistRequest> better(PriorityQueue<WaitlistRequest> a, PriorityQueue<WaitlistRequest> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return PRIORITY.compare(a.peek(), b.peek()) <= 0 ? a : b;
+    }
+
+    private List<PriorityQueue<WaitlistRequest>> queuesFor(String type) {
+        return queues.computeIfAbsent(type, k -> {
+            ArrayList<PriorityQueue<WaitlistRequest>> bands = new ArrayList<>(PriceBand.values().length);
+            for (int i = 0; i < PriceBand.values().length; i++) bands.add(new PriorityQueue<>(PRIORITY));
+            return bands;
+        });
+    }
+
+    private static String key(String type) {
+        return type == null ? ANY_TYPE : type.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,65 @@
+import java.time.LocalDate;
+
+//a customer waiting for a unit of a type (null for any) within a price band
+public class WaitlistRequest {
+    private final long sequence;
+    private final Customer customer;
+    private final String type;
+    private final PriceBand band;
+    private final LocalDate date;
+    private final int days;
+    private final int tier;
+    private boolean cancelled = false;
+
+    WaitlistRequest(long sequence, Customer customer, String type, PriceBand band, LocalDate date, int days, int tier) {
+        this.sequence = sequence;
+        this.customer = customer;
+        this.type = type;
+        this.band = band;
+        this.date = date;
+        this.days = days;
+        this.tier = tier;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public PriceBand getBand() {
+        return band;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int getTier() {
+        return tier;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{ customer: \"%s\", type: %s, band: %s, date: %s, days: %d, tier: %d }",
+                customer.getName(), type == null ? "any" : type, band, date, days, tier);
+    }
+}